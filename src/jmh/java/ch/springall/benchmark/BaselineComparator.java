@@ -0,0 +1,92 @@
+package ch.springall.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Compare un résultat JMH (-rf json) à un fichier de référence stocké dans src/jmh/resources/baselines
+// Pour chaque benchmark (et chaque combinaison de @Param) :
+// - le débit (score principal) ne doit pas baisser de plus de la tolérance de débit (20 % par défaut, les mesures sont bruitées)
+// - l'allocation par opération (gc.alloc.rate.norm, obtenue avec -prof gc) ne doit pas augmenter de plus de
+//   la tolérance d'allocation (10 % par défaut) : cette valeur est presque déterministe et détecte bien une régression du code généré
+// Le programme se termine avec le code 1 si au moins une régression est trouvée
+// Usage : mvn -Pbenchmark -DskipTests test-compile exec:exec -Djmh.main=ch.springall.benchmark.BaselineComparator
+//         -Djmh.args="src/jmh/resources/baselines/MapperBenchmark.json target/jmh-mapper.json"
+public final class BaselineComparator {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    // Marge absolue sur l'allocation : évite de signaler 0 -> 8 octets/op comme une régression de +inf %
+    private static final double ALLOCATION_SLACK_BYTES = 16;
+
+    private BaselineComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 4) {
+            System.err.println("Usage: BaselineComparator <baseline.json> <current.json> [throughputTolerance] [allocationTolerance]");
+            System.exit(2);
+        }
+        // Les tolérances sont passées en arguments : exec:exec lance une autre JVM, un -D sur la ligne de commande Maven ne lui parvient pas
+        double throughputTolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.20;
+        double allocationTolerance = args.length > 3 ? Double.parseDouble(args[3]) : 0.10;
+
+        Map<String, JsonNode> baseline = read(Path.of(args[0]));
+        Map<String, JsonNode> current = read(Path.of(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-80s %14s %14s %8s %12s %12s %8s%n", "Benchmark", "base score", "score", "delta", "base B/op", "B/op", "delta");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.printf("%-80s %s%n", entry.getKey(), "(new, no baseline)");
+                continue;
+            }
+            double baseScore = base.at("/primaryMetric/score").asDouble();
+            double score = entry.getValue().at("/primaryMetric/score").asDouble();
+            double scoreDelta = (score - baseScore) / baseScore;
+            boolean slower = score < baseScore * (1 - throughputTolerance);
+
+            JsonNode baseAllocation = base.at("/secondaryMetrics").get(ALLOCATION_METRIC);
+            JsonNode allocation = entry.getValue().at("/secondaryMetrics").get(ALLOCATION_METRIC);
+            String allocationColumns = String.format("%12s %12s %8s", "-", "-", "-");
+            boolean moreAllocation = false;
+            if (baseAllocation != null && allocation != null) {
+                double baseBytes = baseAllocation.get("score").asDouble();
+                double bytes = allocation.get("score").asDouble();
+                moreAllocation = bytes > baseBytes * (1 + allocationTolerance) + ALLOCATION_SLACK_BYTES;
+                allocationColumns = String.format("%12.1f %12.1f %7.1f%%", baseBytes, bytes, baseBytes == 0 ? 0 : (bytes - baseBytes) * 100 / baseBytes);
+            }
+            System.out.printf("%-80s %14.3f %14.3f %7.1f%% %s%s%n", entry.getKey(), baseScore, score, scoreDelta * 100,
+                    allocationColumns, slower || moreAllocation ? "  REGRESSION" : "");
+            if (slower || moreAllocation) {
+                regressions++;
+            }
+        }
+        baseline.keySet().stream()
+                .filter(key -> !current.containsKey(key))
+                .forEach(key -> System.out.printf("%-80s %s%n", key, "(missing from current run)"));
+
+        if (regressions > 0) {
+            System.out.println(regressions + " regression(s) against " + args[0]);
+            System.exit(1);
+        }
+        System.out.println("No regression against " + args[0]);
+    }
+
+    // Clé : nom du benchmark suivi des paramètres, ex. "ch.springall.benchmark.MapperBenchmark.directorToRecord{moviesPerDirector=10}"
+    private static Map<String, JsonNode> read(Path path) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(path.toFile())) {
+            Map<String, String> params = new TreeMap<>();
+            result.path("params").properties().forEach(param -> params.put(param.getKey(), param.getValue().asText()));
+            results.put(result.get("benchmark").asText() + (params.isEmpty() ? "" : params.toString()), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,40 @@
+package ch.springall.benchmark;
+
+import ch.springall.SpringAllApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Démarrage de l'application pour les benchmarks JMH
+// Par défaut on utilise une base H2 en mémoire (classpath de test) et un port HTTP aléatoire
+// Les propriétés passées en -D sur la ligne de commande ont priorité sur ces valeurs par défaut,
+// ce qui permet de lancer les mêmes benchmarks contre PostgreSQL :
+// -Djmh.args="... -jvmArgs -Dspring.datasource.url=jdbc:postgresql://localhost:5432/SpringAll"
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(Map<String, Object> properties) {
+        return builder(properties).run();
+    }
+
+    public static ConfigurableApplicationContext start() {
+        return start(Map.of());
+    }
+
+    // Pour les benchmarks qui ajoutent leurs propres sources (configuration) ou initializers avant le démarrage
+    public static SpringApplicationBuilder builder(Map<String, Object> properties) {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("server.port", "0");
+        defaults.put("spring.datasource.url", "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+        defaults.put("spring.jpa.properties.hibernate.jdbc.batch_size", "50");
+        defaults.put("spring.jpa.properties.hibernate.order_inserts", "true");
+        defaults.put("spring.jpa.properties.hibernate.order_updates", "true");
+        defaults.putAll(properties);
+        return new SpringApplicationBuilder(SpringAllApplication.class)
+                .properties(defaults);
+    }
+}
@@ -0,0 +1,23 @@
+package ch.springall.benchmark;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.web.SecurityFilterChain;
+
+// Sécurité des benchmarks HTTP : l'API /directors est ouverte (pas de login OAuth2 possible depuis JMH)
+// Cette classe n'est pas annotée @Configuration (elle n'est pas détectée par le scan des composants) :
+// seuls les benchmarks qui l'ajoutent explicitement aux sources de SpringApplicationBuilder l'utilisent
+// La chaîne est prioritaire et limitée à /directors/**, celle de SecurityConfig reste active pour le reste
+public class BenchmarkSecurity {
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public SecurityFilterChain openDirectorsApi(HttpSecurity http) throws Exception {
+        return http.securityMatcher("/directors/**")
+                .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+                .csrf(csrf -> csrf.disable())
+                .build();
+    }
+}
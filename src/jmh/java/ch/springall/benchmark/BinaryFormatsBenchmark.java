@@ -0,0 +1,99 @@
+package ch.springall.benchmark;
+
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.dtos.MovieRecord;
+import ch.springall.dtos.StudioRecord;
+import ch.springall.entity.Genre;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JSON, CBOR et Smile sur le plus gros payload servi par les contrôleurs : un studio avec ses directeurs et leurs films
+// (GET /studios/{id}/studio, même forme que GET /directors/{id}?expand=movies répété directorsPerStudio fois)
+// - encode : Record -> octets (réponse), decode : octets -> Record (corps de POST /directors/add, PUT /directors/update)
+// Les ObjectMapper sont construits comme dans BinaryFormatsConfig (même builder, seule la JsonFactory change)
+// La taille du payload de chaque format est affichée au début de chaque essai (ligne "payload size")
+// Le score est un nombre de payloads par seconde ; avec -prof gc, gc.alloc.rate.norm donne les octets alloués par payload
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BinaryFormatsBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"20", "200"})
+    public int directorsPerStudio;
+
+    @Param({"10"})
+    public int moviesPerDirector;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+
+    private StudioRecord studio;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Même configuration que JacksonAutoConfiguration (dates en texte)
+        JsonFactory factory = switch (format) {
+            case "json" -> new JsonFactory();
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .factory(factory)
+                .build();
+        writer = objectMapper.writerFor(StudioRecord.class);
+        reader = objectMapper.readerFor(StudioRecord.class);
+
+        List<DirectorRecord> directors = new ArrayList<>(directorsPerStudio);
+        for (int i = 0; i < directorsPerStudio; i++) {
+            directors.add(new DirectorRecord((long) i, "Director " + i, "Lastname " + i, LocalDate.of(1930 + i % 60, 1 + i % 12, 1 + i % 28),
+                    i % 4, movies(i, moviesPerDirector)));
+        }
+        studio = new StudioRecord(1L, "Warner Bros", 1923, directors);
+        payload = writer.writeValueAsBytes(studio);
+        System.out.printf("%npayload size: format=%s directors=%d movies=%d -> %d bytes%n",
+                format, directorsPerStudio, directorsPerStudio * moviesPerDirector, payload.length);
+    }
+
+    private static List<MovieRecord> movies(long directorId, int count) {
+        List<MovieRecord> movies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            movies.add(new MovieRecord(directorId * 1000 + i, "Movie " + directorId + "-" + i,
+                    LocalDateTime.of(1990 + i % 30, 1 + i % 12, 1 + i % 28, 20, 30),
+                    Genre.values()[i % Genre.values().length], 5.0 + i % 50 / 10.0, directorId));
+        }
+        return movies;
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(studio);
+    }
+
+    @Benchmark
+    public StudioRecord decode() throws IOException {
+        return reader.readValue(payload);
+    }
+}
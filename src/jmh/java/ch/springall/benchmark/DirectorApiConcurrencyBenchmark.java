@@ -0,0 +1,92 @@
+package ch.springall.benchmark;
+
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.service.ServiceDirector;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Débit de l'API GET /directors (une page de 20 directeurs, une requête SQL) avec beaucoup de clients simultanés :
+// - threading = platform : pool de threads Tomcat classique (server.tomcat.threads.max, 200 par défaut)
+// - threading = virtual  : profil "virtual-threads", un thread virtuel par requête
+// Chaque requête SQL attend dbLatencyMs (LatencyDataSource) pour reproduire un thread bloqué sur JDBC comme avec PostgreSQL,
+// et le pool Hikari est assez grand pour que la base ne soit pas le goulot d'étranglement
+// 400 threads JMH jouent le rôle des clients HTTP concurrents (@Threads)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(DirectorApiConcurrencyBenchmark.CLIENTS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class DirectorApiConcurrencyBenchmark {
+
+    static final int CLIENTS = 400;
+
+    private static final int DIRECTORS = 1_000;
+
+    @Param({"platform", "virtual"})
+    public String threading;
+
+    @Param({"100"})
+    public int dbLatencyMs;
+
+    @Param({"200"})
+    public int tomcatMaxThreads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SpringApplicationBuilder builder = BenchmarkApplication.builder(Map.of(
+                        "server.tomcat.threads.max", String.valueOf(tomcatMaxThreads),
+                        "spring.datasource.hikari.maximum-pool-size", String.valueOf(CLIENTS)))
+                .sources(BenchmarkSecurity.class)
+                .initializers(applicationContext -> applicationContext.getBeanFactory()
+                        .addBeanPostProcessor(new LatencyDataSource(Duration.ofMillis(dbLatencyMs))));
+        if ("virtual".equals(threading)) {
+            builder.profiles("virtual-threads");
+        }
+        context = builder.run();
+
+        List<DirectorRecord> directors = new ArrayList<>(DIRECTORS);
+        for (int i = 0; i < DIRECTORS; i++) {
+            directors.add(new DirectorRecord(null, "First" + i, "Last" + i, LocalDate.of(1970, 1, 1), i % 3, null));
+        }
+        context.getBean(ServiceDirector.class).addDirectorRecords(directors);
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/directors?limit=20")).GET().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int directorsPage() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET /directors returned " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
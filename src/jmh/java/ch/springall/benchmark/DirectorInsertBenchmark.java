@@ -0,0 +1,79 @@
+package ch.springall.benchmark;
+
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.dtos.MovieRecord;
+import ch.springall.entity.Genre;
+import ch.springall.service.ServiceDirector;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Débit d'insertion des directeurs (avec leurs films) :
+// - singleInserts : un appel à addDirectorRecord par directeur, comme N appels à POST /directors/add
+// - batchInsert   : un appel à addDirectorRecords pour toute la liste, comme POST /directors/batch
+// Le score est exprimé en directeurs insérés par seconde (@OperationsPerInvocation)
+// dbLatencyMs : attente avant chaque requête SQL (LatencyDataSource), l'aller-retour réseau vers PostgreSQL que H2 en mémoire
+// n'a pas ; c'est lui que le batch JDBC économise (0 = H2 seul)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class DirectorInsertBenchmark {
+
+    private static final int DIRECTORS = 1_000;
+    private static final int MOVIES_PER_DIRECTOR = 3;
+
+    @Param({"0", "1", "2"})
+    public int dbLatencyMs;
+
+    private ConfigurableApplicationContext context;
+    private ServiceDirector serviceDirector;
+    private List<DirectorRecord> payload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.builder(Map.of())
+                .initializers(applicationContext -> applicationContext.getBeanFactory()
+                        .addBeanPostProcessor(new LatencyDataSource(Duration.ofMillis(dbLatencyMs))))
+                .run();
+        serviceDirector = context.getBean(ServiceDirector.class);
+        payload = new ArrayList<>(DIRECTORS);
+        for (int i = 0; i < DIRECTORS; i++) {
+            List<MovieRecord> movies = new ArrayList<>(MOVIES_PER_DIRECTOR);
+            for (int j = 0; j < MOVIES_PER_DIRECTOR; j++) {
+                movies.add(new MovieRecord(null, "Movie " + i + "-" + j, LocalDateTime.of(2000 + j, 1, 1, 20, 0),
+                        Genre.values()[j % Genre.values().length], 7.5, null));
+            }
+            payload.add(new DirectorRecord(null, "First" + i, "Last" + i, LocalDate.of(1970, 1, 1), i % 3, movies));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DIRECTORS)
+    public void singleInserts(Blackhole blackhole) {
+        for (DirectorRecord directorRecord : payload) {
+            blackhole.consume(serviceDirector.addDirectorRecord(directorRecord));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DIRECTORS)
+    public List<Long> batchInsert() {
+        return serviceDirector.addDirectorRecords(payload);
+    }
+}
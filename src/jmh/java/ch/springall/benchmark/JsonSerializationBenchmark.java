@@ -0,0 +1,100 @@
+package ch.springall.benchmark;
+
+import ch.springall.config.FastJsonConfig;
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.dtos.MovieRecord;
+import ch.springall.dtos.StudioRecord;
+import ch.springall.entity.Genre;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Coût de la sérialisation JSON des Records, comme dans les réponses des contrôleurs :
+// - directorsPage : une page de 20 directeurs avec moviesPerDirector films (GET /directors?expand=movies)
+// - movies        : une liste de 50 films (indépendante de moviesPerDirector)
+// - studio        : un studio avec 20 directeurs et leurs films
+// json = default : ObjectMapper tel que Spring Boot le configure par défaut (réflexion + DateTimeFormatter)
+// json = fast    : mêmes réglages + les modules de FastJsonConfig (Blackbird + FastJavaTimeModule)
+// Le score est un nombre de payloads sérialisés par seconde ; avec -prof gc, gc.alloc.rate.norm donne les octets alloués par payload
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JsonSerializationBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int MOVIES = 50;
+
+    @Param({"default", "fast"})
+    public String json;
+
+    @Param({"0", "10"})
+    public int moviesPerDirector;
+
+    private ObjectWriter directorsWriter;
+    private ObjectWriter moviesWriter;
+    private ObjectWriter studioWriter;
+
+    private List<DirectorRecord> directors;
+    private List<MovieRecord> movies;
+    private StudioRecord studio;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Même configuration que JacksonAutoConfiguration (dates en texte), les modules sont ajoutés comme les beans Module
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if ("fast".equals(json)) {
+            FastJsonConfig config = new FastJsonConfig();
+            builder.modulesToInstall(config.blackbirdModule(), config.fastJavaTimeModule());
+        }
+        ObjectMapper objectMapper = builder.build();
+        TypeFactory types = objectMapper.getTypeFactory();
+        directorsWriter = objectMapper.writerFor(types.constructCollectionType(List.class, DirectorRecord.class));
+        moviesWriter = objectMapper.writerFor(types.constructCollectionType(List.class, MovieRecord.class));
+        studioWriter = objectMapper.writerFor(StudioRecord.class);
+
+        directors = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            directors.add(new DirectorRecord((long) i, "Quentin", "Tarantino", LocalDate.of(1963, 3, 27), 2, movies(i, moviesPerDirector)));
+        }
+        movies = movies(PAGE_SIZE, MOVIES);
+        studio = new StudioRecord(1L, "Warner Bros", 1923, directors);
+    }
+
+    private static List<MovieRecord> movies(long directorId, int count) {
+        List<MovieRecord> movies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            movies.add(new MovieRecord(directorId * 1000 + i, "Movie " + i, LocalDateTime.of(1990 + i % 30, 1 + i % 12, 1 + i % 28, 20, 30),
+                    Genre.values()[i % Genre.values().length], 7.5, directorId));
+        }
+        return movies;
+    }
+
+    @Benchmark
+    public byte[] directorsPage() throws JsonProcessingException {
+        return directorsWriter.writeValueAsBytes(directors);
+    }
+
+    @Benchmark
+    public byte[] movies() throws JsonProcessingException {
+        return moviesWriter.writeValueAsBytes(movies);
+    }
+
+    @Benchmark
+    public byte[] studio() throws JsonProcessingException {
+        return studioWriter.writeValueAsBytes(studio);
+    }
+}
@@ -0,0 +1,58 @@
+package ch.springall.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Set;
+
+// Simule le temps d'aller-retour vers la base de données (réseau + PostgreSQL) au-dessus de H2 en mémoire
+// Chaque exécution de requête (execute, executeQuery, executeUpdate, executeBatch...) attend la latence configurée
+// avant d'être transmise à H2 : le thread de la requête HTTP reste bloqué sur "JDBC" comme en production
+// Enregistré comme BeanPostProcessor : la DataSource Hikari créée par Spring Boot est enveloppée dans un proxy
+public class LatencyDataSource implements BeanPostProcessor {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate", "executeBatch", "executeLargeUpdate", "executeLargeBatch");
+
+    private final Duration latency;
+
+    public LatencyDataSource(Duration latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !latency.isZero()) {
+            return proxy(DataSource.class, dataSource);
+        }
+        return bean;
+    }
+
+    // Proxy JDK : les connexions et les statements retournés sont eux aussi enveloppés
+    private Object proxy(Class<?> type, Object target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (EXECUTE_METHODS.contains(method.getName()) && target instanceof Statement) {
+                Thread.sleep(latency);
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Connection connection && method.getReturnType() == Connection.class) {
+                return proxy(Connection.class, connection);
+            }
+            if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return proxy(method.getReturnType(), statement);
+            }
+            return result;
+        };
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,116 @@
+package ch.springall.benchmark;
+
+import ch.springall.dtos.DirectorDTO;
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.dtos.StudioRecord;
+import ch.springall.entity.Director;
+import ch.springall.entity.Genre;
+import ch.springall.entity.Movie;
+import ch.springall.entity.Studio;
+import ch.springall.mapper.MapperDirector;
+import ch.springall.mapper.MapperStudio;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Coût des mappers MapStruct (code généré dans target/generated-sources) sur des graphes de taille réaliste :
+// - un directeur avec moviesPerDirector films : toRecord, toDto (DTO classique vs Record), fromRecordToEntity, updateEntityFromRecord
+// - un studio avec STUDIO_DIRECTORS directeurs qui ont chacun moviesPerDirector films : studio -> directeurs -> films
+// Les mappers sont créés par un petit contexte Spring limité au package ch.springall.mapper (pas de base de données)
+// À lancer avec -prof gc pour obtenir l'allocation par opération (gc.alloc.rate.norm, en octets/op)
+// et à comparer aux valeurs de référence avec BaselineComparator (voir benchmark.md)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MapperBenchmark {
+
+    private static final int STUDIO_DIRECTORS = 20;
+
+    @Param({"0", "10", "50"})
+    public int moviesPerDirector;
+
+    private AnnotationConfigApplicationContext context;
+    private MapperDirector mapperDirector;
+    private MapperStudio mapperStudio;
+
+    private Director director;
+    private DirectorRecord directorRecord;
+    private Director updateTarget;
+    private Studio studio;
+    private StudioRecord studioRecord;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext("ch.springall.mapper");
+        mapperDirector = context.getBean(MapperDirector.class);
+        mapperStudio = context.getBean(MapperStudio.class);
+
+        director = director(1);
+        directorRecord = mapperDirector.toRecord(director);
+        updateTarget = director(2);
+        List<Director> directors = new ArrayList<>(STUDIO_DIRECTORS);
+        for (int i = 0; i < STUDIO_DIRECTORS; i++) {
+            directors.add(director(10 + i));
+        }
+        studio = new Studio("Warner Bros", 1923, directors);
+        studio.setId(1L);
+        studioRecord = mapperStudio.toRecord(studio);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private Director director(long id) {
+        Director d = new Director("Quentin", "Tarantino", LocalDate.of(1963, 3, 27), 2);
+        d.setId(id);
+        List<Movie> movies = new ArrayList<>(moviesPerDirector);
+        for (int i = 0; i < moviesPerDirector; i++) {
+            Movie m = new Movie("Movie " + i, LocalDateTime.of(1990 + i % 30, 1, 1, 20, 0), Genre.values()[i % Genre.values().length], 7.5, d);
+            m.setId(id * 1000 + i);
+            movies.add(m);
+        }
+        d.setMoviesDirected(movies);
+        return d;
+    }
+
+    @Benchmark
+    public DirectorRecord directorToRecord() {
+        return mapperDirector.toRecord(director);
+    }
+
+    @Benchmark
+    public DirectorDTO directorToDto() {
+        return mapperDirector.toDto(director);
+    }
+
+    @Benchmark
+    public Director directorFromRecordToEntity() {
+        return mapperDirector.fromRecordToEntity(directorRecord);
+    }
+
+    @Benchmark
+    public Director directorUpdateEntityFromRecord() {
+        mapperDirector.updateEntityFromRecord(directorRecord, updateTarget);
+        return updateTarget;
+    }
+
+    @Benchmark
+    public StudioRecord studioToRecord() {
+        return mapperStudio.toRecord(studio);
+    }
+
+    @Benchmark
+    public Studio studioFromRecordToEntity() {
+        return mapperStudio.fromRecordToEntity(studioRecord);
+    }
+}
@@ -0,0 +1,131 @@
+package ch.springall.benchmark;
+
+import ch.springall.dtos.MovieSearchResult;
+import ch.springall.entity.Genre;
+import ch.springall.service.MovieSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Temps d'une recherche dans l'index des titres (MovieSearchIndex) sans base de données ni Spring
+// Les titres sont générés : 2 à 6 mots tirés d'un vocabulaire de VOCABULARY mots, les premiers mots étant beaucoup plus
+// fréquents que les derniers (distribution proche de celle des mots de vrais titres)
+// Requêtes mesurées, de la moins à la plus coûteuse :
+// - exact  : deux mots du vocabulaire, identiques à ceux des titres
+// - prefix : deux mots dont le dernier est incomplet (recherche pendant la saisie)
+// - typo   : deux mots avec une lettre remplacée (recherche approchée par trigrammes)
+// - common : un seul mot parmi les 10 plus fréquents (plusieurs milliers de titres le contiennent)
+// - shortPrefix : la première ou les deux premières lettres d'un mot (début de saisie), dont les termes couvrent
+//   une grande partie des titres
+// common et shortPrefix mesurent la limite de candidats examinés (MovieSearchIndex.MAX_CANDIDATES)
+// Objectif : moins d'une milliseconde par recherche avec 1 000 000 de titres
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MovieSearchBenchmark {
+
+    private static final int VOCABULARY = 50_000;
+    private static final int QUERIES = 1024;
+
+    @Param({"100000", "1000000"})
+    public int titles;
+
+    private MovieSearchIndex index;
+    private String[] words;
+    private String[] exactQueries;
+    private String[] prefixQueries;
+    private String[] typoQueries;
+    private String[] commonQueries;
+    private String[] shortPrefixQueries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = word(random);
+        }
+        index = new MovieSearchIndex(null, null);
+        Genre[] genres = Genre.values();
+        for (int id = 1; id <= titles; id++) {
+            StringBuilder title = new StringBuilder();
+            int length = 2 + random.nextInt(5);
+            for (int w = 0; w < length; w++) {
+                title.append(w == 0 ? "" : " ").append(words[skewed(random)]);
+            }
+            index.put(id, title.toString(), genres[random.nextInt(genres.length)]);
+        }
+        exactQueries = new String[QUERIES];
+        prefixQueries = new String[QUERIES];
+        typoQueries = new String[QUERIES];
+        commonQueries = new String[QUERIES];
+        shortPrefixQueries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String first = words[skewed(random)];
+            String second = words[skewed(random)];
+            exactQueries[i] = first + " " + second;
+            prefixQueries[i] = first + " " + second.substring(0, Math.max(2, second.length() - 2));
+            typoQueries[i] = typo(first, random) + " " + typo(second, random);
+            commonQueries[i] = words[random.nextInt(10)];
+            shortPrefixQueries[i] = first.substring(0, 1 + random.nextInt(2));
+        }
+    }
+
+    // Mots de 4 à 10 lettres
+    private static String word(SplittableRandom random) {
+        int length = 4 + random.nextInt(7);
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+
+    // Index d'un mot, les petits index étant beaucoup plus fréquents (carré d'un tirage uniforme)
+    private static int skewed(SplittableRandom random) {
+        double u = random.nextDouble();
+        return (int) (u * u * VOCABULARY);
+    }
+
+    private static String typo(String word, SplittableRandom random) {
+        char[] letters = word.toCharArray();
+        letters[1 + random.nextInt(letters.length - 2)] = (char) ('a' + random.nextInt(26));
+        return new String(letters);
+    }
+
+    private int nextQuery() {
+        next = (next + 1) & (QUERIES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public List<MovieSearchResult> exact() {
+        return index.search(exactQueries[nextQuery()], null, MovieSearchIndex.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    public List<MovieSearchResult> prefix() {
+        return index.search(prefixQueries[nextQuery()], null, MovieSearchIndex.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    public List<MovieSearchResult> typo() {
+        return index.search(typoQueries[nextQuery()], null, MovieSearchIndex.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    public List<MovieSearchResult> common() {
+        return index.search(commonQueries[nextQuery()], null, MovieSearchIndex.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    public List<MovieSearchResult> shortPrefix() {
+        return index.search(shortPrefixQueries[nextQuery()], null, MovieSearchIndex.DEFAULT_LIMIT);
+    }
+}
@@ -0,0 +1,126 @@
+package ch.springall.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Mesure du démarrage à froid de l'application dans chaque mode de build (ce n'est pas un benchmark JMH : chaque mesure
+// est un nouveau processus, JMH n'apporte rien ici)
+// - jvm     : jar Spring Boot classique (mvn -DskipTests package)
+// - aot-cds : jar traité par Spring AOT + archive CDS (mvn -Paot-cds -DskipTests package)
+// - native  : image native GraalVM (mvn -Pnative -DskipTests native:compile)
+// Pour chaque mode dont l'artefact existe dans target/, l'application est lancée plusieurs fois et on mesure :
+// - le temps jusqu'à la première réponse HTTP (time-to-first-request), en interrogeant l'URL de santé en boucle
+// - la mémoire résidente (RSS, /proc/<pid>/status, Linux uniquement) juste après cette première réponse
+// L'application a besoin de ses bases (PostgreSQL, voir application.properties) et des variables GOOGLE_CLIENT_ID/SECRET
+// Usage : mvn -Pbenchmark -DskipTests test-compile exec:exec -Djmh.main=ch.springall.benchmark.StartupBenchmark
+//         -Djmh.args="[runs] [url]"   (5 lancements et http://127.0.0.1:8089/actuator/health par défaut)
+public final class StartupBenchmark {
+
+    private static final String JAR = "SpringAll-0.0.1-SNAPSHOT.jar";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(120);
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        URI url = URI.create(args.length > 1 ? args[1] : "http://127.0.0.1:8089/actuator/health");
+        Path target = Path.of("target");
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+        // Commande de chaque mode ; un mode dont l'artefact n'a pas été construit est ignoré
+        Map<String, List<String>> modes = new LinkedHashMap<>();
+        if (Files.exists(target.resolve(JAR))) {
+            modes.put("jvm", List.of(java, "-jar", target.resolve(JAR).toString()));
+        }
+        Path cds = target.resolve("application");
+        if (Files.exists(cds.resolve("application.jsa"))) {
+            modes.put("aot-cds", List.of(java, "-XX:SharedArchiveFile=" + cds.resolve("application.jsa"),
+                    "-Dspring.aot.enabled=true", "-jar", cds.resolve(JAR).toString()));
+        }
+        if (Files.exists(target.resolve("SpringAll"))) {
+            modes.put("native", List.of(target.resolve("SpringAll").toString()));
+        }
+        if (modes.isEmpty()) {
+            System.err.println("No build found in target/ (jar, aot-cds or native): build at least one mode first");
+            System.exit(2);
+        }
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        System.out.printf("%-10s %6s %22s %22s%n", "mode", "runs", "first request (ms)", "RSS (MB)");
+        for (Map.Entry<String, List<String>> mode : modes.entrySet()) {
+            List<Long> startupMillis = new ArrayList<>();
+            List<Long> rssKb = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                long[] measure = measure(mode.getValue(), client, url);
+                startupMillis.add(measure[0]);
+                rssKb.add(measure[1]);
+            }
+            System.out.printf("%-10s %6d %22s %22s%n", mode.getKey(), runs,
+                    summary(startupMillis, 1), summary(rssKb, 1024));
+        }
+    }
+
+    // Retourne {millisecondes jusqu'à la première réponse, RSS en Ko}
+    private static long[] measure(List<String> command, HttpClient client, URI url) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            long deadline = start + STARTUP_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with code " + process.exitValue() + ": " + command);
+                }
+                try {
+                    client.send(HttpRequest.newBuilder(url).timeout(Duration.ofSeconds(1)).build(), HttpResponse.BodyHandlers.discarding());
+                    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    return new long[]{elapsed, residentSetKb(process.pid())};
+                } catch (IOException notListeningYet) {
+                    Thread.sleep(POLL_INTERVAL.toMillis());
+                }
+            }
+            throw new IllegalStateException("No HTTP response after " + STARTUP_TIMEOUT.toSeconds() + " s: " + command);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    // Ligne "VmRSS:   123456 kB" de /proc/<pid>/status (0 hors Linux)
+    private static long residentSetKb(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) {
+            return 0;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", ""));
+            }
+        }
+        return 0;
+    }
+
+    // Médiane (min - max)
+    private static String summary(List<Long> values, long divisor) {
+        List<Long> sorted = values.stream().sorted().toList();
+        return String.format("%d (%d - %d)", sorted.get(sorted.size() / 2) / divisor,
+                sorted.getFirst() / divisor, sorted.getLast() / divisor);
+    }
+}
@@ -0,0 +1,123 @@
+package ch.springall.benchmark;
+
+import ch.springall.dtos.DirectorStatsRecord;
+import ch.springall.dtos.GenreStatsRecord;
+import ch.springall.entity.Director;
+import ch.springall.entity.Genre;
+import ch.springall.entity.Movie;
+import ch.springall.repository.jpa.RepositoryDirector;
+import ch.springall.repository.jpa.RepositoryMovie;
+import ch.springall.service.ServiceStatistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Statistiques par genre sur MOVIES films : agrégation par la base vs chargement des entités et agrégation en Java
+// - databaseGenreStats    : RepositoryMovie.findGenreStats (GROUP BY, quelques lignes renvoyées)
+// - databaseDirectorStats : RepositoryMovie.findDirectorStats (GROUP BY sur les directeurs, 20 premiers)
+// - loadAndAggregate      : tous les directeurs avec leurs films (graphe GRAPH_MOVIES), puis agrégation en Java,
+//                           comme il fallait le faire avant les endpoints /stats
+// - cachedGenreStats      : ServiceStatistics.findGenreStats, servi par le cache "statistics" après le premier appel
+// Les données sont insérées en JDBC (batch) au démarrage : la préparation prend plusieurs dizaines de secondes
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = "-Xmx6g")
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class StatisticsBenchmark {
+
+    private static final int MOVIES = 1_000_000;
+    private static final int MOVIES_PER_DIRECTOR = 100;
+    private static final int STUDIOS = 100;
+    // Ids hors de la plage des séquences pooled-lo (aucun conflit avec les ids générés par Hibernate)
+    private static final long FIRST_ID = 1_000_000_000L;
+    private static final int BATCH = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private RepositoryMovie repositoryMovie;
+    private RepositoryDirector repositoryDirector;
+    private ServiceStatistics serviceStatistics;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        repositoryMovie = context.getBean(RepositoryMovie.class);
+        repositoryDirector = context.getBean(RepositoryDirector.class);
+        serviceStatistics = context.getBean(ServiceStatistics.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        insert(context.getBean(JdbcTemplate.class));
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Object[]> rows = new ArrayList<>(BATCH);
+        for (int s = 0; s < STUDIOS; s++) {
+            rows.add(new Object[]{FIRST_ID + s, "Studio " + s, 1900 + s});
+        }
+        jdbcTemplate.batchUpdate("insert into studio (id, studio_name, studio_founded_year) values (?, ?, ?)", rows);
+        rows.clear();
+        int directors = MOVIES / MOVIES_PER_DIRECTOR;
+        for (int d = 0; d < directors; d++) {
+            rows.add(new Object[]{FIRST_ID + d, "First" + d, "Last" + d, java.sql.Date.valueOf("1970-01-01"), 0, FIRST_ID + d % STUDIOS});
+        }
+        jdbcTemplate.batchUpdate("insert into director (id, first_name, last_name, birth_date, oscar_count, studio_id) values (?, ?, ?, ?, ?, ?)", rows);
+        rows.clear();
+        Genre[] genres = Genre.values();
+        for (int m = 0; m < MOVIES; m++) {
+            rows.add(new Object[]{FIRST_ID + m, "Movie " + m,
+                    Timestamp.valueOf(LocalDateTime.of(1950 + random.nextInt(75), 1 + random.nextInt(12), 1, 20, 0)),
+                    genres[random.nextInt(genres.length)].name(), random.nextInt(101) / 10.0, FIRST_ID + m / MOVIES_PER_DIRECTOR});
+            if (rows.size() == BATCH) {
+                jdbcTemplate.batchUpdate("insert into movie (id, title, release_date, genre, rating, director_id) values (?, ?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<GenreStatsRecord> databaseGenreStats() {
+        return repositoryMovie.findGenreStats();
+    }
+
+    @Benchmark
+    public List<DirectorStatsRecord> databaseDirectorStats() {
+        return repositoryMovie.findDirectorStats(Limit.of(ServiceStatistics.DEFAULT_LIMIT));
+    }
+
+    @Benchmark
+    public Map<Genre, DoubleSummaryStatistics> loadAndAggregate() {
+        return transactionTemplate.execute(status -> {
+            Map<Genre, DoubleSummaryStatistics> stats = new EnumMap<>(Genre.class);
+            for (Director director : repositoryDirector.findAllByOrderByIdAsc()) {
+                for (Movie movie : director.getMoviesDirected()) {
+                    stats.computeIfAbsent(movie.getGenre(), g -> new DoubleSummaryStatistics()).accept(movie.getRating());
+                }
+            }
+            return stats;
+        });
+    }
+
+    @Benchmark
+    public List<GenreStatsRecord> cachedGenreStats() {
+        return serviceStatistics.findGenreStats();
+    }
+}
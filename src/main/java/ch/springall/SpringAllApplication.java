@@ -12,9 +12,12 @@ import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 // L'annotation @SpringBootApplication indique qu'il s'agit d'une application Spring Boot
 // et active la configuration automatique, le balayage des composants et la configuration des propriétés.
 @SpringBootApplication
+// DataSourceAutoConfiguration est importée explicitement : importée par Spring Boot, elle serait ignorée dès qu'une
+// ConnectionFactory R2DBC existe, alors que JPA (JDBC) et R2DBC cohabitent ici
+// Chaque module Spring Data ne scanne que son package de repositories
 @Import(DataSourceAutoConfiguration.class)
 @EnableJpaRepositories(basePackages = "ch.springall.repository.jpa")
-//@EnableR2dbcRepositories(basePackages = "ch.springall.repository.r2dbc")
+@EnableR2dbcRepositories(basePackages = "ch.springall.repository.r2dbc")
 public class SpringAllApplication {
     public static void main(String[] args) {
         // Démarrage de l'application Spring Boot
@@ -0,0 +1,36 @@
+package ch.springall.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+//Formats binaires pour les gros payloads (directeurs avec leurs films, studios avec leurs directeurs)
+// - CBOR (application/cbor, RFC 8949) : format standard, lisible par des clients non Java
+// - Smile (application/x-jackson-smile) : format binaire de Jackson, noms de propriétés et chaînes courtes
+//   référencés au lieu d'être répétés -> payloads plus petits sur les listes d'objets du même type
+// Le client choisit le format avec Accept (réponse) et Content-Type (corps de POST / PUT) ; JSON reste le format par défaut
+// Spring Boot ajoute les beans HttpMessageConverter aux convertisseurs de Spring MVC
+// Les ObjectMapper sont construits par le Jackson2ObjectMapperBuilder de Spring Boot : mêmes modules (dont ceux de
+// FastJsonConfig), mêmes réglages (dates en texte) et mêmes @JsonFormat que le JSON, seul l'encodage change
+// (voir BinaryFormatsBenchmark pour les temps d'encodage / décodage et les tailles)
+@Configuration
+public class BinaryFormatsConfig {
+
+    // MediaType n'a pas de constante pour Smile
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    // Le builder de Spring Boot est un bean "prototype" : chaque méthode reçoit sa propre instance
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.createXmlMapper(false).factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.createXmlMapper(false).factory(new SmileFactory()).build());
+    }
+}
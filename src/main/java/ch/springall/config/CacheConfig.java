@@ -0,0 +1,49 @@
+package ch.springall.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+//Cache applicatif (Spring Cache) : on garde en mémoire les Records déjà mappés, prêts à être renvoyés par les contrôleurs
+// Le cache de second niveau Hibernate (hibernate-cache.conf) évite la requête SQL,
+// celui-ci évite en plus l'hydratation de l'entité et le mapping MapStruct
+// L'annotation @EnableCaching active les annotations @Cacheable, @CacheEvict, etc. sur les beans Spring
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // Noms des caches, utilisés dans les annotations des services
+    public static final String DIRECTORS = "directors";
+    public static final String DIRECTORS_WITH_MOVIES = "directorsWithMovies";
+    public static final String STUDIOS = "studios";
+    public static final String STATISTICS = "statistics";
+
+    // Chaque cache a sa propre taille maximale et son TTL (syntaxe CaffeineSpec, voir application.properties)
+    // Caffeine évince avec W-TinyLFU : un accès isolé ne chasse pas les entrées les plus demandées
+    // recordStats : compte les hits/misses (exposés ensuite comme métriques)
+    @Bean
+    public CacheManager cacheManager(@Value("${springall.cache.spec.directors}") String directorsSpec,
+                                     @Value("${springall.cache.spec.directors-with-movies}") String directorsWithMoviesSpec,
+                                     @Value("${springall.cache.spec.studios}") String studiosSpec,
+                                     @Value("${springall.cache.spec.statistics}") String statisticsSpec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Les Optional vides sont stockés comme des valeurs nulles : un id inexistant ne retourne pas en base à chaque appel
+        cacheManager.setAllowNullValues(true);
+        // Aucun autre cache ne peut être créé à la volée (une faute de frappe dans un nom de cache échoue immédiatement)
+        cacheManager.setCacheNames(List.of());
+        cacheManager.registerCustomCache(DIRECTORS, Caffeine.from(directorsSpec).build());
+        cacheManager.registerCustomCache(DIRECTORS_WITH_MOVIES, Caffeine.from(directorsWithMoviesSpec).build());
+        cacheManager.registerCustomCache(STUDIOS, Caffeine.from(studiosSpec).build());
+        cacheManager.registerCustomCache(STATISTICS, Caffeine.from(statisticsSpec).build());
+        // Les @CacheEvict faits dans une transaction ne sont appliqués qu'après le commit :
+        // sinon une lecture concurrente pourrait remettre en cache l'ancienne valeur avant que la modification soit validée
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,79 @@
+package ch.springall.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+//Routage primaire / réplicas : les transactions en lecture (@Transactional(readOnly = true), TransactionTemplate en lecture,
+// méthodes de lecture des repositories Spring Data) sont servies par les réplicas, tout le reste par le primaire
+// Actif seulement si au moins un réplica est déclaré (springall.datasource.routing.replicas[0].url) ; sinon
+// Spring Boot crée la DataSource habituelle à partir de spring.datasource.*
+// La DataSource de l'application (JPA, Flyway, JdbcTemplate) est un LazyConnectionDataSourceProxy :
+// - la connexion réelle n'est prise qu'à la première requête SQL, une fois la transaction démarrée
+// - JpaTransactionManager marque la connexion en lecture seule pour une transaction readOnly : elle est alors prise
+//   dans ReplicaDataSource (setReadOnlyDataSource), sinon dans le pool du primaire
+// Une transaction en lecture appelée dans une transaction d'écriture reste sur la connexion du primaire
+// Attention : un réplica peut avoir jusqu'à max-lag de retard, une lecture juste après une écriture peut ne pas la voir
+// Une méthode de service qui lit avant d'écrire (findById puis save) ou qui lit une version (ETag) doit donc être
+// @Transactional en écriture : sans transaction, chaque lecture du repository part sur un réplica
+// De même pour les Records mis en cache (findVersionedDirector, findVersionedStudio) : une lecture en retard y resterait
+// jusqu'à l'expiration de l'entrée
+@Configuration
+@ConditionalOnProperty(name = "springall.datasource.routing.replicas[0].url")
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+public class DataSourceRoutingConfig {
+
+    // Pool du primaire, configuré comme celui de Spring Boot (spring.datasource.*, spring.datasource.hikari.*)
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryPool(DataSourceProperties properties) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName(ReplicaDataSource.PRIMARY_POOL);
+        return pool;
+    }
+
+    // Un pool Hikari par réplica (replica-1, replica-2...), avec les métriques hikaricp.* comme le pool du primaire
+    // initializationFailTimeout = -1 : un réplica arrêté n'empêche pas l'application de démarrer, il est seulement écarté
+    @Bean
+    public ReplicaDataSource replicaDataSource(DataSourceRoutingProperties properties,
+                                               @Qualifier("primaryPool") HikariDataSource primaryPool,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (DataSourceRoutingProperties.Replica replica : properties.replicas()) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + (pools.size() + 1));
+            pool.setJdbcUrl(replica.url());
+            pool.setUsername(replica.username());
+            pool.setPassword(replica.password());
+            pool.setMaximumPoolSize(replica.maximumPoolSize());
+            pool.setConnectionTimeout(replica.connectionTimeout().toMillis());
+            pool.setInitializationFailTimeout(-1);
+            pool.setReadOnly(true);
+            meterRegistry.ifAvailable(registry -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            pools.add(pool);
+        }
+        return new ReplicaDataSource(pools, primaryPool, properties);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryPool") HikariDataSource primaryPool, ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryPool);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,34 @@
+package ch.springall.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+//Réplicas en lecture (propriétés springall.datasource.routing.*), voir DataSourceRoutingConfig
+// - replicas : url, username, password, taille du pool et attente maximale d'une connexion de chaque réplica
+//   (ex: springall.datasource.routing.replicas[0].url=...) ; une attente courte écarte vite un réplica qui ne répond plus
+// - strategy : choix du réplica pour chaque transaction en lecture, ROUND_ROBIN ou LEAST_ACTIVE (le moins de connexions actives)
+// - lag-query : requête qui renvoie le retard du réplica en secondes (vide : pas de contrôle du retard)
+//   (ex. PostgreSQL dans application.properties)
+// - max-lag : au-delà, le réplica n'est plus utilisé jusqu'au contrôle suivant (springall.datasource.routing.health-check-interval)
+@ConfigurationProperties("springall.datasource.routing")
+public record DataSourceRoutingProperties(List<Replica> replicas,
+                                          @DefaultValue("ROUND_ROBIN") Strategy strategy,
+                                          String lagQuery,
+                                          @DefaultValue("5s") Duration maxLag) {
+
+    public DataSourceRoutingProperties {
+        replicas = replicas == null ? List.of() : List.copyOf(replicas);
+    }
+
+    public record Replica(String url, String username, String password,
+                          @DefaultValue("10") int maximumPoolSize,
+                          @DefaultValue("2s") Duration connectionTimeout) {
+    }
+
+    public enum Strategy {
+        ROUND_ROBIN, LEAST_ACTIVE
+    }
+}
@@ -0,0 +1,175 @@
+package ch.springall.config;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.List;
+
+//Sérialisation des LocalDate / LocalDateTime annotées avec un @JsonFormat à champs numériques de largeur fixe
+// Le module JavaTimeModule formate chaque date avec un DateTimeFormatter (StringBuilder, objets intermédiaires...)
+// Ici, le pattern est analysé une seule fois par propriété (createContextual) et transformé en modèle de caractères :
+// "dd/MM/yyyy" -> "__/__/____" + la position de chaque champ ; sérialiser une date revient à copier le modèle et y écrire les chiffres
+// Champs pris en charge : yyyy, MM, dd, HH, mm, ss et les séparateurs qui ne sont pas des lettres
+// Tout autre cas (pas de pattern, autre pattern, année hors de 1..9999) est délégué aux sérialiseurs de JavaTimeModule :
+// le JSON produit est toujours le même qu'avec la configuration par défaut
+// Le module doit être enregistré après JavaTimeModule (c'est le cas des beans Module avec Spring Boot)
+public class FastJavaTimeModule extends SimpleModule {
+
+    public FastJavaTimeModule() {
+        super("FastJavaTimeModule");
+        addSerializer(LocalDate.class, new FixedWidthSerializer<>(LocalDate.class, LocalDateSerializer.INSTANCE, null, null));
+        addSerializer(LocalDateTime.class, new FixedWidthSerializer<>(LocalDateTime.class, LocalDateTimeSerializer.INSTANCE, null, null));
+    }
+
+    static final class FixedWidthSerializer<T extends TemporalAccessor> extends StdSerializer<T> implements ContextualSerializer {
+
+        // Sérialiseur de JavaTimeModule (non contextualisé), utilisé pour créer le sérialiseur de repli
+        private final JsonSerializer<T> defaultSerializer;
+        // Sérialiseur de JavaTimeModule contextualisé pour la propriété : utilisé quand le chemin rapide ne s'applique pas
+        private final JsonSerializer<T> fallback;
+        private final FixedWidthPattern pattern;
+
+        FixedWidthSerializer(Class<T> type, JsonSerializer<T> defaultSerializer, JsonSerializer<T> fallback, FixedWidthPattern pattern) {
+            super(type);
+            this.defaultSerializer = defaultSerializer;
+            this.fallback = fallback != null ? fallback : defaultSerializer;
+            this.pattern = pattern;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property) throws JsonMappingException {
+            JsonSerializer<T> contextual = (JsonSerializer<T>) ((ContextualSerializer) defaultSerializer).createContextual(provider, property);
+            JsonFormat.Value format = findFormatOverrides(provider, property, handledType());
+            if (format.hasPattern() && (format.getShape() == JsonFormat.Shape.ANY || format.getShape() == JsonFormat.Shape.STRING)) {
+                FixedWidthPattern compiled = FixedWidthPattern.compile(format.getPattern(), handledType() == LocalDateTime.class);
+                if (compiled != null) {
+                    return new FixedWidthSerializer<>(handledType(), defaultSerializer, contextual, compiled);
+                }
+            }
+            return contextual;
+        }
+
+        @Override
+        public void serialize(T value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            if (pattern != null && pattern.supports(value)) {
+                char[] text = pattern.format(value);
+                generator.writeString(text, 0, text.length);
+            } else {
+                fallback.serialize(value, generator, provider);
+            }
+        }
+
+        @Override
+        public void serializeWithType(T value, JsonGenerator generator, SerializerProvider provider, TypeSerializer typeSerializer) throws IOException {
+            if (pattern != null && pattern.supports(value)) {
+                WritableTypeId typeId = typeSerializer.writeTypePrefix(generator, typeSerializer.typeId(value, handledType(), JsonToken.VALUE_STRING));
+                serialize(value, generator, provider);
+                typeSerializer.writeTypeSuffix(generator, typeId);
+            } else {
+                fallback.serializeWithType(value, generator, provider, typeSerializer);
+            }
+        }
+    }
+
+    // Pattern compilé : modèle de caractères (séparateurs déjà en place) + champ et position de chaque groupe de chiffres
+    static final class FixedWidthPattern {
+
+        private final char[] template;
+        private final ChronoField[] fields;
+        private final int[] offsets;
+        private final int[] widths;
+
+        private FixedWidthPattern(char[] template, ChronoField[] fields, int[] offsets, int[] widths) {
+            this.template = template;
+            this.fields = fields;
+            this.offsets = offsets;
+            this.widths = widths;
+        }
+
+        // Retourne null si le pattern contient autre chose que des champs numériques de largeur fixe et des séparateurs
+        static FixedWidthPattern compile(String pattern, boolean withTime) {
+            List<ChronoField> fields = new ArrayList<>();
+            List<Integer> offsets = new ArrayList<>();
+            List<Integer> widths = new ArrayList<>();
+            int i = 0;
+            while (i < pattern.length()) {
+                char c = pattern.charAt(i);
+                int end = i;
+                while (end < pattern.length() && pattern.charAt(end) == c) {
+                    end++;
+                }
+                int count = end - i;
+                if (Character.isLetter(c)) {
+                    ChronoField field = field(c, count, withTime);
+                    if (field == null) {
+                        return null;
+                    }
+                    fields.add(field);
+                    offsets.add(i);
+                    widths.add(count);
+                } else if (c == '\'' || c == '[' || c == ']' || c == '{' || c == '}' || c == '#') {
+                    // Texte entre apostrophes et sections optionnelles : laissés à DateTimeFormatter
+                    return null;
+                }
+                i = end;
+            }
+            if (fields.isEmpty()) {
+                return null;
+            }
+            char[] template = pattern.toCharArray();
+            return new FixedWidthPattern(template,
+                    fields.toArray(ChronoField[]::new),
+                    offsets.stream().mapToInt(Integer::intValue).toArray(),
+                    widths.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        private static ChronoField field(char letter, int count, boolean withTime) {
+            return switch (letter) {
+                case 'y' -> count == 4 ? ChronoField.YEAR : null;
+                case 'M' -> count == 2 ? ChronoField.MONTH_OF_YEAR : null;
+                case 'd' -> count == 2 ? ChronoField.DAY_OF_MONTH : null;
+                case 'H' -> count == 2 && withTime ? ChronoField.HOUR_OF_DAY : null;
+                case 'm' -> count == 2 && withTime ? ChronoField.MINUTE_OF_HOUR : null;
+                case 's' -> count == 2 && withTime ? ChronoField.SECOND_OF_MINUTE : null;
+                default -> null;
+            };
+        }
+
+        // "yyyy" est l'année de l'ère : identique à l'année uniquement à partir de l'an 1, et sur 4 chiffres jusqu'à 9999
+        boolean supports(TemporalAccessor value) {
+            int year = value.get(ChronoField.YEAR);
+            return year >= 1 && year <= 9999;
+        }
+
+        char[] format(TemporalAccessor value) {
+            char[] text = template.clone();
+            for (int f = 0; f < fields.length; f++) {
+                int number = value.get(fields[f]);
+                for (int position = offsets[f] + widths[f] - 1; position >= offsets[f]; position--) {
+                    text[position] = (char) ('0' + number % 10);
+                    number /= 10;
+                }
+            }
+            return text;
+        }
+    }
+}
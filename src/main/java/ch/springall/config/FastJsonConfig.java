@@ -0,0 +1,29 @@
+package ch.springall.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//Configuration JSON "rapide", optionnelle : activée avec springall.json.fast=true (désactivée par défaut)
+// Spring Boot ajoute tous les beans de type Module à l'ObjectMapper qu'il configure (contrôleurs, export NDJSON)
+// - BlackbirdModule : Jackson lit les accesseurs des records (et les getters des DTO) par réflexion (Method.invoke) ;
+//   Blackbird génère à la place des lambdas (LambdaMetafactory) que le JIT peut inliner
+// - FastJavaTimeModule : les dates avec un @JsonFormat numérique ("dd/MM/yyyy", "dd/MM/yyyy:HH:mm") sont écrites
+//   directement dans un tableau de caractères préparé une fois par propriété, sans passer par DateTimeFormatter
+// Le JSON produit est identique à celui de la configuration par défaut (voir JsonSerializationBenchmark pour les gains)
+@Configuration
+@ConditionalOnProperty(name = "springall.json.fast", havingValue = "true")
+public class FastJsonConfig {
+
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    @Bean
+    public Module fastJavaTimeModule() {
+        return new FastJavaTimeModule();
+    }
+}
@@ -0,0 +1,52 @@
+package ch.springall.config;
+
+import ch.springall.dtos.CountryRecord;
+import ch.springall.dtos.CursorPage;
+import ch.springall.dtos.DirectorDTO;
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.dtos.MovieDTO;
+import ch.springall.dtos.MovieRecord;
+import ch.springall.dtos.StudioRecord;
+import ch.springall.entity.PooledLoSequenceGenerator;
+import ch.springall.monitoring.SqlStatementCounter;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+//Indications (hints) pour le traitement AOT et l'image native GraalVM (profils Maven aot-cds et native)
+// Dans une image native, la réflexion, les proxies et les ressources ne sont disponibles que s'ils sont déclarés au build
+// Spring déclare déjà : les beans (dont les mappers MapStruct générés), les entités JPA, les repositories,
+// les types des @RequestBody / valeurs de retour des contrôleurs
+// Il reste à déclarer ce qui est utilisé sans que Spring le voie :
+// - les Records et DTO sérialisés directement par Jackson (export NDJSON, types génériques comme CursorPage<DirectorRecord>)
+// - les classes instanciées par Hibernate à partir de leur nom (application.properties) ou d'une annotation
+// - les fichiers de ressources lus par Hibernate
+// Attention : en mode AOT, les conditions (@ConditionalOnProperty, @ConditionalOnThreading, profils) sont évaluées au build
+// -> springall.json.fast ou le profil virtual-threads doivent être fixés au moment du process-aot
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.SpringAllRuntimeHints.class)
+@RegisterReflectionForBinding({DirectorRecord.class, MovieRecord.class, StudioRecord.class, CountryRecord.class,
+        CursorPage.class, DirectorDTO.class, MovieDTO.class})
+public class NativeHintsConfig {
+
+    public static class SpringAllRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Générateur d'ids créé par Hibernate avec l'annotation @PooledLoSequence (constructeur) puis configure()
+            hints.reflection().registerType(PooledLoSequenceGenerator.class,
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            // Classes déclarées par leur nom dans application.properties
+            hints.reflection().registerType(SqlStatementCounter.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            hints.reflection().registerType(TypeReference.of("com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider"),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            // Configuration du cache de second niveau (hibernate.javax.cache.uri)
+            // (les migrations db/migration/* sont déclarées par l'auto-configuration Flyway de Spring Boot)
+            hints.resources().registerPattern("hibernate-cache.conf");
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package ch.springall.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+//Source des connexions des transactions en lecture (@Transactional(readOnly = true)) : un pool Hikari par réplica
+// Chaque connexion est prise dans un réplica sain, choisi par la stratégie (tour à tour ou le moins de connexions actives)
+// Un réplica est écarté quand il ne répond pas ou qu'il a trop de retard (contrôle périodique, checkReplicas),
+// ou dès qu'il refuse une connexion ; sans réplica sain, la connexion est prise dans le pool du primaire
+// Métriques par pool : hikaricp.* (tag pool), springall.datasource.read.connections (connexions données par pool,
+// pool="primary" pour les repli), springall.datasource.replica.healthy et springall.datasource.replica.lag
+public class ReplicaDataSource extends AbstractDataSource implements MeterBinder, AutoCloseable {
+
+    public static final String PRIMARY_POOL = "primary";
+
+    // Temps maximum accordé à Connection.isValid pendant le contrôle
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaDataSource.class);
+
+    private final List<Replica> replicas;
+    private final DataSource primary;
+    private final DataSourceRoutingProperties.Strategy strategy;
+    private final String lagQuery;
+    private final Duration maxLag;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder primaryFallbacks = new LongAdder();
+
+    public ReplicaDataSource(List<HikariDataSource> pools, DataSource primary, DataSourceRoutingProperties properties) {
+        this.replicas = pools.stream().map(Replica::new).toList();
+        this.primary = primary;
+        this.strategy = properties.strategy();
+        this.lagQuery = properties.lagQuery() == null || properties.lagQuery().isBlank() ? null : properties.lagQuery();
+        this.maxLag = properties.maxLag();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        // Un réplica qui refuse la connexion est écarté et on passe au suivant
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = choose();
+            if (replica == null) {
+                break;
+            }
+            try {
+                Connection connection = replica.pool.getConnection();
+                replica.connections.increment();
+                return connection;
+            } catch (SQLException | RuntimeException e) {
+                replica.markUnhealthy("connection failed: " + e.getMessage());
+            }
+        }
+        primaryFallbacks.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica pools use their configured credentials");
+    }
+
+    // Réplica sain choisi par la stratégie ; null s'il n'y en a aucun
+    private Replica choose() {
+        return switch (strategy) {
+            case ROUND_ROBIN -> {
+                int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+                for (int i = 0; i < replicas.size(); i++) {
+                    Replica replica = replicas.get((start + i) % replicas.size());
+                    if (replica.healthy) {
+                        yield replica;
+                    }
+                }
+                yield null;
+            }
+            case LEAST_ACTIVE -> {
+                Replica least = null;
+                for (Replica replica : replicas) {
+                    if (replica.healthy && (least == null || replica.activeConnections() < least.activeConnections())) {
+                        least = replica;
+                    }
+                }
+                yield least;
+            }
+        };
+    }
+
+    // Contrôle de chaque réplica : il répond, et son retard (lag-query) ne dépasse pas max-lag
+    // Un réplica écarté est remis en service dès qu'un contrôle réussit
+    @Scheduled(initialDelayString = "${springall.datasource.routing.health-check-interval:10s}",
+            fixedDelayString = "${springall.datasource.routing.health-check-interval:10s}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection()) {
+                if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    replica.markUnhealthy("connection not valid");
+                    continue;
+                }
+                if (lagQuery != null) {
+                    try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(lagQuery)) {
+                        double lagSeconds = rs.next() ? rs.getDouble(1) : 0;
+                        replica.lagMillis = Math.round(lagSeconds * 1000);
+                    }
+                    if (replica.lagMillis > maxLag.toMillis()) {
+                        replica.markUnhealthy("lag " + replica.lagMillis + " ms > " + maxLag.toMillis() + " ms");
+                        continue;
+                    }
+                }
+                replica.markHealthy();
+            } catch (SQLException | RuntimeException e) {
+                replica.markUnhealthy("health check failed: " + e.getMessage());
+            }
+        }
+    }
+
+    public List<String> getHealthyPools() {
+        return replicas.stream().filter(replica -> replica.healthy).map(replica -> replica.pool.getPoolName()).toList();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("springall.datasource.read.connections", primaryFallbacks, LongAdder::sum)
+                .description("Connections handed out to read-only transactions")
+                .tag("pool", PRIMARY_POOL)
+                .register(registry);
+        for (Replica replica : replicas) {
+            String pool = replica.pool.getPoolName();
+            FunctionCounter.builder("springall.datasource.read.connections", replica.connections, LongAdder::sum)
+                    .description("Connections handed out to read-only transactions")
+                    .tag("pool", pool)
+                    .register(registry);
+            Gauge.builder("springall.datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .description("1 if the replica is used for read-only transactions, 0 if it is set aside")
+                    .tag("pool", pool)
+                    .register(registry);
+            Gauge.builder("springall.datasource.replica.lag", replica, r -> r.lagMillis / 1000.0)
+                    .description("Replication lag measured by the last health check")
+                    .baseUnit("seconds")
+                    .tag("pool", pool)
+                    .register(registry);
+        }
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource pool;
+        private final LongAdder connections = new LongAdder();
+        private volatile boolean healthy = true;
+        private volatile long lagMillis;
+
+        private Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+
+        // Pool pas encore démarré (aucune connexion demandée) : 0
+        private int activeConnections() {
+            HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+            return bean == null ? 0 : bean.getActiveConnections();
+        }
+
+        private void markUnhealthy(String reason) {
+            if (healthy) {
+                logger.warn("Replica {} set aside, read-only transactions go to other replicas or the primary: {}",
+                        pool.getPoolName(), reason);
+            }
+            healthy = false;
+        }
+
+        private void markHealthy() {
+            if (!healthy) {
+                logger.info("Replica {} back in service", pool.getPoolName());
+            }
+            healthy = true;
+        }
+    }
+}
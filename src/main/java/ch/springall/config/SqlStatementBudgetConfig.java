@@ -0,0 +1,29 @@
+package ch.springall.config;
+
+import ch.springall.monitoring.SqlStatementBudgetInterceptor;
+import ch.springall.monitoring.SqlStatementBudgetProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+//Budget de requêtes SQL par requête HTTP : l'intercepteur est appliqué à toutes les routes des contrôleurs
+// Le comptage lui-même est fait par Hibernate (SqlStatementCounter, déclaré dans application.properties)
+@Configuration
+@EnableConfigurationProperties(SqlStatementBudgetProperties.class)
+public class SqlStatementBudgetConfig implements WebMvcConfigurer {
+
+    private final SqlStatementBudgetProperties budget;
+    private final MeterRegistry meterRegistry;
+
+    public SqlStatementBudgetConfig(SqlStatementBudgetProperties budget, MeterRegistry meterRegistry) {
+        this.budget = budget;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SqlStatementBudgetInterceptor(budget, meterRegistry));
+    }
+}
@@ -0,0 +1,35 @@
+package ch.springall.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+//Configuration des threads de l'application
+// @EnableAsync active l'annotation @Async : la méthode annotée est exécutée sur l'executor "applicationTaskExecutor"
+// fourni par Spring Boot (TaskExecutionAutoConfiguration), on ne crée donc pas nos propres pools de threads
+// @EnableScheduling active @Scheduled (ex: rafraîchissement de CountryIndex) sur le scheduler de Spring Boot (TaskSchedulingAutoConfiguration)
+// En mode threads virtuels (profil "virtual-threads", spring.threads.virtual.enabled=true), Spring Boot remplace :
+// - le pool de threads de Tomcat : chaque requête HTTP a son propre thread virtuel
+// - applicationTaskExecutor (@Async, requêtes asynchrones MVC comme l'export NDJSON) : un thread virtuel par tâche
+// - le scheduler (@Scheduled)
+// Un thread virtuel bloqué sur JDBC libère son thread porteur (carrier) : les requêtes ne s'accumulent plus dans la file de Tomcat
+// Tout nouvel executor doit être injecté (AsyncTaskExecutor, TaskScheduler) plutôt que créé avec Executors.newFixedThreadPool
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class ThreadingConfig {
+
+    public static final String CHANGES_TASK_EXECUTOR = "changesTaskExecutor";
+
+    // Envois du flux GET /changes (ControllerChanges) : un thread virtuel par envoi, quel que soit le profil
+    // Un client lent bloque son envoi pendant l'écriture sur la socket : avec applicationTaskExecutor (8 threads hors
+    // profil "virtual-threads"), quelques clients lents suffiraient à bloquer @Async et l'export NDJSON
+    // spring.task.execution.mode=force : applicationTaskExecutor reste créé malgré cet autre Executor
+    @Bean(CHANGES_TASK_EXECUTOR)
+    public AsyncTaskExecutor changesTaskExecutor() {
+        return new VirtualThreadTaskExecutor("changes-");
+    }
+}
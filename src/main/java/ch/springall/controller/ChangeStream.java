@@ -0,0 +1,144 @@
+package ch.springall.controller;
+
+import ch.springall.dtos.ChangeEventRecord;
+import ch.springall.service.ChangeFeed;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//Un client de GET /changes : envoie les événements du ChangeFeed à partir de son curseur (dernier numéro envoyé)
+// Les envois sont faits sur l'executor, jamais sur le thread qui publie : wake() ne fait que planifier un envoi
+// (au plus un à la fois par client), un client lent n'occupe que son propre envoi et ne retarde ni les écrivains ni les autres clients
+// S'il prend plus de ChangeFeed.capacity événements de retard, il reçoit un événement "reset" (numéro courant) :
+// il doit relire les ressources qui l'intéressent, le flux reprend ensuite à partir de ce numéro
+// Un envoi bloqué plus de sendTimeout (client qui ne lit plus, tampon TCP plein) ferme le flux : voir expireSlowSend
+public final class ChangeStream {
+
+    // Nombre maximum d'événements lus et envoyés par passage (les suivants sont envoyés au passage suivant)
+    static final int MAX_EVENTS_PER_SEND = 256;
+
+    private final ChangeFeed changeFeed;
+    private final SseEmitter emitter;
+    private final Executor executor;
+    private final long sendTimeoutNanos;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean heartbeatRequested = new AtomicBoolean();
+    // Lu et modifié uniquement par l'envoi en cours (un seul à la fois)
+    private long cursor;
+    private volatile boolean closed;
+    // Envoi en cours : thread et début de l'écriture (0 si aucune écriture en cours)
+    private volatile Thread sender;
+    private volatile long sendStartedNanos;
+
+    public ChangeStream(ChangeFeed changeFeed, SseEmitter emitter, Executor executor, long cursor, Duration sendTimeout) {
+        this.changeFeed = changeFeed;
+        this.emitter = emitter;
+        this.executor = executor;
+        this.cursor = cursor;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+    }
+
+    // Appelé après chaque publication : ne bloque pas
+    public void wake() {
+        if (!closed && scheduled.compareAndSet(false, true)) {
+            executor.execute(this::send);
+        }
+    }
+
+    // Commentaire SSE envoyé si aucun événement n'est parti depuis le dernier battement : garde la connexion ouverte
+    // à travers les proxies et détecte les clients partis (l'envoi échoue)
+    public void heartbeat() {
+        heartbeatRequested.set(true);
+        wake();
+    }
+
+    public void close() {
+        closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // Appelé périodiquement (ControllerChanges) : si une écriture dure depuis plus de sendTimeout, le flux est fermé
+    // et le thread de l'envoi est interrompu ; l'écriture interrompue échoue et l'envoi termine l'emitter en erreur
+    // Retourne true si le flux vient d'être fermé : l'appelant le désabonne sans attendre la fin de l'écriture
+    public boolean expireSlowSend() {
+        long started = sendStartedNanos;
+        if (closed || started == 0 || System.nanoTime() - started < sendTimeoutNanos) {
+            return false;
+        }
+        closed = true;
+        Thread thread = sender;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        return true;
+    }
+
+    private void send() {
+        sender = Thread.currentThread();
+        try {
+            do {
+                if (!sendAvailable()) {
+                    return;
+                }
+                scheduled.set(false);
+                // Une publication arrivée pendant l'envoi n'a pas pu planifier d'envoi : elle est traitée ici
+            } while (!closed && changeFeed.getLastSequence() != cursor && scheduled.compareAndSet(false, true));
+        } catch (IOException | IllegalStateException e) {
+            // Client parti, emitter terminé (timeout) ou écriture interrompue par expireSlowSend :
+            // l'emitter se désabonne dans ses callbacks
+            closed = true;
+            emitter.completeWithError(e);
+        } finally {
+            sender = null;
+            // l'interruption ne doit pas toucher la tâche suivante du même thread (executor à pool de threads)
+            Thread.interrupted();
+        }
+    }
+
+    // false si le flux est fermé
+    private boolean sendAvailable() throws IOException {
+        boolean sent = false;
+        // Numéro inconnu (plus grand que le dernier publié, après un redémarrage) : traité comme un retard par readAfter
+        while (!closed && changeFeed.getLastSequence() != cursor) {
+            Optional<List<ChangeEventRecord>> events = changeFeed.readAfter(cursor, MAX_EVENTS_PER_SEND);
+            if (events.isEmpty()) {
+                cursor = changeFeed.getLastSequence();
+                emit(SseEmitter.event().id(Long.toString(cursor)).name("reset")
+                        .data(Map.of("sequence", cursor), MediaType.APPLICATION_JSON));
+            } else {
+                for (ChangeEventRecord event : events.get()) {
+                    emit(SseEmitter.event().id(Long.toString(event.sequence())).name("change")
+                            .data(event, MediaType.APPLICATION_JSON));
+                    cursor = event.sequence();
+                }
+            }
+            sent = true;
+        }
+        if (heartbeatRequested.getAndSet(false) && !sent && !closed) {
+            emit(SseEmitter.event().comment("heartbeat"));
+        }
+        return !closed;
+    }
+
+    private void emit(SseEmitter.SseEventBuilder event) throws IOException {
+        if (closed) {
+            return;
+        }
+        sendStartedNanos = System.nanoTime();
+        try {
+            emitter.send(event);
+        } finally {
+            sendStartedNanos = 0;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ch.springall.controller;
+
+import ch.springall.config.ThreadingConfig;
+import ch.springall.service.ChangeFeed;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Controller du flux des modifications : une connexion Server-Sent Events par client au lieu d'interroger les endpoints en boucle
+// Chaque client reçoit les créations, modifications et suppressions des directeurs, films et studios (ChangeFeed)
+// Les envois sont faits sur changesTaskExecutor (un thread virtuel par envoi, voir ThreadingConfig), pas sur applicationTaskExecutor
+// Un envoi bloqué plus de springall.changes.send-timeout (client qui ne lit plus) ferme la connexion de ce client
+@RestController
+@RequestMapping(path = "/changes")
+public class ControllerChanges {
+
+    private final ChangeFeed changeFeed;
+    private final AsyncTaskExecutor taskExecutor;
+    private final Duration timeout;
+    private final Duration sendTimeout;
+
+    // Flux ouverts, avec leur action de fermeture (désabonnement)
+    private final Map<ChangeStream, Runnable> streams = new ConcurrentHashMap<>();
+
+    public ControllerChanges(ChangeFeed changeFeed,
+                             @Qualifier(ThreadingConfig.CHANGES_TASK_EXECUTOR) AsyncTaskExecutor taskExecutor,
+                             @Value("${springall.changes.timeout:30m}") Duration timeout,
+                             @Value("${springall.changes.send-timeout:10s}") Duration sendTimeout) {
+        this.changeFeed = changeFeed;
+        this.taskExecutor = taskExecutor;
+        this.timeout = timeout;
+        this.sendTimeout = sendTimeout;
+    }
+
+    //------------------------------
+    // 1 : Suivre les modifications (GET /changes?since=<numéro>, Accept: text/event-stream)
+    // Événements "change" : {"sequence", "entity", "id", "type", "timestamp"}, l'id SSE est le numéro de l'événement
+    // - since : reprendre après ce numéro ; absent -> seulement les nouveaux événements
+    // - Last-Event-ID (envoyé par EventSource à la reconnexion) a priorité sur since : la reprise ne perd rien
+    // - si les événements demandés ne sont plus dans le tampon (ou numéro inconnu après un redémarrage) : événement "reset",
+    //   le client relit les ressources qui l'intéressent puis le flux continue
+    // La connexion est fermée après springall.changes.timeout : le client se reconnecte avec Last-Event-ID
+    //------------------------------
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+                                    @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        long cursor = lastEventId != null ? lastEventId : since != null ? since : changeFeed.getLastSequence();
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        ChangeStream stream = new ChangeStream(changeFeed, emitter, taskExecutor, cursor, sendTimeout);
+        Runnable unsubscribe = changeFeed.subscribe(stream::wake);
+        Runnable close = () -> {
+            stream.close();
+            unsubscribe.run();
+            streams.remove(stream);
+        };
+        streams.put(stream, close);
+        emitter.onCompletion(close);
+        emitter.onTimeout(close);
+        emitter.onError(e -> close.run());
+        // Événements déjà publiés après le curseur
+        stream.wake();
+        return emitter;
+    }
+
+    @Scheduled(initialDelayString = "${springall.changes.heartbeat-interval:15s}",
+            fixedDelayString = "${springall.changes.heartbeat-interval:15s}")
+    public void heartbeat() {
+        streams.keySet().forEach(ChangeStream::heartbeat);
+    }
+
+    // Clients lents : un envoi bloqué depuis plus de send-timeout ferme le flux (voir ChangeStream.expireSlowSend)
+    @Scheduled(fixedDelayString = "${springall.changes.send-check-interval:1s}")
+    public void expireSlowStreams() {
+        streams.forEach((stream, close) -> {
+            if (stream.expireSlowSend()) {
+                close.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package ch.springall.controller;
+
+import ch.springall.dtos.CountryRecord;
+import ch.springall.entity.Continent;
+import ch.springall.service.ServiceCountry;
+import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//Controller de l'API des pays, au-dessus du repository R2DBC
+// L'application reste une application Spring MVC (Tomcat), mais les méthodes retournent directement un Flux ou un Mono :
+// Spring MVC les traite comme des requêtes asynchrones, le thread Tomcat est libéré dès le retour de la méthode
+// et la réponse est écrite lorsque R2DBC émet les résultats
+// Le format dépend de l'en-tête Accept (même méthode, plusieurs "produces") :
+// - application/json     : tableau JSON, écrit une fois le Flux terminé
+// - application/x-ndjson : un pays par ligne, écrit dès qu'il arrive
+// - text/event-stream    : Server-Sent Events, un événement par pays
+// En NDJSON et SSE, Spring MVC ne demande l'élément suivant qu'une fois le précédent écrit (backpressure jusqu'au client)
+@RestController
+@RequestMapping(path = "/countries", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+public class ControllerCountry {
+
+    private final ServiceCountry serviceCountry;
+
+    public ControllerCountry(ServiceCountry serviceCountry) {
+        this.serviceCountry = serviceCountry;
+    }
+
+    //------------------------------
+    // 1 : Tous les pays (GET /countries) en JSON ou NDJSON
+    //------------------------------
+    @GetMapping
+    public Flux<CountryRecord> getAllCountries() {
+        return serviceCountry.findAllCountries();
+    }
+
+    //------------------------------
+    // 2 : Les pays d'un continent (GET /countries/continent/{continent}), ex: /countries/continent/EUROPE
+    // En plus du JSON et du NDJSON, la liste peut être suivie en Server-Sent Events (Accept: text/event-stream)
+    //------------------------------
+    @GetMapping(path = "/continent/{continent}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<CountryRecord> getCountriesByContinent(@PathVariable Continent continent) {
+        return serviceCountry.findCountriesByContinent(continent);
+    }
+
+    //------------------------------
+    // 3 : Un pays par son nom (GET /countries/{name}), 404 si le pays n'existe pas
+    //------------------------------
+    @GetMapping(path = "/{name}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<CountryRecord> getCountryByName(@PathVariable String name) {
+        return serviceCountry.findCountryByName(name);
+    }
+
+    //------------------------------
+    // 4 : Ajouter un pays (POST /countries)
+    //------------------------------
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<CountryRecord>> addCountry(@Valid @RequestBody CountryRecord countryRecord) {
+        return serviceCountry.addCountry(countryRecord)
+                .map(added -> ResponseEntity.status(201).body(added));
+    }
+}
@@ -8,14 +8,33 @@ package ch.springall.controller;
 // Par exemple, pour Director, on peut définir la route de base "/directors"
 // et des routes pour les opérations CRUD : GET /directors, GET /directors/{id}, POST /directors, PUT /directors/{id}, DELETE /directors/{id}
 
+import ch.springall.config.BinaryFormatsConfig;
+import ch.springall.dtos.BulkResultRecord;
+import ch.springall.dtos.CursorPage;
 import ch.springall.dtos.DirectorDTO;
 import ch.springall.dtos.DirectorRecord;
+import ch.springall.dtos.VersionedRecord;
 import ch.springall.service.ServiceDirector;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import ch.springall.exceptions.PreconditionFailedException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+
 import java.util.Optional;
 //L'annotation @RestController indique que cette classe est un controller REST
 //Elle combine @Controller et @ResponseBody, ce qui signifie que les méthodes de cette classe
@@ -23,15 +42,31 @@ import java.util.Optional;
 
 //L'annotation @ReuqestMapping : Route de base pour ce controller, on peut aussi définir des routes spécifiques pour chaque méthode
 // on peut aussi définir le type de contenu produit (produces) et consommé (consumes) par ce controller (ex: application/json)
+// Formats : JSON par défaut, CBOR ou Smile si le client les demande (Accept / Content-Type), voir BinaryFormatsConfig
 @RestController
-@RequestMapping(path = "/directors", produces = "application/json")
+@RequestMapping(path = "/directors", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+        BinaryFormatsConfig.APPLICATION_SMILE_VALUE})
 public class ControllerDirector {
 
     // Injection du service DirectorService : on utilise l'injection par constructeur (la plus recommandée)
     private final ServiceDirector serviceDirector;
 
-    public ControllerDirector(ServiceDirector serviceDirector) {
+    // Valeur du paramètre ?expand= qui demande de charger les films avec les directeurs
+    // Sans ce paramètre, seuls les champs du directeur sont renvoyés (moviesRecord = null)
+    public static final String EXPAND_MOVIES = "movies";
+
+    // Nombre maximum de directeurs acceptés par requête sur POST /directors/batch et les opérations en masse (/bulk/...)
+    public static final int MAX_BATCH_SIZE = 10_000;
+
+    // Nombre maximum d'oscars ajoutés en une requête sur POST /directors/bulk/oscars
+    public static final int MAX_OSCAR_INCREMENT = 10;
+
+    // ObjectMapper configuré par Spring Boot : utilisé pour écrire l'export ligne par ligne
+    private final ObjectMapper objectMapper;
+
+    public ControllerDirector(ServiceDirector serviceDirector, ObjectMapper objectMapper) {
         this.serviceDirector = serviceDirector;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -43,47 +78,149 @@ public class ControllerDirector {
      */
 
     //------------------------------
-    // 1 : Récupérer tous les directeurs (GET /directors)
-    // Cette méthode va retourner tous les directeurs
-    // On va préférer renvoyer une ResponseEntity pour gérer les codes de statut HTTP
-    // La ResponseEntity va contenir la liste des directeurs et le code 200 OK
+    // 1 : Récupérer les directeurs page par page (GET /directors?after=<curseur>&limit=N)
+    // Plutôt que de renvoyer toute la table, on utilise une pagination par curseur :
+    // la réponse contient la page et un curseur opaque "nextCursor" à renvoyer dans ?after= pour la page suivante
+    // La taille de page est plafonnée côté service (ServiceDirector.MAX_PAGE_SIZE)
+    // ?expand=movies : le client choisit le plan de chargement et reçoit aussi les films de chaque directeur
+    // La ResponseEntity va contenir la page et le code 200 OK (204 si aucune donnée)
     //------------------------------
     @GetMapping
-    public ResponseEntity<Iterable<DirectorRecord>> getAllDirectors() {
-        List<DirectorRecord> directors = serviceDirector.findAllDirectors();
-        if(directors.isEmpty()) {
-            return ResponseEntity.noContent().build(); // 204 No Content si la liste est vide
+    public ResponseEntity<CursorPage<DirectorRecord>> getAllDirectors(@RequestParam(required = false) String after,
+                                                                      @RequestParam(required = false) Integer limit,
+                                                                      @RequestParam(defaultValue = "") List<String> expand) {
+        CursorPage<DirectorRecord> page = serviceDirector.findDirectorsPage(after, limit, expand.contains(EXPAND_MOVIES));
+        if(page.content().isEmpty()) {
+            return ResponseEntity.noContent().build(); // 204 No Content si la page est vide
         }
-        return ResponseEntity.ok(directors);
+        return ResponseEntity.ok(page);
+    }
+
+    //------------------------------
+    // 1b : Exporter tous les directeurs et leurs films (GET /directors/export)
+    // Format NDJSON (un objet JSON par ligne) : le client peut traiter chaque ligne dès qu'elle arrive
+    // Avec StreamingResponseBody, le corps de la réponse est écrit directement dans le flux HTTP
+    // (sur un thread asynchrone), sans construire la liste complète en mémoire
+    //------------------------------
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportDirectors() {
+        ObjectWriter writer = objectMapper.writerFor(DirectorRecord.class);
+        StreamingResponseBody body = out -> serviceDirector.exportDirectors(directorRecord -> {
+            try {
+                out.write(writer.writeValueAsBytes(directorRecord));
+                out.write('\n');
+            } catch (IOException e) {
+                // Le client a fermé la connexion : on interrompt l'export (et la transaction)
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     //------------------------------
-    // 2: Récupérer un directeur par son ID (GET /directors/{id})
+    // 2: Récupérer un directeur par son ID (GET /directors/{id}), avec ses films si ?expand=movies
+    // Requête conditionnelle : la réponse porte un ETag fort calculé à partir des colonnes @Version
+    // L'ETag est celui du Record servi : tous deux sont lus dans la même transaction et gardés ensemble dans le cache
+    // des Records (ServiceDirector.findVersionedDirector) ; un Record en cache, pas encore invalidé après une écriture,
+    // part donc avec l'ETag de sa propre version et jamais sous celui de la nouvelle
+    // Si le client renvoie cet ETag dans If-None-Match et que rien n'a changé, on répond 304 Not Modified sans corps :
+    // le Record (en cache en général, sans requête SQL) n'est pas sérialisé
+    // Cache-Control: no-cache -> le client peut garder la réponse mais doit la revalider (If-None-Match) à chaque fois
+    // L'ETag dépend aussi du format demandé (Representations) : Vary: Accept
+    // Record absent du cache et If-None-Match présent : l'ETag est d'abord comparé à celui de la requête sur les colonnes
+    // version (findDirectorETag) ; le directeur (et ses films) n'est chargé et mappé que s'il a changé
     //------------------------------
     @GetMapping("/{id}")
-    public ResponseEntity<DirectorRecord> getDirectorById(@PathVariable Long id){
-        return serviceDirector.findDirectorByIdOptional(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<DirectorRecord> getDirectorById(@PathVariable Long id,
+                                                          @RequestParam(defaultValue = "") List<String> expand,
+                                                          WebRequest request){
+        boolean withMovies = expand.contains(EXPAND_MOVIES);
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null && !serviceDirector.isDirectorCached(id, withMovies)) {
+            Optional<String> version = serviceDirector.findDirectorETag(id, withMovies);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            String eTag = Representations.eTag(version.get(), request.getHeader(HttpHeaders.ACCEPT));
+            if (request.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT)
+                        .cacheControl(CacheControl.noCache()).build();
+            }
+        }
+        Optional<VersionedRecord<DirectorRecord>> director = serviceDirector.findVersionedDirector(id, withMovies);
+        if (director.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String eTag = Representations.eTag(director.get().eTag(), request.getHeader(HttpHeaders.ACCEPT));
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT)
+                    .cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).cacheControl(CacheControl.noCache())
+                .body(director.get().content());
     }
 
     //------------------------------
     // 3: Ajouter un nouveau directeur (POST /directors)
     // Pour un ajout : on suppose qu'on reçoit un objet JSON valide qu'on va récupérer en tant que record et ajouter
     // en base grâce au service
+    // Le corps peut aussi être envoyé en CBOR ou Smile (Content-Type), la réponse suit l'en-tête Accept
     //------------------------------
-    @PostMapping(path = "/add", consumes = "application/json", produces = "application/json")
+    @PostMapping(path = "/add", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            BinaryFormatsConfig.APPLICATION_SMILE_VALUE})
     public ResponseEntity<DirectorRecord> addDirector(@Valid @RequestBody DirectorRecord dRecord){
         DirectorRecord dAdded = serviceDirector.addDirectorRecord(dRecord);
         return ResponseEntity.status(201).body(dAdded);
     }
 
+    //------------------------------
+    // 3b: Ajouter plusieurs directeurs en une requête (POST /directors/batch)
+    // On reçoit un tableau JSON de records (avec leurs films) et on retourne les ids générés, dans le même ordre
+    // @Size limite la taille d'une requête, @Valid sur le type des éléments valide chaque record de la liste
+    //------------------------------
+    @PostMapping(path = "/batch", consumes = "application/json", produces = "application/json")
+    public ResponseEntity<List<Long>> addDirectors(@RequestBody @Size(max = MAX_BATCH_SIZE) List<@Valid DirectorRecord> dRecords){
+        List<Long> ids = serviceDirector.addDirectorRecords(dRecords);
+        return ResponseEntity.status(201).body(ids);
+    }
+
     //----------------------
     // 4: Mettre à jour un directeur existant (PUT /directors/{id})
     // Pour une mise à jour, on utilise PUT et on envoie l'objet complet (remplacement)
+    // Protection contre les mises à jour perdues : le client renvoie dans If-Match l'ETag de GET /directors/{id}
+    // si le directeur a été modifié entre-temps, la mise à jour est refusée avec 412 Precondition Failed
+    // Sans If-Match (ou avec If-Match: *), la mise à jour est faite sans condition, comme avant
+    // La réponse porte le nouvel ETag (dans le format de la réponse) ; corps en JSON, CBOR ou Smile comme pour /add
     //----------------------
-    @PutMapping(path = "/update", consumes = "application/json", produces = "application/json")
-    public ResponseEntity<DirectorRecord> updateDirector(@Valid @RequestBody DirectorRecord dRecord){
-        Optional<DirectorRecord> updatedDirector = serviceDirector.updateDirector(dRecord);
-        return updatedDirector.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    @PutMapping(path = "/update", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            BinaryFormatsConfig.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<DirectorRecord> updateDirector(@Valid @RequestBody DirectorRecord dRecord,
+                                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                         @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept){
+        Optional<DirectorRecord> updatedDirector = ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")
+                ? serviceDirector.updateDirector(dRecord)
+                : serviceDirector.updateDirector(dRecord, parseVersion(ifMatch));
+        if (updatedDirector.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return serviceDirector.findDirectorETag(dRecord.id(), false)
+                .map(eTag -> ResponseEntity.ok().eTag(Representations.eTag(eTag, accept)).varyBy(HttpHeaders.ACCEPT)
+                        .body(updatedDirector.get()))
+                .orElseGet(() -> ResponseEntity.ok(updatedDirector.get()));
+    }
+
+    // If-Match: "<version>" (ETag fort de GET /directors/{id} sans expand) -> version
+    // L'ETag d'une représentation CBOR ou Smile ("<version>+cbor") désigne la même version du directeur
+    // Un ETag faible (W/...) ou d'un autre format ne peut pas correspondre : comparaison forte imposée par If-Match
+    private static long parseVersion(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(Representations.withoutSuffix(tag.substring(1, tag.length() - 1)));
+            } catch (NumberFormatException ignored) {
+                // traité comme un ETag qui ne correspond pas
+            }
+        }
+        throw new PreconditionFailedException("If-Match " + ifMatch + " does not match the current version of the director");
     }
 
     //------------------------------------
@@ -97,4 +234,28 @@ public class ControllerDirector {
         }
         return ResponseEntity.notFound().build();
     }
+
+    //------------------------------------
+    // 6: Opérations en masse : une seule requête de modification par opération, quel que soit le nombre de directeurs
+    // (voir ServiceDirector.deleteDirectorsByIds) ; la réponse indique le nombre d'ids demandés et de lignes touchées
+    // - POST /directors/bulk/delete : corps = tableau d'ids ; un directeur qui a encore des films bloque toute la
+    //   suppression (409), ses films doivent d'abord être réaffectés
+    // - POST /directors/bulk/oscars?increment=N : corps = tableau d'ids, ajoute N oscars à chacun
+    // - POST /directors/{id}/movies/reassign?to=<id> : tous les films du directeur passent à un autre (404 si l'un n'existe pas)
+    //------------------------------------
+    @PostMapping(path = "/bulk/delete", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkResultRecord> deleteDirectors(@RequestBody @Size(max = MAX_BATCH_SIZE) List<Long> ids){
+        return ResponseEntity.ok(serviceDirector.deleteDirectorsByIds(ids));
+    }
+
+    @PostMapping(path = "/bulk/oscars", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkResultRecord> incrementOscarCount(@RequestBody @Size(max = MAX_BATCH_SIZE) List<Long> ids,
+                                                                @RequestParam(defaultValue = "1") @Min(1) @Max(MAX_OSCAR_INCREMENT) int increment){
+        return ResponseEntity.ok(serviceDirector.incrementOscarCount(ids, increment));
+    }
+
+    @PostMapping(path = "/{id}/movies/reassign")
+    public ResponseEntity<BulkResultRecord> reassignMovies(@PathVariable Long id, @RequestParam Long to){
+        return ResponseEntity.ok(serviceDirector.reassignMovies(id, to));
+    }
 }
@@ -0,0 +1,54 @@
+package ch.springall.controller;
+
+import ch.springall.dtos.MovieSearchResult;
+import ch.springall.dtos.RatingRecord;
+import ch.springall.dtos.RatingsAcceptedRecord;
+import ch.springall.entity.Genre;
+import ch.springall.service.ServiceMovie;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+//Controller des films : recherche plein texte sur les titres et votes des utilisateurs
+@RestController
+@RequestMapping(path = "/movies", produces = "application/json")
+public class ControllerMovie {
+
+    // Nombre maximum de votes par requête
+    public static final int MAX_RATINGS_PER_REQUEST = 10_000;
+
+    private final ServiceMovie serviceMovie;
+
+    public ControllerMovie(ServiceMovie serviceMovie) {
+        this.serviceMovie = serviceMovie;
+    }
+
+    //------------------------------
+    // 1 : Rechercher des films par titre (GET /movies/search?q=amelie poulain&genre=COMEDY&limit=10)
+    // La recherche tolère les fautes de frappe et les mots incomplets, les résultats sont triés par pertinence (score)
+    // Elle est servie par l'index en mémoire MovieSearchIndex, sans requête SQL
+    // Réponse : 200 OK avec la liste (vide si aucun film ne correspond ou si q est vide)
+    //------------------------------
+    @GetMapping("/search")
+    public ResponseEntity<List<MovieSearchResult>> searchMovies(@RequestParam(defaultValue = "") String q,
+                                                                @RequestParam(required = false) Genre genre,
+                                                                @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(serviceMovie.searchMovies(q, genre, limit));
+    }
+
+    //------------------------------
+    // 2 : Voter pour des films (POST /movies/ratings, corps = [{"movieId": 1, "rating": 7.5}, ...])
+    // Les votes sont agrégés en mémoire et écrits en lot toutes les springall.ratings.flush-interval (RatingAggregator) :
+    // aucune requête SQL ici, la note d'un film (et les classements) change au plus un intervalle plus tard
+    // Réponse : 202 Accepted avec le nombre de votes reçus et acceptés ; 400 si une note est hors de [0, 10]
+    //------------------------------
+    @PostMapping(path = "/ratings", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<RatingsAcceptedRecord> addRatings(@RequestBody @Size(max = MAX_RATINGS_PER_REQUEST) List<@Valid RatingRecord> ratings) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(serviceMovie.addRatings(ratings));
+    }
+}
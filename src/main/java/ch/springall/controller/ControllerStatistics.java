@@ -0,0 +1,77 @@
+package ch.springall.controller;
+
+import ch.springall.dtos.DirectorStatsRecord;
+import ch.springall.dtos.GenreStatsRecord;
+import ch.springall.dtos.ReleaseYearRecord;
+import ch.springall.dtos.StudioStatsRecord;
+import ch.springall.dtos.TopDirectorRecord;
+import ch.springall.dtos.TopMovieRecord;
+import ch.springall.entity.Genre;
+import ch.springall.service.ServiceStatistics;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+//Controller des statistiques des films : chaque route renvoie quelques lignes agrégées par la base (voir ServiceStatistics)
+// Les valeurs peuvent avoir quelques secondes de retard (cache à TTL court)
+// Les classements (/stats/top/...) sont lus en mémoire et à jour dès le commit d'une modification
+@RestController
+@RequestMapping(path = "/stats", produces = "application/json")
+public class ControllerStatistics {
+
+    private final ServiceStatistics serviceStatistics;
+
+    public ControllerStatistics(ServiceStatistics serviceStatistics) {
+        this.serviceStatistics = serviceStatistics;
+    }
+
+    //------------------------------
+    // 1 : Par genre (GET /stats/genres) : nombre de films, note moyenne, min et max
+    //------------------------------
+    @GetMapping("/genres")
+    public ResponseEntity<List<GenreStatsRecord>> getGenreStats() {
+        return ResponseEntity.ok(serviceStatistics.findGenreStats());
+    }
+
+    //------------------------------
+    // 2 : Par directeur (GET /stats/directors?limit=N) : les N directeurs qui ont le plus de films
+    //------------------------------
+    @GetMapping("/directors")
+    public ResponseEntity<List<DirectorStatsRecord>> getDirectorStats(@RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(serviceStatistics.findDirectorStats(limit));
+    }
+
+    //------------------------------
+    // 3 : Par studio (GET /stats/studios?limit=N) : films des directeurs rattachés au studio
+    //------------------------------
+    @GetMapping("/studios")
+    public ResponseEntity<List<StudioStatsRecord>> getStudioStats(@RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(serviceStatistics.findStudioStats(limit));
+    }
+
+    //------------------------------
+    // 4 : Sorties par année (GET /stats/releases)
+    //------------------------------
+    @GetMapping("/releases")
+    public ResponseEntity<List<ReleaseYearRecord>> getReleasesPerYear() {
+        return ResponseEntity.ok(serviceStatistics.findReleasesPerYear());
+    }
+
+    //------------------------------
+    // 5 : Les films les mieux notés d'un genre (GET /stats/top/movies?genre=ACTION&limit=N)
+    //------------------------------
+    @GetMapping("/top/movies")
+    public ResponseEntity<List<TopMovieRecord>> getTopMovies(@RequestParam Genre genre,
+                                                             @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(serviceStatistics.findTopMovies(genre, limit));
+    }
+
+    //------------------------------
+    // 6 : Les directeurs dont la note moyenne des films est la plus haute (GET /stats/top/directors?limit=N)
+    //------------------------------
+    @GetMapping("/top/directors")
+    public ResponseEntity<List<TopDirectorRecord>> getTopDirectors(@RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(serviceStatistics.findTopDirectors(limit));
+    }
+}
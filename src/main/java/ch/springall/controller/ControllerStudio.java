@@ -1,15 +1,25 @@
 package ch.springall.controller;
 
+import ch.springall.config.BinaryFormatsConfig;
 import ch.springall.dtos.StudioRecord;
+import ch.springall.dtos.VersionedRecord;
 import ch.springall.service.ServiceStudio;
 import jakarta.websocket.server.PathParam;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+// JSON par défaut, CBOR ou Smile selon l'en-tête Accept (voir BinaryFormatsConfig)
 @RestController
-@RequestMapping(value = "/studios", produces = "application/json")
+@RequestMapping(value = "/studios", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+        BinaryFormatsConfig.APPLICATION_SMILE_VALUE})
 public class ControllerStudio {
 
     private final ServiceStudio serviceStudio;
@@ -19,9 +29,28 @@ public class ControllerStudio {
     }
 
 
+    // Le studio avec ses directeurs et leurs films
+    // Requête conditionnelle (voir ControllerDirector.getDirectorById) : 304 si le studio, ses directeurs et leurs films n'ont pas changé
+    // L'ETag est celui du Record servi (même transaction, même entrée de cache)
+    // Studio absent du cache : If-None-Match est d'abord comparé à findStudioETag (une requête sur les colonnes version),
+    // le graphe studio -> directeurs -> films n'est chargé que s'il a changé
     @GetMapping("/{id}/studio")
-    public StudioRecord getStudio(@PathVariable("id") Long idStudio){
-        return serviceStudio.findStudio(idStudio);
+    public ResponseEntity<StudioRecord> getStudio(@PathVariable("id") Long idStudio, WebRequest request){
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null && !serviceStudio.isStudioCached(idStudio)) {
+            String eTag = Representations.eTag(serviceStudio.findStudioETag(idStudio), request.getHeader(HttpHeaders.ACCEPT));
+            if (request.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT)
+                        .cacheControl(CacheControl.noCache()).build();
+            }
+        }
+        VersionedRecord<StudioRecord> studio = serviceStudio.findVersionedStudio(idStudio);
+        String eTag = Representations.eTag(studio.eTag(), request.getHeader(HttpHeaders.ACCEPT));
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT)
+                    .cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).cacheControl(CacheControl.noCache())
+                .body(studio.content());
     }
 }
 
@@ -0,0 +1,67 @@
+package ch.springall.controller;
+
+import ch.springall.config.BinaryFormatsConfig;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.Comparator;
+import java.util.List;
+
+//Un même directeur (ou studio) peut être renvoyé en JSON, CBOR ou Smile selon l'en-tête Accept
+// Un ETag fort identifie une représentation précise (mêmes octets) : l'ETag de la version est suffixé par le format
+// ("3" en JSON, "3+cbor" en CBOR, "3+smile" en Smile) et la réponse porte Vary: Accept pour les caches intermédiaires
+// Le format est déterminé comme Spring MVC le fait : qualité décroissante, type précis avant joker,
+// puis ordre de l'en-tête ; */* (ou aucun Accept) donne le format par défaut, JSON
+final class Representations {
+
+    static final String CBOR_SUFFIX = "+cbor";
+    static final String SMILE_SUFFIX = "+smile";
+
+    private static final MediaType SMILE = MediaType.parseMediaType(BinaryFormatsConfig.APPLICATION_SMILE_VALUE);
+
+    private static final Comparator<MediaType> PREFERENCE = Comparator.comparingDouble(MediaType::getQualityValue).reversed()
+            .thenComparing(MediaType::isWildcardSubtype);
+
+    private Representations() {
+    }
+
+    // "3" -> "3+cbor" si le client demande du CBOR ; l'ETag reçu est déjà entre guillemets
+    static String eTag(String eTag, String accept) {
+        String suffix = suffix(accept);
+        return suffix.isEmpty() ? eTag : eTag.substring(0, eTag.length() - 1) + suffix + "\"";
+    }
+
+    // Partie de l'ETag (sans guillemets) qui identifie la version : le suffixe de format est retiré
+    static String withoutSuffix(String tag) {
+        int plus = tag.indexOf('+');
+        return plus < 0 ? tag : tag.substring(0, plus);
+    }
+
+    private static String suffix(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return "";
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept).stream().sorted(PREFERENCE).toList();
+        } catch (InvalidMediaTypeException e) {
+            // Spring MVC répondra 406 (ou JSON) : l'ETag n'a pas d'importance
+            return "";
+        }
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            if (mediaType.isWildcardSubtype() || mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return "";
+            }
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                return CBOR_SUFFIX;
+            }
+            if (mediaType.isCompatibleWith(SMILE)) {
+                return SMILE_SUFFIX;
+            }
+        }
+        return "";
+    }
+}
@@ -0,0 +1,10 @@
+package ch.springall.dtos;
+
+// Résultat d'une opération en masse sur les directeurs (POST /directors/bulk/...) : voir ServiceDirector.deleteDirectorsByIds
+// requested : nombre d'ids distincts demandés, affected : nombre de lignes supprimées ou modifiées en base
+// affected < requested -> certains ids n'existaient pas
+public record BulkResultRecord(
+        int requested,
+        int affected
+) {
+}
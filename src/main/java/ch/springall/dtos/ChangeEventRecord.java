@@ -0,0 +1,23 @@
+package ch.springall.dtos;
+
+import java.time.Instant;
+
+// Un événement du flux des modifications (GET /changes, voir ChangeFeed) : une entité créée, modifiée ou supprimée
+// sequence : numéro croissant, sans trou, attribué au commit ; c'est aussi l'id de l'événement SSE (reprise avec Last-Event-ID)
+// L'événement ne contient pas l'entité : le client relit la ressource (GET /directors/{id}...) ou invalide son cache
+public record ChangeEventRecord(
+        long sequence,
+        EntityType entity,
+        long id,
+        ChangeType type,
+        Instant timestamp
+) {
+
+    public enum EntityType {
+        DIRECTOR, MOVIE, STUDIO
+    }
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+}
@@ -0,0 +1,17 @@
+package ch.springall.dtos;
+
+import ch.springall.entity.Continent;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+// Record exposé par l'API réactive des pays (entité R2DBC CountryR2DBC)
+public record CountryRecord(
+        Long id,
+        @NotBlank
+        @Size(min = 2, max = 50)
+        String countryName,
+        @NotNull
+        Continent continent
+) {
+}
@@ -0,0 +1,36 @@
+package ch.springall.dtos;
+
+import ch.springall.exceptions.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+// Page de résultats pour une pagination par curseur (keyset pagination)
+// Contrairement à une pagination par offset (?page=3&size=20), le client ne transmet pas un numéro de page
+// mais un curseur opaque qui indique "où on s'est arrêté" : le serveur reprend la lecture juste après.
+// -> la requête SQL reste un simple "WHERE id > ? ORDER BY id LIMIT ?" qui utilise l'index de la clé primaire,
+// son coût ne dépend donc pas de la position dans la table (pas de OFFSET à parcourir)
+public record CursorPage<T>(
+        List<T> content,
+        // Curseur à renvoyer dans ?after= pour obtenir la page suivante, null s'il n'y a plus de résultats
+        String nextCursor
+) {
+
+    // Le curseur est opaque pour le client : on encode l'id en Base64 (URL-safe) pour pouvoir
+    // changer son format plus tard (ex: tri composite) sans casser l'API
+    public static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return Long.parseLong(decoded);
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException hérite de IllegalArgumentException
+            throw new InvalidCursorException("Invalid cursor : " + cursor);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ch.springall.dtos;
+
+// Statistiques des films d'un directeur, calculées par la base (GROUP BY) : voir RepositoryMovie.findDirectorStats
+public record DirectorStatsRecord(
+        Long directorId,
+        String firstName,
+        String lastName,
+        Long movieCount,
+        Double averageRating,
+        Double minRating,
+        Double maxRating
+) {
+}
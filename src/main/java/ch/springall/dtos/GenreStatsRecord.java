@@ -0,0 +1,14 @@
+package ch.springall.dtos;
+
+import ch.springall.entity.Genre;
+
+// Statistiques des films d'un genre, calculées par la base (GROUP BY) : voir RepositoryMovie.findGenreStats
+// Types objets (Long, Double) : ce sont les types renvoyés par count/avg/min/max dans l'expression "select new"
+public record GenreStatsRecord(
+        Genre genre,
+        Long movieCount,
+        Double averageRating,
+        Double minRating,
+        Double maxRating
+) {
+}
@@ -0,0 +1,12 @@
+package ch.springall.dtos;
+
+import ch.springall.entity.Genre;
+
+// Résultat de GET /movies/search : le film trouvé et son score de pertinence (plus il est élevé, plus le titre correspond)
+public record MovieSearchResult(
+        Long id,
+        String title,
+        Genre genre,
+        double score
+) {
+}
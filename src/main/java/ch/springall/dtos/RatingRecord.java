@@ -0,0 +1,19 @@
+package ch.springall.dtos;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+
+// Vote d'un utilisateur pour un film (POST /movies/ratings) : note de 0 à 10, arrondie au dixième par RatingAggregator
+// L'existence du film n'est pas vérifiée à la réception (aucune requête SQL) : un vote pour un film inconnu
+// est abandonné au moment de l'écriture (métrique springall.ratings.dropped{reason="unknown-movie"})
+// rating est un Double : une note absente du JSON est refusée (400) au lieu de devenir un vote à 0
+public record RatingRecord(
+        @NotNull
+        Long movieId,
+        @NotNull
+        @DecimalMin("0.0")
+        @DecimalMax("10.0")
+        Double rating
+) {
+}
@@ -0,0 +1,9 @@
+package ch.springall.dtos;
+
+// Réponse de POST /movies/ratings : received = nombre de votes reçus, accepted = nombre de votes mis en attente d'écriture
+// accepted < received -> des votes ont été abandonnés (trop de films en attente ou application en cours d'arrêt)
+public record RatingsAcceptedRecord(
+        int received,
+        int accepted
+) {
+}
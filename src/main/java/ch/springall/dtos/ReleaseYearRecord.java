@@ -0,0 +1,8 @@
+package ch.springall.dtos;
+
+// Nombre de films sortis une année donnée : voir RepositoryMovie.findReleasesPerYear
+public record ReleaseYearRecord(
+        Integer year,
+        Long movieCount
+) {
+}
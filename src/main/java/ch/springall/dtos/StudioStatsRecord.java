@@ -0,0 +1,12 @@
+package ch.springall.dtos;
+
+// Statistiques des films des directeurs d'un studio, calculées par la base (GROUP BY) : voir RepositoryStudio.findStudioStats
+public record StudioStatsRecord(
+        Long studioId,
+        String studioName,
+        Long movieCount,
+        Double averageRating,
+        Double minRating,
+        Double maxRating
+) {
+}
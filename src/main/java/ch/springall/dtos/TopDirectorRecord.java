@@ -0,0 +1,11 @@
+package ch.springall.dtos;
+
+// Un directeur du classement par note moyenne de ses films (GET /stats/top/directors) : voir Leaderboards
+public record TopDirectorRecord(
+        Long id,
+        String firstName,
+        String lastName,
+        long movieCount,
+        double averageRating
+) {
+}
@@ -0,0 +1,13 @@
+package ch.springall.dtos;
+
+import ch.springall.entity.Genre;
+
+// Un film du classement des mieux notés de son genre (GET /stats/top/movies) : voir Leaderboards
+public record TopMovieRecord(
+        Long id,
+        String title,
+        Genre genre,
+        double rating,
+        Long directorId
+) {
+}
@@ -0,0 +1,11 @@
+package ch.springall.dtos;
+
+// Record servi par GET /directors/{id} ou GET /studios/{id}/studio, avec l'ETag de la version à partir de laquelle il a été construit
+// Les deux sont calculés dans la même transaction et gardés ensemble dans le cache des Records :
+// un Record en cache ne peut pas partir sous l'ETag d'une version plus récente (ni l'inverse)
+public record VersionedRecord<T>(
+        // ETag fort, entre guillemets, sans le suffixe de format (voir VersionView)
+        String eTag,
+        T content
+) {
+}
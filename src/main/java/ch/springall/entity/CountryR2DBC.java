@@ -7,9 +7,9 @@ package ch.springall.entity;
 // on utiliserait des annotations comme @Table pour définir la table de la base de données,
 // L'annotation @Entity n'est pas utilisée avec R2DBC, mais on peut utiliser des annotations de Spring Data R2DBC comme @Id pour définir la clé primaire.
 
-import jakarta.persistence.Id;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.springframework.data.annotation.Id;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
@@ -19,6 +19,7 @@ public class CountryR2DBC {
     // avec R2DBC, on n'utilise pas @GeneratedValue, car la génération d'id est gérée différemment
     // ici on suppose que l'id est géré par la base de données elle-même (auto-increment, séquence, etc.)
     // la seule annotation nécessaire est @Id pour indiquer la clé primaire
+    // (celle de Spring Data, org.springframework.data.annotation.Id, et non celle de JPA)
     @Id
     @Column("country_id")
     private Long id;
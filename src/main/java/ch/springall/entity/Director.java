@@ -1,15 +1,29 @@
 package ch.springall.entity;
 
+import ch.springall.entity.listener.ChangeFeedListener;
+import ch.springall.entity.listener.LeaderboardListener;
 import jakarta.persistence.*;
-import org.springframework.boot.jackson.JsonMixin;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 import java.util.List;
 
 @Entity
 @Table(name = "director")
+// Graphe d'entités nommé : décrit un "plan de chargement" réutilisable par les repositories (@EntityGraph)
+// Quand on l'utilise, Hibernate charge les films dans la même requête (LEFT JOIN) au lieu d'une requête par directeur
+@NamedEntityGraph(name = Director.GRAPH_MOVIES, attributeNodes = @NamedAttributeNode("moviesDirected"))
+// Cache de second niveau : un findById sur un directeur déjà lu ne retourne plus en base
+// READ_WRITE : les modifications faites via Hibernate verrouillent puis remplacent l'entrée au commit (pas de lecture périmée)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+// Nom et suppression reportés dans le classement des directeurs, chaque modification publiée dans le flux GET /changes (après le commit)
+@EntityListeners({LeaderboardListener.class, ChangeFeedListener.class})
 public class Director extends Person{
 
+    public static final String GRAPH_MOVIES = "Director.moviesDirected";
+
     @Column(name = "oscar_count", nullable = true)
     private int oscarCount;
 
@@ -18,9 +32,19 @@ public class Director extends Person{
     //le mapping permet de définir qui est le propriétaire de la relation (ici c'est Director)
     // on peut ajouter cascade pour propager les opérations (persist, remove, etc.) aux entités associées
     // et fetch pour définir la stratégie de chargement (EAGER ou LAZY)
-    @OneToMany(mappedBy = "director", cascade = CascadeType.PERSIST, fetch = FetchType.EAGER)
+    // LAZY : les films ne sont chargés que si on les demande explicitement (graphe GRAPH_MOVIES ou fetch join)
+    // -> en EAGER, chaque lecture d'un directeur déclenchait une requête supplémentaire pour ses films (N+1)
+    // la collection a sa propre région de cache (ids des films), invalidée dès que la liste est modifiée
+    @OneToMany(mappedBy = "director", cascade = CascadeType.PERSIST, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Movie> moviesDirected; // La liste est initialisée par défaut à null, mais JPA la gère automatiquement
 
+    // Verrouillage optimiste : incrémenté par Hibernate à chaque UPDATE, un UPDATE concurrent échoue (OptimisticLockException)
+    // La version sert aussi d'ETag pour GET /directors/{id} et de précondition (If-Match) pour PUT /directors/update
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     public Director() {
         super();
     }
@@ -30,6 +54,10 @@ public class Director extends Person{
         this.oscarCount = oscarCount;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public int getOscarCount() {
         return oscarCount;
     }
@@ -2,6 +2,13 @@ package ch.springall.entity;
 
 
 import jakarta.persistence.*;
+import ch.springall.entity.listener.ChangeFeedListener;
+import ch.springall.entity.listener.LeaderboardListener;
+import ch.springall.entity.listener.MovieSearchListener;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -13,12 +20,18 @@ import java.time.LocalDateTime;
 // L'annotation @Entity indique que cette classe est une entité JPA
 @Entity
 @Table(name = "movie") // Spécifie le nom de la table dans la base de données
+// Cache de second niveau (voir Director) : région "ch.springall.entity.Movie"
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+// Chaque insertion, modification ou suppression est reportée dans l'index de recherche des titres
+// et dans les classements, et publiée dans le flux GET /changes (après le commit)
+@EntityListeners({MovieSearchListener.class, LeaderboardListener.class, ChangeFeedListener.class})
 public class Movie {
 
     //Une entity doit forcement avoir un id
-    //on laisse JPA gérer la génération de l'id automatiquement
+    //l'id est généré par une séquence "pooled-lo" : un bloc d'ids est réservé en un seul appel à la base
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @PooledLoSequence(name = "movie_seq")
     private Long id;
 
     // L'annotation @Column spécifie les détails de la colonne dans la table
@@ -38,7 +51,9 @@ public class Movie {
     // on crée une enum Genre dans un fichier séparé
     // important : il faut que l'enum soit dans le même package ou dans un package importé
     // et qu'il soit public
+    // @JdbcTypeCode(VARCHAR) : colonne VARCHAR sur toutes les bases (migration Flyway), même sur H2 qui a un type ENUM natif
     @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
     @Column(name = "genre", nullable = false)
     private Genre genre;
 
@@ -64,6 +79,17 @@ public class Movie {
     @JoinColumn(name = "director_id") // Spécifie la colonne de clé étrangère dans la table movie
     private Director director;
 
+    // Nombre de votes des utilisateurs déjà intégrés dans rating (moyenne des votes)
+    // Écrit uniquement par les UPDATE en lot de RatingAggregator : jamais inséré ni modifié par Hibernate,
+    // un save() d'un film ne peut donc pas écraser les votes agrégés entre-temps
+    @Column(name = "vote_count", nullable = false, insertable = false, updatable = false)
+    private long voteCount;
+
+    // Verrouillage optimiste (voir Director)
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     // Constructeur par défaut requis par JPA : public et sans arguments
     // -> Pourquoi : JPA utilise la réflexion pour instancier les entités
     // et a besoin d'un constructeur sans arguments
@@ -125,6 +151,14 @@ public class Movie {
         this.rating = rating;
     }
 
+    public long getVoteCount() {
+        return voteCount;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
     public Director getDirector() {
         return director;
     }
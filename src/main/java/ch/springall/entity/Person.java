@@ -10,12 +10,12 @@ import java.time.LocalDate;
 @MappedSuperclass
 public abstract class Person {
 
-    // Clé primaire de l'entité : pour une superclasse, on peut laisser
-    // la génération de l'id aux sous-classes via GenerationType.IDENTITY
-    // ce qui permet à chaque sous-classe d'avoir sa propre stratégie de génération
+    // Clé primaire de l'entité : définie une seule fois dans la superclasse
     // sans avoir à redéfinir l'id dans chaque sous-classe
+    // On utilise une séquence "pooled-lo" plutôt que GenerationType.IDENTITY :
+    // les ids sont réservés par blocs, ce qui permet à Hibernate de regrouper les INSERT en batchs JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledLoSequence(name = "person_seq")
     private Long id;
 
     @Column(name = "first_name", nullable = false)
@@ -0,0 +1,22 @@
+package ch.springall.entity;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+// Annotation de génération d'id par séquence avec l'optimiseur "pooled-lo" (voir PooledLoSequenceGenerator)
+// @IdGeneratorType (Hibernate 6) relie l'annotation à la classe qui génère les ids :
+// on l'utilise à la place de @GeneratedValue sur l'attribut @Id
+@IdGeneratorType(PooledLoSequenceGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface PooledLoSequence {
+
+    // Nom de la séquence en base
+    String name();
+}
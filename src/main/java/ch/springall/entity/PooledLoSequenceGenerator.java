@@ -0,0 +1,40 @@
+package ch.springall.entity;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+// Générateur d'ids par séquence avec l'optimiseur "pooled-lo"
+// -> avec GenerationType.IDENTITY, la base génère l'id au moment de l'INSERT : Hibernate doit exécuter
+// chaque INSERT immédiatement pour lire la clé, ce qui désactive les batchs JDBC
+// -> avec une séquence "pooled-lo", un seul appel à la séquence réserve un bloc de N ids (N = allocation size) :
+// la valeur lue est le début du bloc et les N-1 ids suivants sont distribués en mémoire, sans aller-retour en base
+// La taille du bloc doit être égale à l'INCREMENT BY de la séquence, elle est configurable avec la propriété
+// Hibernate "springall.id.allocation_size" (spring.jpa.properties.springall.id.allocation_size)
+public class PooledLoSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String ALLOCATION_SIZE_SETTING = "springall.id.allocation_size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    private final String sequenceName;
+
+    // Constructeur appelé par Hibernate avec l'annotation posée sur l'attribut @Id
+    public PooledLoSequenceGenerator(PooledLoSequence config) {
+        this.sequenceName = config.name();
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        int allocationSize = serviceRegistry.requireService(ConfigurationService.class)
+                .getSetting(ALLOCATION_SIZE_SETTING, StandardConverters.INTEGER, DEFAULT_ALLOCATION_SIZE);
+        parameters.setProperty(SEQUENCE_PARAM, sequenceName);
+        parameters.setProperty(INCREMENT_PARAM, Integer.toString(allocationSize));
+        parameters.setProperty(OPT_PARAM, "pooled-lo");
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
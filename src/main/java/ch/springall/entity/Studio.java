@@ -1,15 +1,23 @@
 package ch.springall.entity;
 
+import ch.springall.entity.listener.ChangeFeedListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
 @Entity
 @Table(name = "studio")
+// Cache de second niveau (voir Director) : région "ch.springall.entity.Studio"
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+// Chaque modification publiée dans le flux GET /changes (après le commit)
+@EntityListeners(ChangeFeedListener.class)
 public class Studio {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @PooledLoSequence(name = "studio_seq")
     private Long id;
 
     @Column(name = "studio_name", unique = true, nullable = false)
@@ -18,10 +26,18 @@ public class Studio {
     @Column(name = "studioFoundedYear")
     private int studioFoundedYear;
 
+    // La clé étrangère studio_id est dans la table director : elle doit accepter null,
+    // car un directeur peut être créé (POST /directors/add ou /directors/batch) avant d'être rattaché à un studio
     @OneToMany
-    @JoinColumn(name = "studio_id", nullable = false)
+    @JoinColumn(name = "studio_id")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Director> directorList;
 
+    // Verrouillage optimiste (voir Director) : incrémenté aussi quand la liste des directeurs change
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     public Studio() {}
     public Studio(String studioName, int studioFoundedYear, List<Director> directorList) {
         this.studioName = studioName;
@@ -53,6 +69,10 @@ public class Studio {
         this.studioFoundedYear = studioFoundedYear;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public List<Director> getDirectorList() {
         return directorList;
     }
@@ -0,0 +1,51 @@
+package ch.springall.entity.listener;
+
+import ch.springall.dtos.ChangeEventRecord.ChangeType;
+import ch.springall.dtos.ChangeEventRecord.EntityType;
+import ch.springall.entity.Director;
+import ch.springall.entity.Movie;
+import ch.springall.entity.Studio;
+import ch.springall.service.ChangeFeed;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+//Entity listener JPA de Director, Movie et Studio : publie chaque création, modification et suppression dans ChangeFeed
+// après le commit (même principe que LeaderboardListener) ; couvre toutes les écritures des services faites par Hibernate
+// Les requêtes en masse (JPQL, JDBC) n'appellent pas les listeners : ServiceDirector et RatingAggregator publient eux-mêmes
+@Component
+public class ChangeFeedListener {
+
+    private final ObjectProvider<ChangeFeed> changeFeed;
+
+    public ChangeFeedListener(ObjectProvider<ChangeFeed> changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        publish(entity, ChangeType.CREATED);
+    }
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        publish(entity, ChangeType.UPDATED);
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        publish(entity, ChangeType.DELETED);
+    }
+
+    private void publish(Object entity, ChangeType type) {
+        switch (entity) {
+            case Director director -> changeFeed.getObject().publishAfterCommit(EntityType.DIRECTOR, director.getId(), type);
+            case Movie movie -> changeFeed.getObject().publishAfterCommit(EntityType.MOVIE, movie.getId(), type);
+            case Studio studio -> changeFeed.getObject().publishAfterCommit(EntityType.STUDIO, studio.getId(), type);
+            default -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ch.springall.entity.listener;
+
+import ch.springall.entity.Director;
+import ch.springall.entity.Genre;
+import ch.springall.entity.Movie;
+import ch.springall.service.Leaderboards;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import static ch.springall.support.TransactionCallbacks.afterCommit;
+
+//Entity listener JPA de Movie et Director : reporte chaque modification dans les classements (Leaderboards) après le commit
+// Même principe que MovieSearchListener ; un seul listener pour les deux entités, le type est testé dans chaque callback
+// Les valeurs sont copiées au flush : seule la clé étrangère du directeur d'un film est lue (pas de chargement du directeur)
+@Component
+public class LeaderboardListener {
+
+    private final ObjectProvider<Leaderboards> leaderboards;
+
+    public LeaderboardListener(ObjectProvider<Leaderboards> leaderboards) {
+        this.leaderboards = leaderboards;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        switch (entity) {
+            case Movie movie -> {
+                long id = movie.getId();
+                String title = movie.getTitle();
+                Genre genre = movie.getGenre();
+                double rating = movie.getRating();
+                Long directorId = movie.getDirector() == null ? null : movie.getDirector().getId();
+                afterCommit(() -> leaderboards.getObject().movieSaved(id, title, genre, rating, directorId));
+            }
+            case Director director -> {
+                long id = director.getId();
+                String firstName = director.getFirstName();
+                String lastName = director.getLastName();
+                afterCommit(() -> leaderboards.getObject().directorSaved(id, firstName, lastName));
+            }
+            default -> {
+            }
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        switch (entity) {
+            case Movie movie -> {
+                long id = movie.getId();
+                afterCommit(() -> leaderboards.getObject().movieRemoved(id));
+            }
+            case Director director -> {
+                long id = director.getId();
+                afterCommit(() -> leaderboards.getObject().directorRemoved(id));
+            }
+            default -> {
+            }
+        }
+    }
+}
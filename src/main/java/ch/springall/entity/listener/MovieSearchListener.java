@@ -0,0 +1,44 @@
+package ch.springall.entity.listener;
+
+import ch.springall.entity.Genre;
+import ch.springall.entity.Movie;
+import ch.springall.service.MovieSearchIndex;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import static ch.springall.support.TransactionCallbacks.afterCommit;
+
+//Entity listener JPA de Movie (@EntityListeners) : reporte chaque insertion, modification et suppression dans MovieSearchIndex
+// Spring Boot configure Hibernate pour créer les listeners comme des beans Spring (SpringBeanContainer) : l'injection fonctionne
+// L'index est obtenu par ObjectProvider car le listener est créé avec l'EntityManagerFactory, avant les services
+// Les callbacks @Post* sont appelés au flush, avant le commit : l'index n'est modifié qu'une fois la transaction validée
+// (un rollback ne laisse pas de titre fantôme dans les résultats de recherche)
+// Les entity listeners sont dans ce package (et non dans service) : les entités ne référencent que lui
+@Component
+public class MovieSearchListener {
+
+    private final ObjectProvider<MovieSearchIndex> movieSearchIndex;
+
+    public MovieSearchListener(ObjectProvider<MovieSearchIndex> movieSearchIndex) {
+        this.movieSearchIndex = movieSearchIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Movie movie) {
+        // Valeurs copiées maintenant : l'entité peut encore changer avant le commit (elle sera alors de nouveau flushée)
+        long id = movie.getId();
+        String title = movie.getTitle();
+        Genre genre = movie.getGenre();
+        afterCommit(() -> movieSearchIndex.getObject().put(id, title, genre));
+    }
+
+    @PostRemove
+    public void onRemove(Movie movie) {
+        long id = movie.getId();
+        afterCommit(() -> movieSearchIndex.getObject().remove(id));
+    }
+}
@@ -1,11 +1,14 @@
 package ch.springall.exceptions;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 import java.net.URI;
 import java.nio.file.AccessDeniedException;
@@ -35,6 +38,57 @@ public class GlobalExceptionHandler {
         return problem;
     }
 
+    /**
+     * Gestion d'un curseur de pagination invalide (modifié ou forgé par le client).
+     * Retourne un 400 Bad Request plutôt qu'une erreur 500 générique.
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ProblemDetail handleInvalidCursor(InvalidCursorException ex) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+        problem.setTitle("Curseur invalide");
+        problem.setType(URI.create("https://api.example.com/errors/invalid-cursor"));
+        return problem;
+    }
+
+    /**
+     * Gestion d'une précondition If-Match non vérifiée : le client a modifié une version périmée de la ressource.
+     * Retourne un 412 Precondition Failed, le client doit relire la ressource avant de la modifier.
+     */
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ProblemDetail handlePreconditionFailed(PreconditionFailedException ex) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.PRECONDITION_FAILED, ex.getMessage());
+        problem.setTitle("Précondition non vérifiée");
+        problem.setType(URI.create("https://api.example.com/errors/precondition-failed"));
+        return problem;
+    }
+
+    /**
+     * Gestion d'une modification concurrente détectée par le verrouillage optimiste (@Version) au moment du commit.
+     * Retourne un 409 Conflict plutôt qu'une erreur 500 générique.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ProblemDetail handleOptimisticLocking(OptimisticLockingFailureException ex) {
+        ProblemDetail problem = ProblemDetail.forStatus(HttpStatus.CONFLICT);
+        problem.setTitle("Modification concurrente");
+        problem.setType(URI.create("https://api.example.com/errors/conflict"));
+        problem.setDetail("La ressource a été modifiée par une autre requête. Veuillez la relire puis réessayer.");
+        return problem;
+    }
+
+    /**
+     * Gestion d'une contrainte d'intégrité refusée par la base, par exemple la suppression d'un directeur
+     * dont des films référencent encore l'id (clé étrangère movie.director_id).
+     * Retourne un 409 Conflict : la requête est valide mais incompatible avec l'état actuel des données.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ProblemDetail handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+        ProblemDetail problem = ProblemDetail.forStatus(HttpStatus.CONFLICT);
+        problem.setTitle("Contrainte d'intégrité");
+        problem.setType(URI.create("https://api.example.com/errors/conflict"));
+        problem.setDetail("L'opération viole une contrainte d'intégrité (par exemple des films référencent encore ce directeur).");
+        return problem;
+    }
+
     /**
      * Gestion des erreurs de validation (Bean Validation).
      * Regroupe les messages d'erreur pour les champs invalides.
@@ -56,6 +110,23 @@ public class GlobalExceptionHandler {
         return problem;
     }
 
+    /**
+     * Gestion des erreurs de validation sur les paramètres d'une méthode de controller
+     * (ex: @Size sur une liste, @Valid sur les éléments d'une liste reçue en @RequestBody).
+     */
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ProblemDetail handleMethodValidationErrors(HandlerMethodValidationException ex) {
+        ProblemDetail problem = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
+        problem.setTitle("Erreur de validation");
+        problem.setType(URI.create("https://api.example.com/errors/validation"));
+        problem.setDetail("Un ou plusieurs champs sont invalides");
+        problem.setProperty("errors", ex.getAllErrors()
+                .stream()
+                .map(error -> error.getDefaultMessage())
+                .toList());
+        return problem;
+    }
+
     /**
      * Gestion d'une exception technique générique non prévue explicitement.
      * Évite d'exposer la stacktrace et fournit une erreur 500 standardisée.
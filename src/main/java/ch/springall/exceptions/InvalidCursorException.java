@@ -0,0 +1,11 @@
+package ch.springall.exceptions;
+
+/**
+ * Exception levée lorsqu'un curseur de pagination reçu par l'API est illisible.
+ * Sert à indiquer un 400 côté API.
+ */
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package ch.springall.exceptions;
+
+/**
+ * Exception levée lorsque la précondition d'une requête (en-tête If-Match) n'est plus vérifiée :
+ * la ressource a été modifiée depuis que le client l'a lue.
+ * Sert à indiquer un 412 cohérent côté API.
+ */
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package ch.springall.mapper;
+
+import ch.springall.dtos.CountryRecord;
+import ch.springall.entity.CountryR2DBC;
+import org.mapstruct.Mapper;
+
+// Mapper de l'entité R2DBC : le principe est le même qu'avec JPA, MapStruct ne dépend pas de la technologie de persistance
+// Les méthodes sont appelées dans un map() d'un Flux : un mapping par élément, sans bloquer
+@Mapper(componentModel = "spring")
+public interface MapperCountry {
+
+    CountryRecord toRecord(CountryR2DBC country);
+
+    CountryR2DBC fromRecordToEntity(CountryRecord countryRecord);
+}
@@ -3,22 +3,25 @@ package ch.springall.mapper;
 import ch.springall.dtos.DirectorDTO;
 import ch.springall.dtos.DirectorRecord;
 import ch.springall.entity.Director;
+import org.hibernate.Hibernate;
 import org.mapstruct.*;
 
+import java.util.Collection;
+
 //L'entité Director gère la relation avec Movie, on va donc utiliser le mapping de Movie pour éviter les cycles infinis
 // Pour cela, on rajoute un paramètre pour @Mapper qui est "uses = MapperMovie.class" et on mappe la liste des films réalisés
 
 @Mapper(componentModel = "spring", uses = MapperMovie.class)
 public interface MapperDirector {
 
-    @Mapping(target = "moviesDirected", source = "moviesDirected")
+    @Mapping(target = "moviesDirected", source = "moviesDirected", conditionQualifiedByName = "isLoaded")
     DirectorDTO toDto(Director director);
 
     @InheritInverseConfiguration
     Director fromDtoToEntity(DirectorDTO directorDTO);
 
     // Pour les records :
-    @Mapping(target = "moviesRecord", source = "moviesDirected")
+    @Mapping(target = "moviesRecord", source = "moviesDirected", conditionQualifiedByName = "isLoaded")
     DirectorRecord toRecord(Director director);
 
     @InheritInverseConfiguration
@@ -31,11 +34,21 @@ public interface MapperDirector {
     // par exemple pour vérifier que la relation avec les films est cohérente avec l'annotation @AfterMapping
     @AfterMapping
     default void linkMovies(@MappingTarget Director entity) {
-        if (entity.getMoviesDirected() != null) {
+        // On ne parcourt pas une collection LAZY non chargée : cela déclencherait une requête SQL inutile
+        if (entity.getMoviesDirected() != null && Hibernate.isInitialized(entity.getMoviesDirected())) {
             entity.getMoviesDirected().forEach(m -> m.setDirector(entity));
         }
     }
 
+    //Condition de mapping (@Condition) : MapStruct appelle cette méthode avant de mapper la propriété
+    // Les films sont en LAZY : si la collection n'a pas été chargée (pas de ?expand=movies),
+    // on ne la mappe pas (moviesRecord = null) au lieu de déclencher une requête SQL par directeur
+    @Condition
+    @Named("isLoaded")
+    default boolean isLoaded(Collection<?> collection) {
+        return Hibernate.isInitialized(collection);
+    }
+
     //On peut aussi définir un mapping pour une mise à jour partielle d'une entité existante avec @MappingTarget
     void updateEntityFromRecord(DirectorRecord dRecord, @MappingTarget Director entity);
 
@@ -0,0 +1,71 @@
+package ch.springall.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+//Contrôle du nombre de requêtes SQL émises par chaque requête HTTP (détection des N+1 en production)
+// Le compteur (SqlStatementCounter) est remis à zéro avant le contrôleur et lu une fois la réponse terminée :
+// - métrique springall.sql.statements (tag uri) : distribution du nombre de requêtes SQL par requête HTTP
+// - au-delà du budget de la route (SqlStatementBudgetProperties) : un warning et la métrique springall.sql.budget.exceeded
+// Pour une requête asynchrone (export NDJSON, API réactive des pays), seul le code exécuté sur le thread
+// du conteneur est compté : le travail fait sur un autre thread n'est pas rattaché à la requête
+public class SqlStatementBudgetInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementBudgetInterceptor.class);
+
+    private static final String UNKNOWN_ROUTE = "UNKNOWN";
+
+    private final SqlStatementBudgetProperties budget;
+    private final MeterRegistry meterRegistry;
+
+    public SqlStatementBudgetInterceptor(SqlStatementBudgetProperties budget, MeterRegistry meterRegistry) {
+        this.budget = budget;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SqlStatementCounter.reset();
+        return true;
+    }
+
+    // Le thread du conteneur est rendu : on ne garde pas les compteurs de cette requête sur un thread qui va en servir d'autres
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SqlStatementCounter.reset();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        try {
+            // Motif de la route (/directors/{id}) et non l'URL reçue : le nombre de tags des métriques reste borné
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String route = pattern == null ? UNKNOWN_ROUTE : pattern.toString();
+            long statements = SqlStatementCounter.total();
+            DistributionSummary.builder("springall.sql.statements")
+                    .description("SQL statements issued per HTTP request")
+                    .tag("uri", route)
+                    .register(meterRegistry)
+                    .record(statements);
+            int routeBudget = budget.budgetFor(route);
+            if (statements > routeBudget) {
+                Counter.builder("springall.sql.budget.exceeded")
+                        .description("HTTP requests that issued more SQL statements than their budget")
+                        .tag("uri", route)
+                        .register(meterRegistry)
+                        .increment();
+                logger.warn("{} {} issued {} SQL statements (budget {}): {}",
+                        request.getMethod(), route, statements, routeBudget, SqlStatementCounter.summary());
+            }
+        } finally {
+            SqlStatementCounter.reset();
+        }
+    }
+}
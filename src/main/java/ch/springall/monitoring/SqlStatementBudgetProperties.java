@@ -0,0 +1,21 @@
+package ch.springall.monitoring;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+//Budget de requêtes SQL par requête HTTP (propriétés springall.sql.budget.*)
+// - default-budget : nombre maximal de requêtes SQL pour un endpoint sans budget propre
+// - endpoints : budget par route, la clé est le motif de la route (ex: springall.sql.budget.endpoints[/directors/{id}]=2)
+@ConfigurationProperties("springall.sql.budget")
+public record SqlStatementBudgetProperties(@DefaultValue("20") int defaultBudget, Map<String, Integer> endpoints) {
+
+    public SqlStatementBudgetProperties {
+        endpoints = endpoints == null ? Map.of() : Map.copyOf(endpoints);
+    }
+
+    public int budgetFor(String route) {
+        return endpoints.getOrDefault(route, defaultBudget);
+    }
+}
@@ -0,0 +1,77 @@
+package ch.springall.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Locale;
+
+//Compteur des requêtes SQL exécutées par Hibernate, par thread
+// Hibernate appelle StatementInspector.inspect avant de préparer chaque requête JDBC (SELECT, INSERT, batch, appel de séquence...)
+// La classe est déclarée dans application.properties (hibernate.session_factory.statement_inspector) : Hibernate en crée
+// une seule instance pour toute l'application, les compteurs sont donc dans un ThreadLocal statique
+// -> une requête HTTP (SqlStatementBudgetInterceptor) ou un test (SqlAssertions) remet le compteur à zéro,
+// exécute son code sur le même thread puis lit le nombre de requêtes émises
+// Les requêtes exécutées sur un autre thread (@Async, export en streaming) ne sont pas comptées pour l'appelant
+public class SqlStatementCounter implements StatementInspector {
+
+    public enum StatementType { SELECT, INSERT, UPDATE, DELETE, OTHER }
+
+    private static final ThreadLocal<long[]> COUNTS = ThreadLocal.withInitial(() -> new long[StatementType.values().length]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNTS.get()[typeOf(sql).ordinal()]++;
+        return sql;
+    }
+
+    public static void reset() {
+        COUNTS.remove();
+    }
+
+    public static long count(StatementType type) {
+        return COUNTS.get()[type.ordinal()];
+    }
+
+    public static long total() {
+        long total = 0;
+        for (long count : COUNTS.get()) {
+            total += count;
+        }
+        return total;
+    }
+
+    // Résumé lisible dans les logs et les messages d'assertion, ex : "SELECT=12, INSERT=0, UPDATE=0, DELETE=0, OTHER=1"
+    public static String summary() {
+        StringBuilder summary = new StringBuilder();
+        for (StatementType type : StatementType.values()) {
+            if (!summary.isEmpty()) {
+                summary.append(", ");
+            }
+            summary.append(type).append('=').append(count(type));
+        }
+        return summary.toString();
+    }
+
+    // Type de la requête d'après son premier mot-clé (les commentaires ajoutés par hibernate.use_sql_comments sont ignorés)
+    // Les appels de séquence ("select next value for ...", "select nextval(...)") ne lisent aucune table : ils sont classés OTHER
+    // pour que les SELECT comptés ne dépendent pas de l'état des blocs d'ids (PooledLoSequenceGenerator)
+    static StatementType typeOf(String sql) {
+        String statement = sql.strip();
+        while (statement.startsWith("/*") && statement.contains("*/")) {
+            statement = statement.substring(statement.indexOf("*/") + 2).strip();
+        }
+        statement = statement.toLowerCase(Locale.ROOT);
+        if (statement.startsWith("select") || statement.startsWith("with")) {
+            return statement.contains("next value for") || statement.contains("nextval(") ? StatementType.OTHER : StatementType.SELECT;
+        }
+        if (statement.startsWith("insert")) {
+            return StatementType.INSERT;
+        }
+        if (statement.startsWith("update")) {
+            return StatementType.UPDATE;
+        }
+        if (statement.startsWith("delete")) {
+            return StatementType.DELETE;
+        }
+        return StatementType.OTHER;
+    }
+}
@@ -0,0 +1,132 @@
+package ch.springall.monitoring;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+//Détection du "pinning" des threads virtuels avec Java Flight Recorder (JFR)
+// Un thread virtuel est "épinglé" (pinned) à son thread porteur lorsqu'il bloque dans un bloc synchronized
+// ou un appel natif : le porteur ne peut plus exécuter d'autres threads virtuels pendant ce temps
+// -> quelques blocages de ce type suffisent à retrouver le comportement d'un petit pool de threads
+// La JVM émet l'événement jdk.VirtualThreadPinned ; on l'écoute en continu avec un RecordingStream
+// et on signale les événements dont la pile d'appels passe par notre code (package ch.springall)
+// Le bean n'existe qu'en mode threads virtuels (spring.threads.virtual.enabled=true)
+// Remarque : JFR ne garde que les 64 premières frames de la pile par défaut ; pour les piles profondes (Hibernate, proxies Spring)
+// on peut lancer la JVM avec -XX:FlightRecorderOptions:stackdepth=256
+// Métrique springall.virtual-threads.pinned (tag origin) : événements passant par notre code (app) ou non (non-app),
+// exposée comme les autres sur /actuator/prometheus
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements SmartLifecycle, MeterBinder {
+
+    public static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final String APPLICATION_PACKAGE = "ch.springall.";
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    // Durée minimale de blocage pour que la JVM émette l'événement
+    private final Duration threshold;
+
+    // Compteurs : tous les événements, ceux qui passent par notre code, et le détail par ligne de code
+    private final LongAdder pinnedEvents = new LongAdder();
+    private final LongAdder applicationPinnedEvents = new LongAdder();
+    private final Map<String, LongAdder> pinnedLocations = new ConcurrentHashMap<>();
+
+    private volatile RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(@Value("${springall.virtual-threads.pinning-threshold:20ms}") Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void start() {
+        RecordingStream stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        // startAsync : la lecture des événements se fait sur un thread dédié à JFR
+        stream.startAsync();
+        recordingStream = stream;
+        logger.info("Virtual thread pinning monitor started (threshold {} ms)", threshold.toMillis());
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream stream = recordingStream;
+        recordingStream = null;
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return recordingStream != null;
+    }
+
+    void onPinned(RecordedEvent event) {
+        pinnedEvents.increment();
+        applicationFrame(event.getStackTrace()).ifPresent(location -> {
+            applicationPinnedEvents.increment();
+            pinnedLocations.computeIfAbsent(location, key -> new LongAdder()).increment();
+            logger.warn("Virtual thread pinned for {} ms in {}", event.getDuration().toMillis(), location);
+        });
+    }
+
+    // Première frame de notre code en partant du sommet de la pile : la ligne qui a provoqué (ou appelé) le blocage
+    static Optional<String> applicationFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return Optional.empty();
+        }
+        return stackTrace.getFrames().stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .filter(frame -> frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE))
+                .findFirst()
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("springall.virtual-threads.pinned", this, VirtualThreadPinningMonitor::getApplicationPinnedCount)
+                .description("Virtual thread pinned events whose stack goes through application code")
+                .tag("origin", "app")
+                .register(registry);
+        FunctionCounter.builder("springall.virtual-threads.pinned", this, monitor -> monitor.getPinnedCount() - monitor.getApplicationPinnedCount())
+                .description("Virtual thread pinned events whose stack does not go through application code")
+                .tag("origin", "non-app")
+                .register(registry);
+    }
+
+    public long getPinnedCount() {
+        return pinnedEvents.sum();
+    }
+
+    public long getApplicationPinnedCount() {
+        return applicationPinnedEvents.sum();
+    }
+
+    // Nombre d'événements par ligne de code (triés par nom pour un affichage stable)
+    public Map<String, Long> getPinnedLocations() {
+        Map<String, Long> locations = new TreeMap<>();
+        pinnedLocations.forEach((location, count) -> locations.put(location, count.sum()));
+        return locations;
+    }
+}
@@ -1,17 +1,115 @@
 package ch.springall.repository.jpa;
 
 import ch.springall.entity.Director;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.quartz.QuartzDataSource;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 @Qualifier("jpaDirector")
 public interface RepositoryDirector extends JpaRepository<Director, Long> {
 
     Director findByFirstNameAndLastName(String FirstName, String LastName);
 
+    // Pagination par curseur (seek method) : on reprend après le dernier id renvoyé au lieu de sauter N lignes
+    // -> "WHERE id > :id ORDER BY id LIMIT :limit" parcourt directement l'index de la clé primaire,
+    // le temps de réponse reste stable même lorsque la table grossit
+    // Le paramètre Limit (Spring Data 3.2+) est traduit en LIMIT SQL
+    List<Director> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Variante qui ne lit que les ids de la page : utilisée avec ?expand=movies, car un LIMIT sur une requête
+    // qui joint une collection (fetch join) ne peut pas être fait en SQL (Hibernate paginerait en mémoire)
+    @Query("select d.id from Director d where d.id > :id order by d.id")
+    List<Long> findIdsByIdGreaterThan(@Param("id") Long id, Limit limit);
+
+    // Plans de chargement (fetch plans) : la relation moviesDirected est LAZY par défaut,
+    // @EntityGraph permet de choisir, requête par requête, de charger les films avec le directeur (LEFT JOIN)
+    // -> une seule requête SQL quel que soit le nombre de directeurs, au lieu d'une requête par directeur (N+1)
+    @EntityGraph(Director.GRAPH_MOVIES)
+    Optional<Director> findWithMoviesById(Long id);
+
+    @EntityGraph(Director.GRAPH_MOVIES)
+    List<Director> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    @EntityGraph(Director.GRAPH_MOVIES)
+    List<Director> findAllByOrderByIdAsc();
+
+    // Lecture en flux de toute la table pour l'export : un Stream est adossé à un curseur JDBC (ScrollableResults)
+    // et les lignes sont lues au fur et à mesure au lieu d'être chargées d'un coup dans une List
+    // - fetchSize : nombre de lignes ramenées par aller-retour réseau (PostgreSQL ne l'applique qu'à l'intérieur d'une transaction)
+    // - readOnly : Hibernate ne garde pas de copie des entités pour le dirty checking
+    // - cacheMode IGNORE : l'export parcourt toute la table, il ne doit pas remplacer le contenu du cache de second niveau
+    // Le Stream doit être consommé dans une transaction et fermé (try-with-resources)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    // Le fetch join charge les films dans la même requête : Hibernate regroupe les lignes consécutives d'un même directeur
+    @Query("select d from Director d left join fetch d.moviesDirected order by d.id")
+    Stream<Director> streamAllOrderById();
+
+    // Noms de tous les directeurs, sans charger les entités (construction des classements, Leaderboards)
+    interface NameView {
+        Long getId();
+
+        String getFirstName();
+
+        String getLastName();
+    }
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select d.id as id, d.firstName as firstName, d.lastName as lastName from Director d")
+    Stream<NameView> streamAllNames();
+
+    // Requêtes conditionnelles (ETag) : seules les colonnes version sont lues, aucune entité n'est chargée
+    @Query("select d.version from Director d where d.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Avec les films (?expand=movies) : une seule requête, qui passe par l'index idx_movie_director
+    @Query("select d.version as version, count(m) as count, coalesce(sum(m.id), 0) as idSum, coalesce(sum(m.version), 0) as versionSum " +
+            "from Director d left join d.moviesDirected m where d.id = :id group by d.id, d.version")
+    Optional<VersionView> findVersionWithMoviesById(@Param("id") Long id);
+
+    // Vérification d'existence de plusieurs directeurs en une requête (count), sans charger les entités
+    long countByIdIn(Collection<Long> ids);
+
+    // Ids existants parmi ids, lignes verrouillées (select ... for update) jusqu'à la fin de la transaction :
+    // une suppression en masse qui suit touche exactement ces lignes (flux des modifications, classements)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select d.id from Director d where d.id in :ids")
+    List<Long> lockExistingIds(@Param("ids") Collection<Long> ids);
 
+    // Opérations en masse (bulk) : un seul DELETE / UPDATE SQL quel que soit le nombre d'ids, aucune entité n'est chargée
+    // - Hibernate invalide lui-même les régions du cache de second niveau touchées (entités Director et collections
+    //   qui en contiennent, comme Studio.directorList) ; il n'appelle pas les entity listeners (@PostRemove, @PostUpdate) :
+    //   les caches de Records et les classements sont mis à jour par le service
+    // - flushAutomatically : les modifications en attente sont envoyées avant ; clearAutomatically : les entités déjà
+    //   chargées dans le contexte de persistance seraient périmées, il est vidé après
+    // - la clé étrangère movie.director_id interdit de supprimer un directeur qui a encore des films (voir reassignDirector)
+    // Retourne le nombre de lignes supprimées / modifiées (les ids inconnus sont ignorés)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Director d where d.id in :ids")
+    int deleteAllByIdInBulk(@Param("ids") Collection<Long> ids);
 
+    // La version est incrémentée comme le ferait Hibernate : l'ETag change et un If-Match périmé est refusé
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Director d set d.oscarCount = d.oscarCount + :increment, d.version = d.version + 1 where d.id in :ids")
+    int incrementOscarCount(@Param("ids") Collection<Long> ids, @Param("increment") int increment);
 }
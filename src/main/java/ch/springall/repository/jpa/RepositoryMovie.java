@@ -1,11 +1,28 @@
 package ch.springall.repository.jpa;
 
+import ch.springall.dtos.DirectorStatsRecord;
+import ch.springall.dtos.GenreStatsRecord;
+import ch.springall.dtos.ReleaseYearRecord;
+import ch.springall.dtos.TopMovieRecord;
+import ch.springall.entity.Director;
+import ch.springall.entity.Genre;
 import ch.springall.entity.Movie;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 // Interface Repository pour l'entité Movie avec l'annotation @Repository
 // et l'extension de JpaRepository pour fournir des opérations CRUD
 // sur les objets Movie avec des identifiants de type Long
@@ -41,4 +58,74 @@ public interface RepositoryMovie extends JpaRepository<Movie, Long> {
     // On va plutôt utiliser cette méthode pour des requêtes complexes et jamais implémenter un JPARepository en entier
     // car on perd tous les avantages de Spring Data JPA et il y a trop de méthodes à implémenter
     //Movie findByTitleCustom(String title);
+
+    // Projection (interface) : seules les colonnes id, title et genre sont lues, sans instancier d'entité Movie
+    // Utilisée pour construire l'index de recherche des titres (MovieSearchIndex) au démarrage
+    interface TitleView {
+        Long getId();
+
+        String getTitle();
+
+        Genre getGenre();
+    }
+
+    // Lecture en flux de tous les titres (voir RepositoryDirector.streamAllOrderById) : à consommer dans une transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select m.id as id, m.title as title, m.genre as genre from Movie m")
+    Stream<TitleView> streamAllTitles();
+
+    // Projection utilisée pour construire les classements (Leaderboards) au démarrage
+    // m.director.id : Hibernate lit directement la clé étrangère director_id, sans jointure
+    interface RatingView extends TitleView {
+        double getRating();
+
+        Long getDirectorId();
+    }
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select m.id as id, m.title as title, m.genre as genre, m.rating as rating, m.director.id as directorId from Movie m")
+    Stream<RatingView> streamAllRatings();
+
+    // Notes de quelques films après un lot de votes (RatingAggregator) : pour les classements, sans charger les entités
+    @Query("select m.id as id, m.title as title, m.genre as genre, m.rating as rating, m.director.id as directorId " +
+            "from Movie m where m.id in :ids")
+    List<RatingView> findRatingsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Les films les mieux notés d'un genre : recharge le classement d'un genre quand trop de ses films ont été supprimés
+    @Query("select new ch.springall.dtos.TopMovieRecord(m.id, m.title, m.genre, m.rating, m.director.id) " +
+            "from Movie m where m.genre = :genre order by m.rating desc, m.id")
+    List<TopMovieRecord> findTopRated(@Param("genre") Genre genre, Limit limit);
+
+    // Statistiques calculées par la base (GROUP BY) : seules les lignes agrégées sont renvoyées, aucune entité Movie n'est chargée
+    // "select new" (expression constructeur JPQL) : Hibernate crée directement les Records à partir des colonnes du résultat
+    @Query("select new ch.springall.dtos.GenreStatsRecord(m.genre, count(m), avg(m.rating), min(m.rating), max(m.rating)) " +
+            "from Movie m group by m.genre order by m.genre")
+    List<GenreStatsRecord> findGenreStats();
+
+    // Les directeurs qui ont le plus de films d'abord ; Limit est traduit en LIMIT SQL
+    @Query("select new ch.springall.dtos.DirectorStatsRecord(d.id, d.firstName, d.lastName, count(m), avg(m.rating), min(m.rating), max(m.rating)) " +
+            "from Movie m join m.director d group by d.id, d.firstName, d.lastName order by count(m) desc, d.id")
+    List<DirectorStatsRecord> findDirectorStats(Limit limit);
+
+    @Query("select new ch.springall.dtos.ReleaseYearRecord(extract(year from m.releaseDate), count(m)) " +
+            "from Movie m group by extract(year from m.releaseDate) order by extract(year from m.releaseDate)")
+    List<ReleaseYearRecord> findReleasesPerYear();
+
+    // Ids des films d'un directeur, lignes verrouillées (select ... for update) jusqu'à la fin de la transaction
+    // Le paramètre est une référence (getReferenceById) : seule la clé étrangère est utilisée
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select m.id from Movie m where m.director = :director")
+    List<Long> lockIdsByDirector(@Param("director") Director director);
+
+    // Opération en masse (voir RepositoryDirector.deleteAllByIdInBulk) : les films passent à un autre directeur
+    // en un seul UPDATE, sans charger les films ; la version de chaque film est incrémentée (ETag de ?expand=movies)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Movie m set m.director = :to, m.version = m.version + 1 where m.id in :ids")
+    int reassignDirector(@Param("ids") Collection<Long> ids, @Param("to") Director to);
 }
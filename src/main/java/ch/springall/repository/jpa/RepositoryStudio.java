@@ -1,13 +1,41 @@
 package ch.springall.repository.jpa;
 
+import ch.springall.dtos.StudioStatsRecord;
 import ch.springall.entity.Studio;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface RepositoryStudio extends JpaRepository<Studio, Long> {
 
     Studio findByStudioName(String name);
 
+    // Studios auxquels un directeur est rattaché (jointure sur la collection directorList)
+    List<Studio> findByDirectorListId(Long directorId);
+
+    // Statistiques des films des directeurs de chaque studio, calculées par la base (voir RepositoryMovie.findGenreStats)
+    // Les studios qui ont le plus de films d'abord
+    @Query("select new ch.springall.dtos.StudioStatsRecord(s.id, s.studioName, count(m), avg(m.rating), min(m.rating), max(m.rating)) " +
+            "from Studio s join s.directorList d join d.moviesDirected m " +
+            "group by s.id, s.studioName order by count(m) desc, s.id")
+    List<StudioStatsRecord> findStudioStats(Limit limit);
+
+    // Studios des directeurs donnés : invalidation des Records en cache quand les notes de leurs films changent
+    @Query("select distinct s.id from Studio s join s.directorList d where d.id in :directorIds")
+    List<Long> findIdsByDirectorIdIn(@Param("directorIds") Collection<Long> directorIds);
+
+    // ETag de GET /studios/{id}/studio : versions du studio, de ses directeurs et de leurs films (tous dans le Record)
+    // Une ligne par couple (directeur, film) ; un directeur sans film compte pour une ligne (voir ServiceStudio.eTagOf)
+    @Query("select s.version as version, count(distinct d.id) + count(m) as count, " +
+            "coalesce(sum(d.id + coalesce(m.id, 0)), 0) as idSum, coalesce(sum(d.version + coalesce(m.version, 0)), 0) as versionSum " +
+            "from Studio s left join s.directorList d left join d.moviesDirected m where s.id = :id group by s.id, s.version")
+    Optional<VersionView> findVersionById(@Param("id") Long id);
 
 }
@@ -0,0 +1,28 @@
+package ch.springall.repository.jpa;
+
+// Projection (interface) des colonnes @Version d'une entité et de ses enfants : sert à calculer un ETag sans charger le graphe
+// - version    : version de l'entité elle-même
+// - count      : nombre d'enfants (films d'un directeur, directeurs d'un studio)
+// - idSum      : somme de leurs ids (un enfant remplacé par un autre change la somme)
+// - versionSum : somme de leurs versions (un enfant modifié change la somme)
+// Toute modification du Record renvoyé au client change au moins une de ces valeurs
+public interface VersionView {
+
+    Long getVersion();
+
+    Long getCount();
+
+    Long getIdSum();
+
+    Long getVersionSum();
+
+    // ETag fort (RFC 9110) : entre guillemets, sans préfixe W/
+    default String toETag() {
+        return toETag(getVersion(), getCount(), getIdSum(), getVersionSum());
+    }
+
+    // Même ETag calculé à partir des entités déjà chargées (le Record et son ETag viennent alors de la même lecture)
+    static String toETag(long version, long count, long idSum, long versionSum) {
+        return "\"" + version + "-" + count + "-" + idSum + "-" + versionSum + "\"";
+    }
+}
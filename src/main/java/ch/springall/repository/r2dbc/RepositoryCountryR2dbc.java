@@ -2,7 +2,7 @@ package ch.springall.repository.r2dbc;
 
 import ch.springall.entity.Continent;
 import ch.springall.entity.CountryR2DBC;
-import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
@@ -1,5 +1,6 @@
 package ch.springall.security;
 
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
@@ -30,6 +31,8 @@ public class SecurityConfig {
         http.authorizeHttpRequests(auth ->
                 // Permet d'accéder à la page d'accueil sans être authentifié
                         auth.requestMatchers("/home").permitAll().
+                // Santé et métriques Prometheus : lues par le scraper sans login (le port de gestion n'écoute qu'en local)
+                        requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll().
                 // On demande pour toutes les requêtes d'être authentifiées
                         anyRequest().authenticated())
                 .oauth2Login(Customizer.withDefaults());// Page de login personnalisée
@@ -0,0 +1,131 @@
+package ch.springall.service;
+
+import ch.springall.dtos.ChangeEventRecord;
+import ch.springall.dtos.ChangeEventRecord.ChangeType;
+import ch.springall.dtos.ChangeEventRecord.EntityType;
+import ch.springall.support.TransactionCallbacks;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Flux des modifications des directeurs, films et studios (GET /changes) : remplace l'interrogation périodique des endpoints
+// Les événements sont publiés après le commit (ChangeFeedListener pour les entités, les services pour les requêtes en masse)
+// dans un tampon circulaire borné de capacity événements (springall.changes.capacity, puissance de 2) :
+// - écriture : un seul écrivain à la fois (verrou tenu le temps d'écrire une case) ; la case sequence & mask est écrasée
+// - lecture : sans verrou ; une case lue est valide si son numéro est celui attendu, sinon elle a été écrasée entre-temps
+// Un lecteur lent ne bloque jamais les écrivains : s'il a plus de capacity événements de retard, readAfter le signale
+// (Optional vide, métrique springall.changes.overruns) et le client doit se resynchroniser
+// Les numéros repartent de 1 au redémarrage de l'application : un numéro plus grand que le dernier publié est aussi un retard
+@Component
+public class ChangeFeed implements MeterBinder {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<ChangeEventRecord> slots;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Numéro du dernier événement publié : écrit après sa case, une case de numéro <= lastSequence est donc lisible
+    private volatile long lastSequence;
+
+    // Appelés après chaque publication, sur le thread de l'écrivain : ils ne doivent pas bloquer (ex: ChangeStream.wake)
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private final LongAdder overruns = new LongAdder();
+
+    public ChangeFeed(@Value("${springall.changes.capacity:4096}") int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("springall.changes.capacity must be a power of 2: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    // Publie l'événement après le commit de la transaction en cours (immédiatement s'il n'y en a pas)
+    public void publishAfterCommit(EntityType entity, long id, ChangeType type) {
+        TransactionCallbacks.afterCommit(() -> publish(entity, id, type));
+    }
+
+    public void publishAfterCommit(EntityType entity, List<Long> ids, ChangeType type) {
+        TransactionCallbacks.afterCommit(() -> ids.forEach(id -> publish(entity, id, type)));
+    }
+
+    // Ajoute un événement au tampon (écrase le plus ancien si le tampon est plein) ; retourne son numéro
+    public long publish(EntityType entity, long id, ChangeType type) {
+        long sequence;
+        writeLock.lock();
+        try {
+            sequence = lastSequence + 1;
+            slots.set((int) (sequence & mask), new ChangeEventRecord(sequence, entity, id, type, Instant.now()));
+            lastSequence = sequence;
+        } finally {
+            writeLock.unlock();
+        }
+        listeners.forEach(Runnable::run);
+        return sequence;
+    }
+
+    // Au plus max événements de numéro > after, dans l'ordre
+    // Optional vide si des événements attendus ont été écrasés (lecteur trop lent) ou si after est inconnu (redémarrage)
+    public Optional<List<ChangeEventRecord>> readAfter(long after, int max) {
+        long last = lastSequence;
+        if (after > last || after < last - capacity) {
+            overruns.increment();
+            return Optional.empty();
+        }
+        long end = Math.min(last, after + max);
+        List<ChangeEventRecord> events = new ArrayList<>((int) (end - after));
+        for (long sequence = after + 1; sequence <= end; sequence++) {
+            ChangeEventRecord event = slots.get((int) (sequence & mask));
+            if (event == null || event.sequence() != sequence) {
+                // Écrasée par un écrivain pendant la lecture
+                overruns.increment();
+                return Optional.empty();
+            }
+            events.add(event);
+        }
+        return Optional.of(events);
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Abonnement aux publications ; le Runnable retourné désabonne
+    public Runnable subscribe(Runnable listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    public int getSubscriberCount() {
+        return listeners.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("springall.changes.published", this, ChangeFeed::getLastSequence)
+                .description("Number of change events published")
+                .register(registry);
+        FunctionCounter.builder("springall.changes.overruns", overruns, LongAdder::sum)
+                .description("Number of reads that missed overwritten change events (slow consumers)")
+                .register(registry);
+        Gauge.builder("springall.changes.subscribers", this, ChangeFeed::getSubscriberCount)
+                .description("Number of open change streams")
+                .register(registry);
+    }
+}
@@ -0,0 +1,164 @@
+package ch.springall.service;
+
+import ch.springall.dtos.CountryRecord;
+import ch.springall.entity.Continent;
+import ch.springall.mapper.MapperCountry;
+import ch.springall.repository.r2dbc.RepositoryCountryR2dbc;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+//Index en mémoire des pays (données de référence qui ne changent presque jamais)
+// Toute la table country est chargée dans un instantané (Snapshot) immuable :
+// - un EnumMap continent -> liste des pays (findAllByContinent)
+// - une HashMap nom -> pays (findByCountryName)
+// Les lectures ne prennent aucun verrou : elles lisent la référence de l'instantané courant (AtomicReference)
+// et parcourent des collections qui ne sont plus jamais modifiées
+// Un rafraîchissement relit la table avec R2DBC (sans bloquer), construit un nouvel instantané puis remplace l'ancien d'un coup :
+// un lecteur voit soit l'ancien, soit le nouvel instantané, jamais un mélange des deux
+// Rafraîchissements : au démarrage (ApplicationReadyEvent), périodiquement (springall.countries.index.refresh-interval)
+// et après chaque modification faite par ServiceCountry
+@Component
+public class CountryIndex implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CountryIndex.class);
+
+    private final RepositoryCountryR2dbc repositoryCountry;
+    private final MapperCountry mapperCountry;
+    private final Clock clock = Clock.systemUTC();
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+    // Numéro de chaque rafraîchissement, attribué à son démarrage : un rafraîchissement lent ne peut pas remplacer
+    // l'instantané d'un rafraîchissement démarré après lui (qui a vu des données plus récentes)
+    private final AtomicLong refreshSequence = new AtomicLong();
+
+    public CountryIndex(RepositoryCountryR2dbc repositoryCountry, MapperCountry mapperCountry) {
+        this.repositoryCountry = repositoryCountry;
+        this.mapperCountry = mapperCountry;
+    }
+
+    public Snapshot current() {
+        return snapshot.get();
+    }
+
+    // Recharge toute la table ; le Mono émet l'instantané en place à la fin du rafraîchissement
+    // En cas d'erreur (base indisponible), l'ancien instantané est conservé
+    public Mono<Snapshot> refresh() {
+        return Mono.defer(() -> {
+            long sequence = refreshSequence.incrementAndGet();
+            return repositoryCountry.findAll()
+                    .map(mapperCountry::toRecord)
+                    .collectList()
+                    .map(countries -> Snapshot.of(countries, sequence, clock.instant()))
+                    .map(candidate -> snapshot.updateAndGet(current -> candidate.sequence > current.sequence ? candidate : current));
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        refreshInBackground();
+    }
+
+    @Scheduled(initialDelayString = "${springall.countries.index.refresh-interval:10m}",
+            fixedDelayString = "${springall.countries.index.refresh-interval:10m}")
+    public void scheduledRefresh() {
+        refreshInBackground();
+    }
+
+    private void refreshInBackground() {
+        refresh().subscribe(
+                loaded -> logger.debug("Country index loaded: {} countries", loaded.size()),
+                e -> logger.warn("Country index refresh failed, keeping the previous snapshot", e));
+    }
+
+    // Métriques : nombre de pays et âge de l'instantané (secondes depuis le dernier chargement, NaN avant le premier)
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("springall.countries.index.size", this, index -> index.current().size())
+                .description("Number of countries in the in-memory index")
+                .register(registry);
+        TimeGauge.builder("springall.countries.index.age", this, TimeUnit.MILLISECONDS, CountryIndex::ageMillis)
+                .description("Time since the in-memory country index was loaded")
+                .register(registry);
+    }
+
+    private double ageMillis() {
+        Snapshot current = current();
+        return current.isLoaded() ? Duration.between(current.loadedAt, clock.instant()).toMillis() : Double.NaN;
+    }
+
+    // Instantané immuable de la table country
+    public static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new EnumMap<>(Continent.class), Map.of(), List.of(), 0, null);
+
+        private final Map<Continent, List<CountryRecord>> byContinent;
+        private final Map<String, CountryRecord> byName;
+        private final List<CountryRecord> all;
+        private final long sequence;
+        private final Instant loadedAt;
+
+        private Snapshot(Map<Continent, List<CountryRecord>> byContinent, Map<String, CountryRecord> byName,
+                         List<CountryRecord> all, long sequence, Instant loadedAt) {
+            this.byContinent = byContinent;
+            this.byName = byName;
+            this.all = all;
+            this.sequence = sequence;
+            this.loadedAt = loadedAt;
+        }
+
+        static Snapshot of(List<CountryRecord> countries, long sequence, Instant loadedAt) {
+            Map<Continent, List<CountryRecord>> grouped = new EnumMap<>(Continent.class);
+            Map<String, CountryRecord> byName = HashMap.newHashMap(countries.size());
+            for (CountryRecord country : countries) {
+                grouped.computeIfAbsent(country.continent(), c -> new ArrayList<>()).add(country);
+                byName.put(country.countryName(), country);
+            }
+            // Les listes sont figées : l'EnumMap n'est plus modifiée après sa construction, les lecteurs peuvent la partager
+            Map<Continent, List<CountryRecord>> byContinent = new EnumMap<>(Continent.class);
+            grouped.forEach((continent, list) -> byContinent.put(continent, List.copyOf(list)));
+            return new Snapshot(byContinent, Collections.unmodifiableMap(byName), List.copyOf(countries), sequence, loadedAt);
+        }
+
+        // Faux tant que la table n'a jamais été chargée : ServiceCountry lit alors directement la base
+        public boolean isLoaded() {
+            return loadedAt != null;
+        }
+
+        public List<CountryRecord> findAllByContinent(Continent continent) {
+            return byContinent.getOrDefault(continent, List.of());
+        }
+
+        public Optional<CountryRecord> findByCountryName(String countryName) {
+            return Optional.ofNullable(byName.get(countryName));
+        }
+
+        public List<CountryRecord> findAll() {
+            return all;
+        }
+
+        public int size() {
+            return all.size();
+        }
+
+        public Instant loadedAt() {
+            return loadedAt;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package ch.springall.service;
+
+import ch.springall.dtos.TopDirectorRecord;
+import ch.springall.dtos.TopMovieRecord;
+import ch.springall.entity.Genre;
+import ch.springall.repository.jpa.RepositoryDirector;
+import ch.springall.repository.jpa.RepositoryMovie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+//Classements en mémoire pour la page d'accueil : les films les mieux notés de chaque genre et les directeurs
+// dont la note moyenne des films est la plus haute
+// Une lecture parcourt les K premiers éléments d'un ensemble trié (TreeSet) : O(K), sans aller-retour vers la base
+// - films : par genre, un classement borné à CAPACITY films (le double du plus grand K servi, MAX_LIMIT)
+//   tout film hors du classement est moins bien classé que le dernier film du classement
+//   la marge permet d'absorber des suppressions ; si le classement passe sous MAX_LIMIT alors que le genre compte
+//   d'autres films, il est rechargé depuis la base (une requête ORDER BY rating LIMIT CAPACITY)
+// - directeurs : somme et nombre des notes de chaque directeur, mis à jour à chaque film ajouté, modifié ou supprimé,
+//   et un classement trié par moyenne (un directeur sans film n'est pas classé)
+// Pour retirer l'ancienne contribution d'un film modifié ou supprimé, on garde pour chaque film son genre,
+// sa note et son directeur (pas son titre)
+// Construit au démarrage (ApplicationReadyEvent), puis tenu à jour par LeaderboardListener (entity listener JPA de Movie
+// et Director) après le commit : ServiceMovie.addMovie, ServiceDirector.addFilmToDirector, updateDirector, deleteDirectorById...
+// Les opérations en masse de ServiceDirector (UPDATE / DELETE JPQL) ne passent pas par les entity listeners : le service
+// appelle directement directorRemoved et moviesReassigned après le commit
+@Component
+public class Leaderboards {
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 100;
+    static final int CAPACITY = 2 * MAX_LIMIT;
+
+    // Note décroissante, puis id croissant (ordre stable)
+    private static final Comparator<TopMovieRecord> MOVIE_RANKING = Comparator.comparingDouble(TopMovieRecord::rating).reversed()
+            .thenComparing(TopMovieRecord::id);
+    // Moyenne décroissante, puis nombre de films décroissant, puis id croissant
+    private static final Comparator<TopDirectorRecord> DIRECTOR_RANKING = Comparator.comparingDouble(TopDirectorRecord::averageRating).reversed()
+            .thenComparing(Comparator.comparingLong(TopDirectorRecord::movieCount).reversed())
+            .thenComparing(TopDirectorRecord::id);
+
+    private static final Logger logger = LoggerFactory.getLogger(Leaderboards.class);
+
+    private final RepositoryMovie repositoryMovie;
+    private final RepositoryDirector repositoryDirector;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Contribution> movies = new HashMap<>();
+    private final Map<Genre, GenreBoard> genres = new EnumMap<>(Genre.class);
+    private final Map<Long, DirectorTotals> directors = new HashMap<>();
+    private final NavigableSet<TopDirectorRecord> directorRanking = new TreeSet<>(DIRECTOR_RANKING);
+
+    // Pendant le chargement initial, les films et directeurs modifiés par l'application ne sont pas écrasés par la base
+    private volatile boolean loading;
+    private final Set<Long> touchedMovies = ConcurrentHashMap.newKeySet();
+    private final Set<Long> touchedDirectors = ConcurrentHashMap.newKeySet();
+
+    public Leaderboards(RepositoryMovie repositoryMovie, RepositoryDirector repositoryDirector, TransactionTemplate transactionTemplate) {
+        this.repositoryMovie = repositoryMovie;
+        this.repositoryDirector = repositoryDirector;
+        // Les mises à jour arrivent après le commit (afterCommit) : une lecture en base doit ouvrir sa propre transaction
+        this.transactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+        for (Genre genre : Genre.values()) {
+            genres.put(genre, new GenreBoard());
+        }
+    }
+
+    // Ce qu'un film apporte aux classements
+    private record Contribution(Genre genre, double rating, Long directorId) {
+    }
+
+    private static final class GenreBoard {
+        private final NavigableSet<TopMovieRecord> top = new TreeSet<>(MOVIE_RANKING);
+        private final Map<Long, TopMovieRecord> byId = new HashMap<>();
+        // Nombre total de films du genre (dans le classement ou non)
+        private int total;
+        // Incrémenté à chaque modification : un rechargement lu pendant une modification est abandonné
+        private long version;
+    }
+
+    private static final class DirectorTotals {
+        private String firstName;
+        private String lastName;
+        private double sum;
+        private long count;
+        private TopDirectorRecord ranked;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        loading = true;
+        try {
+            long count = transactionTemplate.execute(status -> {
+                try (Stream<RepositoryDirector.NameView> names = repositoryDirector.streamAllNames()) {
+                    names.forEach(d -> {
+                        if (!touchedDirectors.contains(d.getId())) {
+                            putDirector(d.getId(), d.getFirstName(), d.getLastName());
+                        }
+                    });
+                }
+                long loaded = 0;
+                try (Stream<RepositoryMovie.RatingView> ratings = repositoryMovie.streamAllRatings()) {
+                    for (RepositoryMovie.RatingView m : (Iterable<RepositoryMovie.RatingView>) ratings::iterator) {
+                        if (!touchedMovies.contains(m.getId())) {
+                            putMovie(m.getId(), m.getTitle(), m.getGenre(), m.getRating(), m.getDirectorId());
+                            loaded++;
+                        }
+                    }
+                }
+                return loaded;
+            });
+            logger.info("Leaderboards loaded: {} movies, {} directors", count, directors.size());
+        } finally {
+            loading = false;
+            touchedMovies.clear();
+            touchedDirectors.clear();
+        }
+    }
+
+    // Film ajouté ou modifié (l'ancienne contribution éventuelle est retirée)
+    public void movieSaved(long id, String title, Genre genre, double rating, Long directorId) {
+        if (loading) {
+            touchedMovies.add(id);
+        }
+        refillIfNeeded(putMovie(id, title, genre, rating, directorId));
+    }
+
+    public void movieRemoved(long id) {
+        if (loading) {
+            touchedMovies.add(id);
+        }
+        Genre genre;
+        lock.writeLock().lock();
+        try {
+            genre = removeMovie(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        refillIfNeeded(genre);
+    }
+
+    // Directeur ajouté ou renommé
+    public void directorSaved(long id, String firstName, String lastName) {
+        if (loading) {
+            touchedDirectors.add(id);
+        }
+        putDirector(id, firstName, lastName);
+    }
+
+    // Ses films ont déjà été supprimés ou détachés (la clé étrangère movie.director_id l'impose)
+    public void directorRemoved(long id) {
+        if (loading) {
+            touchedDirectors.add(id);
+        }
+        lock.writeLock().lock();
+        try {
+            DirectorTotals totals = directors.remove(id);
+            if (totals != null && totals.ranked != null) {
+                directorRanking.remove(totals.ranked);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Tous les films d'un directeur passent à un autre (ServiceDirector.reassignMovies, UPDATE en masse sans entity listener)
+    // Les notes ne changent pas : seuls le directeur des contributions et des entrées des classements, et les totaux, sont mis à jour
+    // Parcourt toutes les contributions (pas d'index par directeur) : opération rare, O(nombre de films) sous le verrou
+    public void moviesReassigned(long fromDirectorId, long toDirectorId) {
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<Long, Contribution> e : movies.entrySet()) {
+                Contribution contribution = e.getValue();
+                if (contribution.directorId() == null || contribution.directorId() != fromDirectorId) {
+                    continue;
+                }
+                if (loading) {
+                    touchedMovies.add(e.getKey());
+                }
+                e.setValue(new Contribution(contribution.genre(), contribution.rating(), toDirectorId));
+                GenreBoard board = genres.get(contribution.genre());
+                TopMovieRecord entry = board.byId.get(e.getKey());
+                if (entry != null) {
+                    // Le classement ne dépend pas du directeur : l'entrée remplacée garde sa place
+                    TopMovieRecord moved = new TopMovieRecord(entry.id(), entry.title(), entry.genre(), entry.rating(), toDirectorId);
+                    board.top.remove(entry);
+                    board.top.add(moved);
+                    board.byId.put(moved.id(), moved);
+                }
+            }
+            DirectorTotals from = directors.get(fromDirectorId);
+            if (from != null && from.count > 0) {
+                DirectorTotals to = directors.computeIfAbsent(toDirectorId, d -> new DirectorTotals());
+                to.sum += from.sum;
+                to.count += from.count;
+                from.sum = 0;
+                from.count = 0;
+                rank(fromDirectorId, from);
+                rank(toDirectorId, to);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putDirector(long id, String firstName, String lastName) {
+        lock.writeLock().lock();
+        try {
+            DirectorTotals totals = directors.computeIfAbsent(id, d -> new DirectorTotals());
+            totals.firstName = firstName;
+            totals.lastName = lastName;
+            rank(id, totals);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Retourne le genre dont le classement a perdu un film (à recharger si nécessaire), sinon null
+    private Genre putMovie(long id, String title, Genre genre, double rating, Long directorId) {
+        lock.writeLock().lock();
+        try {
+            Genre previousGenre = removeMovie(id);
+            movies.put(id, new Contribution(genre, rating, directorId));
+
+            GenreBoard board = genres.get(genre);
+            board.total++;
+            board.version++;
+            TopMovieRecord entry = new TopMovieRecord(id, title, genre, rating, directorId);
+            // Hors du classement complet et moins bien classé que son dernier film : le film n'y entre pas
+            if (board.top.size() < CAPACITY || MOVIE_RANKING.compare(entry, board.top.last()) < 0) {
+                board.top.add(entry);
+                board.byId.put(id, entry);
+                if (board.top.size() > CAPACITY) {
+                    board.byId.remove(board.top.pollLast().id());
+                }
+            }
+
+            if (directorId != null) {
+                DirectorTotals totals = directors.computeIfAbsent(directorId, d -> new DirectorTotals());
+                totals.sum += rating;
+                totals.count++;
+                rank(directorId, totals);
+            }
+            return previousGenre;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Appelé sous le verrou d'écriture ; retourne le genre de l'ancienne contribution (null si le film était inconnu)
+    private Genre removeMovie(long id) {
+        Contribution previous = movies.remove(id);
+        if (previous == null) {
+            return null;
+        }
+        GenreBoard board = genres.get(previous.genre());
+        board.total--;
+        board.version++;
+        TopMovieRecord entry = board.byId.remove(id);
+        if (entry != null) {
+            board.top.remove(entry);
+        }
+        if (previous.directorId() != null) {
+            DirectorTotals totals = directors.get(previous.directorId());
+            if (totals != null) {
+                totals.sum -= previous.rating();
+                totals.count--;
+                rank(previous.directorId(), totals);
+            }
+        }
+        return previous.genre();
+    }
+
+    // Appelé sous le verrou d'écriture : remplace l'entrée du directeur dans le classement
+    private void rank(long id, DirectorTotals totals) {
+        if (totals.ranked != null) {
+            directorRanking.remove(totals.ranked);
+            totals.ranked = null;
+        }
+        if (totals.count > 0) {
+            totals.ranked = new TopDirectorRecord(id, totals.firstName, totals.lastName, totals.count, totals.sum / totals.count);
+            directorRanking.add(totals.ranked);
+        }
+    }
+
+    // Le classement d'un genre est rechargé depuis la base s'il ne contient plus assez de films pour servir MAX_LIMIT
+    private void refillIfNeeded(Genre genre) {
+        if (genre == null) {
+            return;
+        }
+        long version;
+        lock.readLock().lock();
+        try {
+            GenreBoard board = genres.get(genre);
+            if (board.top.size() >= MAX_LIMIT || board.total <= board.top.size()) {
+                return;
+            }
+            version = board.version;
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<TopMovieRecord> top = transactionTemplate.execute(status -> repositoryMovie.findTopRated(genre, Limit.of(CAPACITY)));
+        lock.writeLock().lock();
+        try {
+            GenreBoard board = genres.get(genre);
+            // Une modification est arrivée pendant la lecture : le résultat est peut-être déjà périmé, la prochaine suppression relancera
+            if (board.version == version) {
+                board.top.clear();
+                board.byId.clear();
+                for (TopMovieRecord entry : top) {
+                    board.top.add(entry);
+                    board.byId.put(entry.id(), entry);
+                }
+                logger.debug("Leaderboard of genre {} refilled from the database: {} movies", genre, top.size());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Les "limit" films les mieux notés du genre
+    public List<TopMovieRecord> topMovies(Genre genre, int limit) {
+        lock.readLock().lock();
+        try {
+            return genres.get(genre).top.stream().limit(limit).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Les "limit" directeurs dont la note moyenne est la plus haute
+    public List<TopDirectorRecord> topDirectors(int limit) {
+        lock.readLock().lock();
+        try {
+            return directorRanking.stream().limit(limit).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
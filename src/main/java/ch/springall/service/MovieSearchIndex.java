@@ -0,0 +1,362 @@
+package ch.springall.service;
+
+import ch.springall.dtos.MovieSearchResult;
+import ch.springall.entity.Genre;
+import ch.springall.repository.jpa.RepositoryMovie;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+//Moteur de recherche plein texte des titres de films, en mémoire
+// Index inversé : chaque mot (terme) d'un titre pointe vers les ids des films qui le contiennent
+// Les mots sont normalisés (minuscules, sans accents) : "Amélie" et "amelie" sont le même terme
+// Tolérance aux fautes de frappe : chaque terme du vocabulaire est découpé en trigrammes ("$pu", "pul", "ulp", "lp$")
+// un mot de la requête est rapproché des termes qui partagent le plus de trigrammes avec lui (coefficient de Dice)
+// Pour chaque mot de la requête, on retient aussi les termes qui commencent par ce mot (recherche pendant la saisie)
+// Tous les mots de la requête doivent correspondre (ET) ; le score d'un film est la somme, pour chaque mot,
+// de la similarité du meilleur terme trouvé x son idf (un mot rare compte plus qu'un mot fréquent), divisée par la racine
+// du nombre de mots du titre (à correspondance égale, un titre court est plus pertinent)
+// L'index est construit au démarrage (ApplicationReadyEvent) puis tenu à jour par MovieSearchListener
+// (entity listener JPA de Movie) après le commit de chaque insertion, modification ou suppression
+// Les recherches se font en parallèle (verrou de lecture), une mise à jour prend le verrou d'écriture quelques microsecondes
+// Coût borné : au plus MAX_CANDIDATES films sont examinés par recherche, même pour un mot très fréquent ("the"),
+// et SHORT_PREFIX_MAX_CANDIDATES pour un préfixe d'une ou deux lettres dont les termes couvrent une grande partie des titres ; au-delà, le résultat
+// est le meilleur parmi les candidats examinés (correspondances exactes d'abord), la recherche est comptée comme tronquée
+@Component
+public class MovieSearchIndex implements MeterBinder {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    // Termes du vocabulaire retenus au plus pour un mot de la requête (préfixe + fautes de frappe)
+    static final int MAX_EXPANSIONS = 32;
+    // Films examinés au plus par recherche (candidats du mot le plus sélectif)
+    public static final int MAX_CANDIDATES = 1_000;
+    // Limite plus basse quand le mot le plus sélectif n'a qu'une ou deux lettres (début de saisie) : ses termes
+    // couvrent une grande partie des titres, chaque candidat est un film différent à lire (1 000 dépassent 1 ms à 1 000 000 de titres)
+    static final int SHORT_PREFIX_LENGTH = 2;
+    public static final int SHORT_PREFIX_MAX_CANDIDATES = 250;
+    // Similarité minimale (Dice sur les trigrammes) pour qu'un terme soit considéré comme une faute de frappe du mot cherché
+    static final double MIN_SIMILARITY = 0.5;
+    // Poids d'une correspondance par préfixe ou approchée, par rapport à un mot identique (1.0)
+    static final double PREFIX_WEIGHT = 0.9;
+    static final double FUZZY_WEIGHT = 0.8;
+
+    // Ordre des résultats : score décroissant, puis id croissant (ordre stable entre deux recherches)
+    private static final Comparator<MovieSearchResult> RANKING = Comparator.comparingDouble(MovieSearchResult::score).reversed()
+            .thenComparing(MovieSearchResult::id);
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private static final Logger logger = LoggerFactory.getLogger(MovieSearchIndex.class);
+
+    private final RepositoryMovie repositoryMovie;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Document> documents = new HashMap<>();
+    // Trié : les termes qui commencent par un préfixe sont une sous-partie contiguë (subMap)
+    private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+
+    // Pendant le chargement initial, les films modifiés par l'application ne sont pas écrasés par la version lue en base
+    private volatile boolean loading;
+    private final Set<Long> touchedWhileLoading = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder truncated = new LongAdder();
+
+    public MovieSearchIndex(RepositoryMovie repositoryMovie, TransactionTemplate transactionTemplate) {
+        this.repositoryMovie = repositoryMovie;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    private record Document(long id, String title, Genre genre, List<String> terms) {
+    }
+
+    private record Expansion(String term, double weight, Set<Long> ids) {
+    }
+
+    // Chargement initial : les films sont lus en flux (projection id, titre, genre) sans charger les entités
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        loading = true;
+        try {
+            long count = transactionTemplate.execute(status -> {
+                long loaded = 0;
+                try (Stream<RepositoryMovie.TitleView> movies = repositoryMovie.streamAllTitles()) {
+                    for (RepositoryMovie.TitleView movie : (Iterable<RepositoryMovie.TitleView>) movies::iterator) {
+                        if (!touchedWhileLoading.contains(movie.getId())) {
+                            index(movie.getId(), movie.getTitle(), movie.getGenre());
+                            loaded++;
+                        }
+                    }
+                }
+                return loaded;
+            });
+            logger.info("Movie search index loaded: {} titles", count);
+        } finally {
+            loading = false;
+            touchedWhileLoading.clear();
+        }
+    }
+
+    // Ajoute ou remplace un film
+    public void put(long id, String title, Genre genre) {
+        if (loading) {
+            touchedWhileLoading.add(id);
+        }
+        index(id, title, genre);
+    }
+
+    public void remove(long id) {
+        if (loading) {
+            touchedWhileLoading.add(id);
+        }
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(long id, String title, Genre genre) {
+        List<String> terms = tokenize(title);
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+            documents.put(id, new Document(id, title, genre, terms));
+            for (String term : terms) {
+                postings.computeIfAbsent(term, t -> {
+                    for (String trigram : trigrams(t)) {
+                        trigrams.computeIfAbsent(trigram, g -> new HashSet<>()).add(t);
+                    }
+                    return new HashSet<>();
+                }).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Appelé sous le verrou d'écriture ; un terme qui n'a plus aucun film sort du vocabulaire
+    private void unindex(long id) {
+        Document previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms()) {
+            Set<Long> ids = postings.get(term);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(term);
+                for (String trigram : trigrams(term)) {
+                    Set<String> terms = trigrams.get(trigram);
+                    if (terms != null && terms.remove(term) && terms.isEmpty()) {
+                        trigrams.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    // Recherche : les films dont le titre contient tous les mots de la requête (ou un terme proche), du plus au moins pertinent
+    // genre : filtre optionnel (null = tous les genres)
+    public List<MovieSearchResult> search(String query, Genre genre, int limit) {
+        List<String> queryTerms = tokenize(query).stream().distinct().toList();
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<List<Expansion>> expansions = new ArrayList<>(queryTerms.size());
+            for (String queryTerm : queryTerms) {
+                List<Expansion> termExpansions = expand(queryTerm);
+                if (termExpansions.isEmpty()) {
+                    return List.of();
+                }
+                expansions.add(termExpansions);
+            }
+            // Le mot le plus sélectif fournit les candidats ; pour les autres, on teste seulement l'appartenance des candidats
+            int driving = 0;
+            for (int i = 1; i < expansions.size(); i++) {
+                if (postingSize(expansions.get(i)) < postingSize(expansions.get(driving))) {
+                    driving = i;
+                }
+            }
+            int maxCandidates = queryTerms.get(driving).length() <= SHORT_PREFIX_LENGTH ? SHORT_PREFIX_MAX_CANDIDATES : MAX_CANDIDATES;
+            expansions.sort(Comparator.comparingLong(MovieSearchIndex::postingSize));
+            // Premier passage sur ses listes de films, termes du meilleur au moins bon (similarité x idf) :
+            // un candidat garde le score de la première correspondance trouvée, la meilleure ; à maxCandidates candidats
+            // le passage s'arrête, ce sont les correspondances les moins bonnes qui ne sont pas examinées
+            double documentCount = documents.size();
+            List<Expansion> drivingExpansions = new ArrayList<>(expansions.getFirst());
+            drivingExpansions.sort(Comparator.comparingDouble((Expansion expansion) -> termScore(documentCount, expansion)).reversed());
+            Map<Long, Double> candidates = new HashMap<>();
+            scan:
+            for (Expansion expansion : drivingExpansions) {
+                double termScore = termScore(documentCount, expansion);
+                for (Long id : expansion.ids()) {
+                    if (candidates.size() >= maxCandidates && !candidates.containsKey(id)) {
+                        truncated.increment();
+                        break scan;
+                    }
+                    candidates.putIfAbsent(id, termScore);
+                }
+            }
+
+            // Tas des "limit" meilleurs résultats : la tête est le moins bon, remplacé dès qu'un meilleur film arrive
+            PriorityQueue<MovieSearchResult> best = new PriorityQueue<>(RANKING.reversed());
+            List<List<Expansion>> otherExpansions = expansions.subList(1, expansions.size());
+            for (Map.Entry<Long, Double> candidate : candidates.entrySet()) {
+                Long id = candidate.getKey();
+                Document document = documents.get(id);
+                if (genre != null && document.genre() != genre) {
+                    continue;
+                }
+                double score = candidate.getValue();
+                for (List<Expansion> termExpansions : otherExpansions) {
+                    double termScore = 0;
+                    for (Expansion expansion : termExpansions) {
+                        if (expansion.ids().contains(id)) {
+                            termScore = Math.max(termScore, termScore(documentCount, expansion));
+                        }
+                    }
+                    if (termScore == 0) {
+                        score = 0;
+                        break;
+                    }
+                    score += termScore;
+                }
+                if (score > 0) {
+                    MovieSearchResult result = new MovieSearchResult(id, document.title(), document.genre(),
+                            score / Math.sqrt(document.terms().size()));
+                    if (best.size() < limit) {
+                        best.add(result);
+                    } else if (RANKING.compare(result, best.peek()) < 0) {
+                        best.poll();
+                        best.add(result);
+                    }
+                }
+            }
+            List<MovieSearchResult> results = new ArrayList<>(best);
+            results.sort(RANKING);
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Termes du vocabulaire qui correspondent à un mot de la requête : identique, commence par le mot, ou proche (trigrammes)
+    private List<Expansion> expand(String queryTerm) {
+        Map<String, Double> weights = new HashMap<>();
+        if (postings.containsKey(queryTerm)) {
+            weights.put(queryTerm, 1.0);
+        }
+        for (String term : postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false).keySet()) {
+            if (weights.size() >= MAX_EXPANSIONS) {
+                break;
+            }
+            weights.put(term, PREFIX_WEIGHT);
+        }
+        if (queryTerm.length() >= 3) {
+            List<String> queryTrigrams = trigrams(queryTerm);
+            Map<String, Integer> shared = new HashMap<>();
+            for (String trigram : queryTrigrams) {
+                for (String term : trigrams.getOrDefault(trigram, Set.of())) {
+                    shared.merge(term, 1, Integer::sum);
+                }
+            }
+            shared.entrySet().stream()
+                    .map(e -> Map.entry(e.getKey(), 2.0 * e.getValue() / (queryTrigrams.size() + e.getKey().length())))
+                    .filter(e -> e.getValue() >= MIN_SIMILARITY)
+                    .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                    .limit(MAX_EXPANSIONS)
+                    .forEach(e -> weights.merge(e.getKey(), FUZZY_WEIGHT * e.getValue(), Math::max));
+        }
+        List<Expansion> expansions = new ArrayList<>(weights.size());
+        weights.forEach((term, weight) -> expansions.add(new Expansion(term, weight, postings.get(term))));
+        return expansions;
+    }
+
+    private static long postingSize(List<Expansion> expansions) {
+        long size = 0;
+        for (Expansion expansion : expansions) {
+            size += expansion.ids().size();
+        }
+        return size;
+    }
+
+    private static double termScore(double documentCount, Expansion expansion) {
+        return expansion.weight() * idf(documentCount, expansion.ids().size());
+    }
+
+    private static double idf(double documentCount, int documentFrequency) {
+        return Math.log(1 + documentCount / documentFrequency);
+    }
+
+    // "L'Amélie-Poulain 2" -> [l, amelie, poulain, 2]
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        List<String> terms = new ArrayList<>();
+        for (String term : SEPARATORS.split(normalized)) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    // Trigrammes d'un terme entouré de '$' (début et fin de mot) : un terme de n lettres en a n
+    static List<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        List<String> result = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    // Nombre de recherches arrêtées à MAX_CANDIDATES (ou SHORT_PREFIX_MAX_CANDIDATES) films examinés
+    public long getTruncatedCount() {
+        return truncated.sum();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("springall.movies.search.size", this, MovieSearchIndex::size)
+                .description("Number of movie titles in the in-memory search index")
+                .register(registry);
+        FunctionCounter.builder("springall.movies.search.truncated", this, MovieSearchIndex::getTruncatedCount)
+                .description("Number of searches stopped after examining the maximum number of candidate movies")
+                .register(registry);
+    }
+}
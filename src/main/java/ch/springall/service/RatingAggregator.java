@@ -0,0 +1,357 @@
+package ch.springall.service;
+
+import ch.springall.config.CacheConfig;
+import ch.springall.dtos.ChangeEventRecord.ChangeType;
+import ch.springall.dtos.ChangeEventRecord.EntityType;
+import ch.springall.entity.Movie;
+import ch.springall.repository.jpa.RepositoryMovie;
+import ch.springall.repository.jpa.RepositoryStudio;
+import ch.springall.support.TransactionCallbacks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Ingestion des votes des utilisateurs (POST /movies/ratings) : plusieurs milliers de votes par seconde
+// Un vote n'est pas écrit en base : il est ajouté à l'accumulateur du film, en mémoire et sans verrou
+// - un LongAdder par film : les threads qui votent pour le même film (film "chaud") écrivent dans des cellules
+//   différentes (striping), sans se disputer une même variable
+// - un vote = une seule addition de (1 << 32) + note en dixièmes : le nombre de votes (32 bits de poids fort)
+//   et la somme des notes (32 bits de poids faible) restent toujours appariés
+// Toutes les springall.ratings.flush-interval, flush() vide les accumulateurs et écrit un seul lot JDBC
+// (un UPDATE paramétré par film, envoyé en batch) dans une transaction :
+//   rating = (rating * vote_count + somme) / (vote_count + n), vote_count += n, version += 1
+// -> une écriture par film et par intervalle au lieu d'une transaction par vote, pas de verrou de ligne tenu par vote
+// Après le commit : cache de second niveau (Movie), Records des directeurs avec leurs films et classements mis à jour,
+// un événement UPDATED par film dans le flux des modifications (ChangeFeed)
+// Rien n'est perdu :
+// - LongAdder.sumThenReset remet chaque cellule à zéro atomiquement : un vote concurrent est lu maintenant ou au flush suivant
+// - un accumulateur resté vide pendant un intervalle est retiré ; un vote arrivé dans un accumulateur retiré
+//   est récupéré par le thread qui votait (ou par le flush) et ajouté au nouvel accumulateur
+// - si l'écriture échoue, les votes lus sont remis dans les accumulateurs pour le flush suivant
+// - à l'arrêt (SmartLifecycle, après le serveur web), les nouveaux votes sont refusés et un dernier flush est fait
+// Votes abandonnés (métrique springall.ratings.dropped, tag reason) : trop de films en attente (overflow),
+// application en cours d'arrêt (shutdown), film inconnu ou supprimé au moment du flush (unknown-movie)
+@Component
+public class RatingAggregator implements SmartLifecycle, MeterBinder {
+
+    // Notes de 0 à 10, arrondies au dixième
+    public static final double MIN_RATING = 0.0;
+    public static final double MAX_RATING = 10.0;
+
+    // Nombre maximum de films par lot JDBC et par requête IN
+    static final int BATCH_SIZE = 1000;
+
+    private static final int COUNT_SHIFT = 32;
+    private static final long SUM_MASK = (1L << COUNT_SHIFT) - 1;
+
+    private static final String UPDATE_RATING = "UPDATE movie SET rating = (rating * vote_count + ?) / (vote_count + ?), " +
+            "vote_count = vote_count + ?, version = version + 1 WHERE id = ?";
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingAggregator.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RepositoryMovie repositoryMovie;
+    private final RepositoryStudio repositoryStudio;
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheManager cacheManager;
+    private final Leaderboards leaderboards;
+    private final ChangeFeed changeFeed;
+    private final int maxPendingMovies;
+
+    private final ConcurrentHashMap<Long, LongAdder> accumulators = new ConcurrentHashMap<>();
+    // Instant (System.nanoTime) du plus ancien vote pas encore écrit, 0 si aucun
+    private final AtomicLong oldestPending = new AtomicLong();
+    // Un seul flush à la fois (flush planifié et flush de l'arrêt)
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile boolean accepting;
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final Map<String, LongAdder> dropped = new ConcurrentHashMap<>();
+    private volatile Timer flushTimer;
+    private volatile Timer lagTimer;
+    private volatile Counter flushFailures;
+
+    public RatingAggregator(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, RepositoryMovie repositoryMovie,
+                            RepositoryStudio repositoryStudio, EntityManagerFactory entityManagerFactory, CacheManager cacheManager, Leaderboards leaderboards,
+                            ChangeFeed changeFeed, @Value("${springall.ratings.max-pending-movies:100000}") int maxPendingMovies) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.repositoryMovie = repositoryMovie;
+        this.repositoryStudio = repositoryStudio;
+        this.entityManagerFactory = entityManagerFactory;
+        this.cacheManager = cacheManager;
+        this.leaderboards = leaderboards;
+        this.changeFeed = changeFeed;
+        this.maxPendingMovies = maxPendingMovies;
+    }
+
+    // Ajoute un vote ; false s'il est abandonné (arrêt en cours ou trop de films en attente)
+    // La note doit être comprise entre MIN_RATING et MAX_RATING (vérifié par l'appelant)
+    public boolean add(long movieId, double rating) {
+        received.increment();
+        if (!accepting) {
+            drop("shutdown", 1);
+            return false;
+        }
+        long tenths = Math.round(Math.clamp(rating, MIN_RATING, MAX_RATING) * 10);
+        if (!add(movieId, (1L << COUNT_SHIFT) + tenths)) {
+            drop("overflow", 1);
+            return false;
+        }
+        long now = System.nanoTime();
+        if (oldestPending.get() == 0) {
+            oldestPending.compareAndSet(0, now == 0 ? 1 : now);
+        }
+        return true;
+    }
+
+    // Ajoute une valeur codée (n votes, somme) à l'accumulateur du film
+    private boolean add(long movieId, long packed) {
+        while (true) {
+            LongAdder accumulator = accumulators.get(movieId);
+            if (accumulator == null) {
+                if (accumulators.size() >= maxPendingMovies) {
+                    return false;
+                }
+                accumulator = accumulators.computeIfAbsent(movieId, id -> new LongAdder());
+            }
+            accumulator.add(packed);
+            if (accumulators.get(movieId) == accumulator) {
+                return true;
+            }
+            // L'accumulateur a été retiré par un flush pendant l'ajout : ce qui n'a pas été lu par le flush est repris ici
+            packed = accumulator.sumThenReset();
+            if (packed == 0) {
+                return true;
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${springall.ratings.flush-interval:1s}",
+            fixedDelayString = "${springall.ratings.flush-interval:1s}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.warn("Rating flush failed, votes kept for the next flush", e);
+        }
+    }
+
+    // Écrit tous les votes en attente ; retourne le nombre de votes écrits
+    public long flush() {
+        flushLock.lock();
+        try {
+            long since = oldestPending.getAndSet(0);
+            Map<Long, Long> batch = drain();
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            long start = System.nanoTime();
+            try {
+                long written = write(batch);
+                long end = System.nanoTime();
+                if (flushTimer != null) {
+                    flushTimer.record(end - start, TimeUnit.NANOSECONDS);
+                    if (since != 0) {
+                        lagTimer.record(end - since, TimeUnit.NANOSECONDS);
+                    }
+                }
+                logger.debug("Ratings flushed: {} votes on {} movies in {} ms", written, batch.size(),
+                        TimeUnit.NANOSECONDS.toMillis(end - start));
+                return written;
+            } catch (RuntimeException e) {
+                // Transaction annulée : les votes retournent dans les accumulateurs, avec l'ancienneté du plus ancien
+                batch.forEach((movieId, packed) -> {
+                    if (!add(movieId, packed)) {
+                        drop("overflow", packed >>> COUNT_SHIFT);
+                    }
+                });
+                if (since != 0) {
+                    oldestPending.accumulateAndGet(since, (current, old) -> current == 0 || old - current < 0 ? old : current);
+                }
+                if (flushFailures != null) {
+                    flushFailures.increment();
+                }
+                throw e;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Lit et remet à zéro chaque accumulateur ; ceux qui n'avaient rien reçu depuis le flush précédent sont retirés
+    private Map<Long, Long> drain() {
+        Map<Long, Long> batch = new HashMap<>();
+        for (Map.Entry<Long, LongAdder> e : accumulators.entrySet()) {
+            long packed = e.getValue().sumThenReset();
+            if (packed == 0 && accumulators.remove(e.getKey(), e.getValue())) {
+                // Un vote a pu arriver entre la lecture et le retrait : il est lu ici (ou repris par le thread qui votait)
+                packed = e.getValue().sumThenReset();
+            }
+            if (packed != 0) {
+                batch.put(e.getKey(), packed);
+            }
+        }
+        return batch;
+    }
+
+    private long write(Map<Long, Long> batch) {
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(batch.entrySet());
+        List<RepositoryMovie.RatingView> ratings = new ArrayList<>(entries.size());
+        // [0] votes écrits, [1] votes d'un film inconnu : comptés seulement si la transaction est validée
+        long[] totals = transactionTemplate.execute(status -> {
+            // Un seul aller-retour par paquet de BATCH_SIZE films (JDBC batch), dans la transaction de JPA
+            int[][] counts = jdbcTemplate.batchUpdate(UPDATE_RATING, entries, BATCH_SIZE, (ps, entry) -> {
+                long packed = entry.getValue();
+                long votes = packed >>> COUNT_SHIFT;
+                ps.setDouble(1, (packed & SUM_MASK) / 10.0);
+                ps.setLong(2, votes);
+                ps.setLong(3, votes);
+                ps.setLong(4, entry.getKey());
+            });
+            long[] result = new long[2];
+            int i = 0;
+            for (int[] chunk : counts) {
+                for (int count : chunk) {
+                    long votes = entries.get(i++).getValue() >>> COUNT_SHIFT;
+                    // 0 ligne : film supprimé ou inconnu ; les pilotes qui ne renvoient pas le nombre (SUCCESS_NO_INFO) comptent comme écrits
+                    result[count == 0 ? 1 : 0] += votes;
+                }
+            }
+            // Nouvelles notes, lues dans la même transaction : pour les classements et les caches
+            List<Long> ids = entries.stream().map(Map.Entry::getKey).toList();
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                ratings.addAll(repositoryMovie.findRatingsByIdIn(ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()))));
+            }
+            // Les Records d'un directeur avec ses films et de ses studios contiennent les notes
+            // (invalidés après le commit, CacheManager transactionnel) ; une requête pour les studios de ces directeurs
+            Cache directorsWithMovies = cacheManager.getCache(CacheConfig.DIRECTORS_WITH_MOVIES);
+            List<Long> directorIds = ratings.stream().map(RepositoryMovie.RatingView::getDirectorId).filter(Objects::nonNull)
+                    .distinct().toList();
+            directorIds.forEach(directorsWithMovies::evict);
+            if (!directorIds.isEmpty()) {
+                Cache studios = cacheManager.getCache(CacheConfig.STUDIOS);
+                repositoryStudio.findIdsByDirectorIdIn(directorIds).forEach(studios::evict);
+            }
+            TransactionCallbacks.afterCommit(() -> {
+                // Le lot JDBC ne passe pas par Hibernate : les films en cache de second niveau sont retirés
+                jakarta.persistence.Cache cache = entityManagerFactory.getCache();
+                for (RepositoryMovie.RatingView rating : ratings) {
+                    cache.evict(Movie.class, rating.getId());
+                    leaderboards.movieSaved(rating.getId(), rating.getTitle(), rating.getGenre(), rating.getRating(), rating.getDirectorId());
+                    changeFeed.publish(EntityType.MOVIE, rating.getId(), ChangeType.UPDATED);
+                }
+            });
+            return result;
+        });
+        flushed.add(totals[0]);
+        if (totals[1] > 0) {
+            drop("unknown-movie", totals[1]);
+        }
+        return totals[0];
+    }
+
+    private void drop(String reason, long votes) {
+        dropped.computeIfAbsent(reason, r -> new LongAdder()).add(votes);
+    }
+
+    public long getReceivedCount() {
+        return received.sum();
+    }
+
+    public long getFlushedCount() {
+        return flushed.sum();
+    }
+
+    public long getDroppedCount(String reason) {
+        LongAdder count = dropped.get(reason);
+        return count == null ? 0 : count.sum();
+    }
+
+    // Nombre de films qui ont des votes en attente (ou un accumulateur pas encore retiré)
+    public int getPendingMovies() {
+        return accumulators.size();
+    }
+
+    // Arrêt après le serveur web (WebServerStartStopLifecycle, DEFAULT_PHASE - 2048) : plus aucune requête n'arrive
+    // pendant le dernier flush, et la base (fermée à la destruction des beans) est encore disponible
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    @Override
+    public void start() {
+        accepting = true;
+    }
+
+    @Override
+    public void stop() {
+        accepting = false;
+        try {
+            long written = flush();
+            logger.info("Rating aggregator stopped, last flush: {} votes", written);
+        } catch (RuntimeException e) {
+            logger.error("Last rating flush failed at shutdown: votes of {} movies are lost", accumulators.size(), e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return accepting;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("springall.ratings.received", this, RatingAggregator::getReceivedCount)
+                .description("Number of rating votes received")
+                .register(registry);
+        FunctionCounter.builder("springall.ratings.flushed", this, RatingAggregator::getFlushedCount)
+                .description("Number of rating votes written to the database")
+                .register(registry);
+        for (String reason : List.of("overflow", "shutdown", "unknown-movie")) {
+            FunctionCounter.builder("springall.ratings.dropped", this, aggregator -> aggregator.getDroppedCount(reason))
+                    .description("Number of rating votes dropped")
+                    .tag("reason", reason)
+                    .register(registry);
+        }
+        Gauge.builder("springall.ratings.pending.movies", this, RatingAggregator::getPendingMovies)
+                .description("Number of movies with rating votes waiting for the next flush")
+                .register(registry);
+        flushFailures = Counter.builder("springall.ratings.flush.failures")
+                .description("Number of rating flushes rolled back (votes kept for the next flush)")
+                .register(registry);
+        flushTimer = Timer.builder("springall.ratings.flush")
+                .description("Time to write one batch of rating votes")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        // Ingestion lag : ancienneté du plus ancien vote d'un lot au moment où le lot est écrit
+        lagTimer = Timer.builder("springall.ratings.lag")
+                .description("Time between the oldest vote of a batch and the end of its flush")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+}
@@ -0,0 +1,80 @@
+package ch.springall.service;
+
+import ch.springall.dtos.CountryRecord;
+import ch.springall.entity.Continent;
+import ch.springall.exceptions.ResourceNotFoundException;
+import ch.springall.mapper.MapperCountry;
+import ch.springall.repository.r2dbc.RepositoryCountryR2dbc;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//Service réactif pour les pays (R2DBC) : aucune méthode ne bloque, elles retournent toutes un Flux ou un Mono
+// Les lectures sont servies par l'index en mémoire (CountryIndex), sans aller-retour vers la base
+// Tant que l'index n'est pas chargé (démarrage), elles sont faites en base : la requête SQL n'est exécutée
+// qu'au moment où le contrôleur (Spring MVC) s'abonne au résultat
+// Les connexions viennent du pool R2DBC (r2dbc-pool, spring.r2dbc.pool.*) : une connexion est rendue au pool
+// dès que le Flux est terminé ou annulé (client déconnecté)
+@Service
+public class ServiceCountry {
+
+    // Backpressure : le client HTTP (NDJSON, SSE) demande les éléments un par un au fur et à mesure de l'écriture,
+    // limitRate transmet cette demande à R2DBC par lots de FETCH_SIZE lignes au lieu d'une demande illimitée
+    // -> au plus FETCH_SIZE pays sont en attente en mémoire, quel que soit le nombre de lignes
+    public static final int FETCH_SIZE = 128;
+
+    private final RepositoryCountryR2dbc repositoryCountry;
+    private final MapperCountry mapperCountry;
+    private final CountryIndex countryIndex;
+
+    public ServiceCountry(RepositoryCountryR2dbc repositoryCountry, MapperCountry mapperCountry, CountryIndex countryIndex) {
+        this.repositoryCountry = repositoryCountry;
+        this.mapperCountry = mapperCountry;
+        this.countryIndex = countryIndex;
+    }
+
+    // Flux.defer : l'instantané de l'index est lu au moment de l'abonnement, pas à l'appel de la méthode
+    public Flux<CountryRecord> findAllCountries() {
+        return Flux.defer(() -> {
+            CountryIndex.Snapshot snapshot = countryIndex.current();
+            if (snapshot.isLoaded()) {
+                return Flux.fromIterable(snapshot.findAll());
+            }
+            return repositoryCountry.findAll()
+                    .limitRate(FETCH_SIZE)
+                    .map(mapperCountry::toRecord);
+        });
+    }
+
+    public Flux<CountryRecord> findCountriesByContinent(Continent continent) {
+        return Flux.defer(() -> {
+            CountryIndex.Snapshot snapshot = countryIndex.current();
+            if (snapshot.isLoaded()) {
+                return Flux.fromIterable(snapshot.findAllByContinent(continent));
+            }
+            return repositoryCountry.findAllByContinent(continent)
+                    .limitRate(FETCH_SIZE)
+                    .map(mapperCountry::toRecord);
+        });
+    }
+
+    // Mono vide -> erreur ResourceNotFoundException, transformée en 404 par GlobalExceptionHandler
+    public Mono<CountryRecord> findCountryByName(String countryName) {
+        return Mono.defer(() -> {
+                    CountryIndex.Snapshot snapshot = countryIndex.current();
+                    if (snapshot.isLoaded()) {
+                        return Mono.justOrEmpty(snapshot.findByCountryName(countryName));
+                    }
+                    return repositoryCountry.findByCountryName(countryName).map(mapperCountry::toRecord);
+                })
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Country with name " + countryName + " not found")));
+    }
+
+    // L'id est généré par la base (colonne IDENTITY) : on l'ignore s'il est fourni
+    // L'index est rechargé avant de répondre : le pays ajouté est visible dès la lecture suivante
+    public Mono<CountryRecord> addCountry(CountryRecord countryRecord) {
+        return repositoryCountry.save(mapperCountry.fromRecordToEntity(new CountryRecord(null, countryRecord.countryName(), countryRecord.continent())))
+                .map(mapperCountry::toRecord)
+                .flatMap(added -> countryIndex.refresh().thenReturn(added));
+    }
+}
@@ -1,30 +1,73 @@
 package ch.springall.service;
 
+import ch.springall.config.CacheConfig;
+import ch.springall.dtos.BulkResultRecord;
+import ch.springall.dtos.ChangeEventRecord.ChangeType;
+import ch.springall.dtos.ChangeEventRecord.EntityType;
+import ch.springall.dtos.CursorPage;
 import ch.springall.dtos.DirectorDTO;
 import ch.springall.dtos.DirectorRecord;
 import ch.springall.dtos.MovieRecord;
+import ch.springall.dtos.VersionedRecord;
 import ch.springall.entity.Director;
 import ch.springall.entity.Movie;
+import ch.springall.exceptions.PreconditionFailedException;
 import ch.springall.exceptions.ResourceNotFoundException;
 import ch.springall.mapper.MapperDirector;
 import ch.springall.mapper.MapperMovie;
 import ch.springall.repository.jpa.RepositoryDirector;
-import jakarta.transaction.Transactional;
+import ch.springall.repository.jpa.RepositoryStudio;
+import ch.springall.repository.jpa.VersionView;
+import ch.springall.support.TransactionCallbacks;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 // Classe de service pour la gestion des directeurs : On ajoute ici les méthodes métiers (CRUD et autres)
 // L'annotation @Service indique que cette classe est un service Spring et sera gérée par le conteneur Spring
+// @Timed : chaque méthode publique est chronométrée (timer springall.service, tags class et method, percentiles dans application.properties)
 @Service
+@Timed(value = "springall.service", description = "Execution time of the service methods")
 public class ServiceDirector {
 
+    // Taille de page par défaut et plafond pour la pagination par curseur :
+    // le plafond protège le serveur d'un client qui demanderait ?limit=1000000
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Pendant un export, on vide le contexte de persistance toutes les N entités
+    // pour que la mémoire utilisée ne dépende pas du nombre de lignes exportées
+    public static final int EXPORT_CLEAR_INTERVAL = 500;
+
+    // Insertion en lot : nombre de directeurs persistés entre deux flush (le lot entier reste dans une seule transaction)
+    // Chaque paquet est envoyé en batchs JDBC (BATCH_JDBC_SIZE) puis le contexte de persistance est vidé
+    public static final int BATCH_CHUNK_SIZE = 500;
+
+    // Taille des batchs JDBC de l'insertion en lot, au lieu de hibernate.jdbc.batch_size (50) : moins d'allers-retours
+    // par paquet ; au-delà de 250 le gain devient marginal et H2 ralentit nettement (mesuré à 500, voir benchmark.md)
+    public static final int BATCH_JDBC_SIZE = 250;
+
     // Pour accéder aux données, on injecte le repository correspondant (RepositoryDirector)
     // Il existe plusieurs façons de faire l'injection de dépendances en Spring :
     // - Injection par constructeur (recommandée) : on crée un constructeur avec le repository en paramètre
@@ -44,12 +87,37 @@ public class ServiceDirector {
     //Autres services/mappers si besoin (pour gérer les relations par exemple)
     private final ServiceMovie serviceMovie;
     private final MapperMovie mapperMovie;
+    private final RepositoryStudio repositoryStudio;
+
+    //EntityManager : utilisé pour détacher les entités lors des lectures en flux (export) et des insertions en lot
+    private final EntityManager entityManager;
+
+    //TransactionTemplate : permet de découper un traitement en plusieurs transactions dans la même méthode
+    // (un appel interne à une méthode @Transactional ne passe pas par le proxy Spring et n'ouvrirait pas de transaction)
+    private final TransactionTemplate transactionTemplate;
+
+    //CacheManager : les invalidations des caches de Records sont gérées par annotations (@CacheEvict),
+    // sauf pour l'insertion en lot où les ids à invalider ne sont connus qu'au fil des paquets
+    // Les lectures passent par le cache directement (findVersionedDirector) : le Record y est gardé avec son ETag
+    private final CacheManager cacheManager;
+
+    //Classements en mémoire : les opérations en masse ne passent pas par les entity listeners, ils sont mis à jour ici
+    private final Leaderboards leaderboards;
 
-    public ServiceDirector(@Qualifier("jpaDirector") RepositoryDirector repositoryDirector, MapperDirector mapperDirector, ServiceMovie serviceMovie, MapperMovie mapperMovie) {
+    //Flux des modifications (GET /changes) : même raison que pour les classements
+    private final ChangeFeed changeFeed;
+
+    public ServiceDirector(@Qualifier("jpaDirector") RepositoryDirector repositoryDirector, MapperDirector mapperDirector, ServiceMovie serviceMovie, MapperMovie mapperMovie, RepositoryStudio repositoryStudio, EntityManager entityManager, TransactionTemplate transactionTemplate, CacheManager cacheManager, Leaderboards leaderboards, ChangeFeed changeFeed) {
         this.repositoryDirector = repositoryDirector;
         this.mapperDirector = mapperDirector;
         this.serviceMovie = serviceMovie;
         this.mapperMovie = mapperMovie;
+        this.repositoryStudio = repositoryStudio;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheManager = cacheManager;
+        this.leaderboards = leaderboards;
+        this.changeFeed = changeFeed;
     }
 
     //Logging : dans Spring Boot, on utilise généralement SLF4J avec Logback (inclus par défaut)
@@ -81,6 +149,8 @@ public class ServiceDirector {
     // pour gérer les transactions automatiquement et éviter les problèmes de cohérence des données :
     // @Transactional : démarre une transaction au début de la méthode et la commit à la fin si tout s'est bien passé
     // De plus, si une exception est levée, la transaction est rollbackée automatiquement
+    // @Transactional(readOnly = true) sur les lectures : avec des réplicas configurés (DataSourceRoutingConfig),
+    // la transaction est servie par un réplica ; appelée dans une transaction d'écriture, elle reste sur le primaire
 
 
     //V2 : utilisation des DTOs : on n'expose pas l'entité à la couche supérieure (REST), car
@@ -101,7 +171,9 @@ public class ServiceDirector {
     //V3 : utilisation des Records (Java 16+) : même principe que les DTOs, mais avec une syntaxe plus concise
     // On crée une classe DirectorRecord et on mappe les données entre l'entité et le Record dans le service
     // Les Records sont immuables et plus légers que les DTOs classiques
+    // Un id absent peut avoir été mis en cache (Optional vide) : on invalide l'id créé
     @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.DIRECTORS, CacheConfig.DIRECTORS_WITH_MOVIES}, key = "#result.id")
     public DirectorRecord addDirectorRecord(DirectorRecord directorRecord){
         // On mappe le Record vers l'entité
         Director d = mapperDirector.fromRecordToEntity(directorRecord);
@@ -113,25 +185,134 @@ public class ServiceDirector {
         return mapperDirector.toRecord(savedDirector);
     }
 
+    //V3 bis : insertion en lot (import d'un catalogue partenaire)
+    // Au lieu d'un INSERT par directeur, on découpe la liste en paquets de BATCH_CHUNK_SIZE :
+    // - une seule transaction pour toute la liste : si un paquet échoue, rien n'est inséré
+    //   (le client ne reçoit pas d'ids et peut renvoyer la même liste sans créer de doublons)
+    // - Hibernate regroupe les INSERT en batchs JDBC (hibernate.jdbc.batch_size, order_inserts)
+    // - le contexte de persistance est écrit (flush) puis vidé après chaque paquet pour garder une mémoire constante
+    // Les ids fournis par le client sont ignorés : ce sont des créations
+    // On retourne les ids générés dans le même ordre que la liste reçue
+    public List<Long> addDirectorRecords(List<DirectorRecord> directorRecords){
+        Cache directors = cacheManager.getCache(CacheConfig.DIRECTORS);
+        Cache directorsWithMovies = cacheManager.getCache(CacheConfig.DIRECTORS_WITH_MOVIES);
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>(directorRecords.size());
+            for (int from = 0; from < directorRecords.size(); from += BATCH_CHUNK_SIZE) {
+                List<DirectorRecord> chunk = directorRecords.subList(from, Math.min(from + BATCH_CHUNK_SIZE, directorRecords.size()));
+                List<Long> chunkIds = persistChunk(chunk);
+                // même invalidation que addDirectorRecord, faite au commit (CacheManager transactionnel)
+                chunkIds.forEach(id -> {
+                    directors.evict(id);
+                    directorsWithMovies.evict(id);
+                });
+                ids.addAll(chunkIds);
+            }
+            return ids;
+        });
+    }
+
+    private List<Long> persistChunk(List<DirectorRecord> chunk){
+        // Un import massif ne doit pas remplir le cache de second niveau (et en chasser les directeurs les plus lus) :
+        // CacheMode.IGNORE désactive la mise en cache des entités insérées pour cette transaction
+        Session session = entityManager.unwrap(Session.class);
+        session.setCacheMode(CacheMode.IGNORE);
+        session.setJdbcBatchSize(BATCH_JDBC_SIZE);
+        List<Director> directors = new ArrayList<>(chunk.size());
+        for (DirectorRecord directorRecord : chunk) {
+            // fromRecordToEntity appelle linkMovies : les films pointent déjà vers leur directeur (cascade PERSIST)
+            Director d = mapperDirector.fromRecordToEntity(directorRecord);
+            d.setId(null);
+            if (d.getMoviesDirected() != null) {
+                d.getMoviesDirected().forEach(m -> m.setId(null));
+            }
+            directors.add(d);
+        }
+        List<Long> ids = repositoryDirector.saveAll(directors).stream().map(Director::getId).toList();
+        repositoryDirector.flush();
+        entityManager.clear();
+        return ids;
+    }
+
     //V4 : utilisation de Optional pour gérer le cas où l'id n'existe pas
     // Optional est une classe conteneur qui peut contenir une valeur ou être vide et qui existe depuis Java 8
     // Cela permet d'éviter les NullPointerException et de forcer le développeur à gérer le cas où la valeur est absente
     // avec des Exceptions/Try-Catch ou des méthodes comme orElse, orElseThrow, ifPresent, etc.
     // L'Optional est logique dans une recherche, car il peut échouer !!
+    // Le Record est gardé dans le cache "directors" (clé = id) avec son ETag (voir findVersionedDirector)
     public Optional<DirectorRecord> findDirectorByIdOptional(Long id){
-        // On utilise map() pour transformer l'Optional<Director> en Optional<DirectorRecord>
-        Director d = repositoryDirector.findById(id).orElse(null);
-        // On utilise ofNullable() pour gérer le cas où d est null
-        return Optional.ofNullable(mapperDirector.toRecord(d));
+        return findVersionedDirector(id, false).map(VersionedRecord::content);
+    }
+
+    // Même principe pour le directeur avec ses films (?expand=movies), dans un cache séparé
+    public Optional<DirectorRecord> findDirectorWithMoviesByIdOptional(Long id){
+        return findVersionedDirector(id, true).map(VersionedRecord::content);
+    }
+
+    // Record et ETag du directeur (GET /directors/{id}), construits dans la même transaction et mis en cache ensemble :
+    // l'ETag envoyé est toujours celui du Record servi, même si le directeur change entre-temps en base
+    // Le cache est lu directement (et non par @Cacheable) pour que findDirectorByIdOptional partage la même entrée
+    // Cache.get(clé, chargement) : en cas de miss simultanés sur le même id, une seule requête lit la base (comme sync = true)
+    // La transaction n'est ouverte qu'en cas de miss, en écriture : le Record est lu sur le primaire
+    // (un réplica en retard servirait la ligne d'avant la dernière écriture, gardée ensuite en cache jusqu'à son expiration)
+    public Optional<VersionedRecord<DirectorRecord>> findVersionedDirector(Long id, boolean withMovies){
+        Cache cache = cacheManager.getCache(withMovies ? CacheConfig.DIRECTORS_WITH_MOVIES : CacheConfig.DIRECTORS);
+        return cache.get(id, () -> transactionTemplate.execute(status -> loadVersionedDirector(id, withMovies)));
+    }
+
+    // Le Record (ou l'absence du directeur) est-il déjà en cache ? Lecture du cache seul, sans requête SQL
+    // GET /directors/{id} s'en sert pour savoir si If-None-Match doit d'abord être comparé à findDirectorETag
+    public boolean isDirectorCached(Long id, boolean withMovies){
+        return cacheManager.getCache(withMovies ? CacheConfig.DIRECTORS_WITH_MOVIES : CacheConfig.DIRECTORS).get(id) != null;
+    }
+
+    private Optional<VersionedRecord<DirectorRecord>> loadVersionedDirector(Long id, boolean withMovies){
+        Optional<Director> director = withMovies ? repositoryDirector.findWithMoviesById(id) : repositoryDirector.findById(id);
+        return director.map(d -> new VersionedRecord<>(eTagOf(d, withMovies), mapperDirector.toRecord(d)));
+    }
+
+    // Même valeur que findDirectorETag, calculée à partir de l'entité chargée (et de ses films pour ?expand=movies)
+    private static String eTagOf(Director director, boolean withMovies){
+        if (!withMovies) {
+            return "\"" + director.getVersion() + "\"";
+        }
+        List<Movie> movies = director.getMoviesDirected();
+        return VersionView.toETag(director.getVersion(), movies.size(),
+                movies.stream().mapToLong(Movie::getId).sum(), movies.stream().mapToLong(Movie::getVersion).sum());
     }
 
     //Autres méthodes (update, delete, findAll, etc.) à ajouter selon les besoins
     //update : pour une mise à jour, il suffit de appeler save() avec un objet ayant un id existant
     // mais on peut aussi vérifier si l'objet existe avant de le mettre à jour
+    // Les Records en cache de ce directeur sont invalidés, ainsi que les studios (leurs Records contiennent les directeurs)
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.DIRECTORS, CacheConfig.DIRECTORS_WITH_MOVIES}, key = "#directorRecord.id"),
+            @CacheEvict(cacheNames = CacheConfig.STUDIOS, allEntries = true)
+    })
     public Optional<DirectorRecord> updateDirector(DirectorRecord directorRecord){
+        return update(directorRecord, null);
+    }
+
+    // Variante avec précondition (PUT /directors/update avec If-Match) : la mise à jour n'est faite que si le directeur
+    // est encore dans la version lue par le client (expectedVersion), sinon PreconditionFailedException (412)
+    // Une modification concurrente entre cette vérification et le commit est détectée par @Version (OptimisticLockException)
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.DIRECTORS, CacheConfig.DIRECTORS_WITH_MOVIES}, key = "#directorRecord.id"),
+            @CacheEvict(cacheNames = CacheConfig.STUDIOS, allEntries = true)
+    })
+    public Optional<DirectorRecord> updateDirector(DirectorRecord directorRecord, long expectedVersion){
+        return update(directorRecord, expectedVersion);
+    }
+
+    private Optional<DirectorRecord> update(DirectorRecord directorRecord, Long expectedVersion){
         Optional<Director> existingDirectorOpt = repositoryDirector.findById(directorRecord.id());
         if(existingDirectorOpt.isPresent()){
+            if(expectedVersion != null && existingDirectorOpt.get().getVersion() != expectedVersion){
+                throw new PreconditionFailedException("Director with id " + directorRecord.id() + " has been modified (version "
+                        + existingDirectorOpt.get().getVersion() + ", expected " + expectedVersion + ")");
+            }
             // update les champs de l'objet existant avec les valeurs du nouvel objet
             mapperDirector.updateEntityFromRecord(directorRecord, existingDirectorOpt.get());
             Director dEntity = repositoryDirector.save(existingDirectorOpt.get());
@@ -142,27 +323,191 @@ public class ServiceDirector {
 
     //delete : on peut utiliser deleteById() du repository, mais on peut aussi vérifier si l'objet existe avant de le supprimer
     // La méthode retourne true si la suppression a réussi, false sinon
+    // L'existence est vérifiée par une projection (select count) : ni chargement du directeur ni mapping en Record,
+    // deleteById charge ensuite l'entité une seule fois (entity listeners, collection du studio)
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.DIRECTORS, CacheConfig.DIRECTORS_WITH_MOVIES}, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.STUDIOS, allEntries = true)
+    })
     public boolean deleteDirectorById(Long id){
-        Optional<DirectorRecord> existingDirectorOpt = findDirectorByIdOptional(id);
-        if(existingDirectorOpt.isPresent()){
+        if(repositoryDirector.existsById(id)){
             logger.info("Deleting director with id : {}", id);
+            // La relation Studio -> directorList est unidirectionnelle : Hibernate ne sait pas qu'un studio référence ce directeur
+            // On le retire explicitement de la collection : studio_id est remis à null et la collection en cache est invalidée
+            repositoryStudio.findByDirectorListId(id)
+                    .forEach(studio -> studio.getDirectorList().removeIf(director -> id.equals(director.getId())));
             repositoryDirector.deleteById(id);
             return true;
         }
         return false;
     }
 
-    //findAll : retourne une liste de tous les directeurs sous forme de Records par exemple
+    //Opérations en masse : une seule requête de modification (DELETE / UPDATE JPQL) quel que soit le nombre de directeurs,
+    // au lieu de charger puis modifier chaque entité
+    // Ce que Hibernate ne fait pas pour une requête en masse est fait ici :
+    // - Records en cache : les ids concernés sont invalidés (après le commit, le CacheManager est transactionnel)
+    //   ainsi que tous les studios (leurs Records contiennent les directeurs)
+    // - classements en mémoire (Leaderboards) et flux des modifications (ChangeFeed) : mis à jour après le commit
+    //   avec les ids réellement touchés, lus et verrouillés (select ... for update) juste avant la modification :
+    //   une requête de plus, mais aucun événement pour un id inconnu et aucun film déplacé sans événement
+    // Le cache de second niveau est invalidé par Hibernate (régions des entités et collections touchées)
+    // Les statistiques (cache "statistics") ne sont pas invalidées : elles ont déjà jusqu'à 30 s de retard
+
+    // Suppression de plusieurs directeurs ; un directeur qui a encore des films ne peut pas être supprimé
+    // (clé étrangère movie.director_id) : toute la requête échoue (409), rien n'est supprimé
+    // -> réaffecter ses films avant (reassignMovies)
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.STUDIOS, allEntries = true)
+    public BulkResultRecord deleteDirectorsByIds(Collection<Long> ids){
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        if (distinctIds.isEmpty()) {
+            return new BulkResultRecord(0, 0);
+        }
+        List<Long> existingIds = repositoryDirector.lockExistingIds(distinctIds);
+        if (existingIds.isEmpty()) {
+            return new BulkResultRecord(distinctIds.size(), 0);
+        }
+        int deleted = repositoryDirector.deleteAllByIdInBulk(existingIds);
+        evictDirectors(existingIds);
+        TransactionCallbacks.afterCommit(() -> existingIds.forEach(leaderboards::directorRemoved));
+        changeFeed.publishAfterCommit(EntityType.DIRECTOR, existingIds, ChangeType.DELETED);
+        logger.info("Bulk delete of directors: {} requested, {} deleted", distinctIds.size(), deleted);
+        return new BulkResultRecord(distinctIds.size(), deleted);
+    }
+
+    // Ajoute increment au nombre d'oscars de chaque directeur (la version est incrémentée : ETag et If-Match)
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.STUDIOS, allEntries = true)
+    public BulkResultRecord incrementOscarCount(Collection<Long> ids, int increment){
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        if (distinctIds.isEmpty()) {
+            return new BulkResultRecord(0, 0);
+        }
+        int updated = repositoryDirector.incrementOscarCount(distinctIds, increment);
+        evictDirectors(distinctIds);
+        changeFeed.publishAfterCommit(EntityType.DIRECTOR, distinctIds, ChangeType.UPDATED);
+        return new BulkResultRecord(distinctIds.size(), updated);
+    }
+
+    // Tous les films de fromDirectorId passent à toDirectorId ; requested = 1 (le directeur source), affected = nombre de films
+    // Les deux directeurs doivent exister (une requête count), sinon ResourceNotFoundException
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.STUDIOS, allEntries = true)
+    public BulkResultRecord reassignMovies(Long fromDirectorId, Long toDirectorId){
+        List<Long> directorIds = List.of(fromDirectorId, toDirectorId).stream().distinct().toList();
+        if (repositoryDirector.countByIdIn(directorIds) != directorIds.size()) {
+            throw new ResourceNotFoundException("Director with id " + fromDirectorId + " or " + toDirectorId + " not found");
+        }
+        if (fromDirectorId.equals(toDirectorId)) {
+            return new BulkResultRecord(1, 0);
+        }
+        List<Long> movedIds = serviceMovie.reassignDirector(repositoryDirector.getReferenceById(fromDirectorId),
+                repositoryDirector.getReferenceById(toDirectorId));
+        // Le Record sans films ne change pas : seul le cache avec les films est invalidé
+        Cache directorsWithMovies = cacheManager.getCache(CacheConfig.DIRECTORS_WITH_MOVIES);
+        directorsWithMovies.evict(fromDirectorId);
+        directorsWithMovies.evict(toDirectorId);
+        TransactionCallbacks.afterCommit(() -> leaderboards.moviesReassigned(fromDirectorId, toDirectorId));
+        // Les films déplacés (leur directeur a changé) et les deux directeurs (leurs listes de films)
+        changeFeed.publishAfterCommit(EntityType.MOVIE, movedIds, ChangeType.UPDATED);
+        changeFeed.publishAfterCommit(EntityType.DIRECTOR, directorIds, ChangeType.UPDATED);
+        return new BulkResultRecord(1, movedIds.size());
+    }
+
+    private void evictDirectors(List<Long> ids){
+        Cache directors = cacheManager.getCache(CacheConfig.DIRECTORS);
+        Cache directorsWithMovies = cacheManager.getCache(CacheConfig.DIRECTORS_WITH_MOVIES);
+        ids.forEach(id -> {
+            directors.evict(id);
+            directorsWithMovies.evict(id);
+        });
+    }
+
+    //ETag : calculé à partir des colonnes version uniquement (une requête scalaire, ni entité chargée ni mapping)
+    // withMovies : l'ETag couvre aussi les films (le Record de ?expand=movies les contient)
+    // Optional vide si le directeur n'existe pas
+    // Transaction en écriture : la version est lue sur le primaire (If-Match, ETag renvoyé après une mise à jour)
+    @Transactional
+    public Optional<String> findDirectorETag(Long id, boolean withMovies){
+        if (withMovies) {
+            return repositoryDirector.findVersionWithMoviesById(id).map(VersionView::toETag);
+        }
+        return repositoryDirector.findVersionById(id).map(version -> "\"" + version + "\"");
+    }
+
+    //findAll : retourne une liste de tous les directeurs (avec leurs films) sous forme de Records par exemple
+    // Les films sont chargés avec le graphe d'entités : une seule requête SQL pour toute la liste
+    @Transactional(readOnly = true)
     public List<DirectorRecord> findAllDirectors(){
         List<DirectorRecord> directorRecords = new ArrayList<>();
-        List<Director> directors = repositoryDirector.findAll();
+        List<Director> directors = repositoryDirector.findAllByOrderByIdAsc();
         directors.forEach(director -> directorRecords.add(mapperDirector.toRecord(director)));
         return directorRecords;
     }
 
+    //findPage : pagination par curseur (keyset), seule la page demandée est chargée et mappée
+    // -> la mémoire et le temps de réponse ne dépendent plus de la taille de la table
+    // On lit une ligne de plus que la taille de la page pour savoir s'il existe une page suivante
+    // sans avoir besoin d'un COUNT(*) supplémentaire
+    public CursorPage<DirectorRecord> findDirectorsPage(String cursor, Integer limit){
+        return findDirectorsPage(cursor, limit, false);
+    }
+
+    // Avec withMovies, la page est lue en deux requêtes fixes, quelle que soit sa taille :
+    // 1) les ids de la page (seek sur la clé primaire), 2) les directeurs et leurs films (fetch join sur ces ids)
+    @Transactional(readOnly = true)
+    public CursorPage<DirectorRecord> findDirectorsPage(String cursor, Integer limit, boolean withMovies){
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        long afterId = cursor == null ? 0L : CursorPage.decodeCursor(cursor);
+
+        List<Director> directors;
+        boolean hasNext;
+        if (withMovies) {
+            List<Long> ids = repositoryDirector.findIdsByIdGreaterThan(afterId, Limit.of(pageSize + 1));
+            hasNext = ids.size() > pageSize;
+            List<Long> pageIds = ids.subList(0, Math.min(pageSize, ids.size()));
+            directors = pageIds.isEmpty() ? List.of() : repositoryDirector.findByIdInOrderByIdAsc(pageIds);
+        } else {
+            directors = repositoryDirector.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageSize + 1));
+            hasNext = directors.size() > pageSize;
+        }
+        List<DirectorRecord> content = directors.stream()
+                .limit(pageSize)
+                .map(mapperDirector::toRecord)
+                .toList();
+
+        String nextCursor = hasNext ? CursorPage.encodeCursor(content.getLast().id()) : null;
+        return new CursorPage<>(content, nextCursor);
+    }
+
+    //export : parcourt tous les directeurs en flux et transmet chaque Record au consumer, un par un
+    // Le service ne connaît pas le format de sortie (NDJSON, CSV...) : c'est l'appelant qui décide quoi faire du Record
+    // La transaction reste ouverte pendant tout le parcours (nécessaire pour le curseur JDBC du Stream)
+    // et le contexte de persistance est vidé régulièrement pour ne pas accumuler les entités déjà exportées
+    // readOnly : la lecture la plus longue de l'application, servie par un réplica s'il y en a
+    @Transactional(readOnly = true)
+    public long exportDirectors(Consumer<DirectorRecord> consumer){
+        long count = 0;
+        try (Stream<Director> directors = repositoryDirector.streamAllOrderById()) {
+            Iterator<Director> it = directors.iterator();
+            while (it.hasNext()) {
+                consumer.accept(mapperDirector.toRecord(it.next()));
+                if (++count % EXPORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
+    }
+
     //Methode liée aux relations : par exemple rajouter un film à un directeur
+    // Le Record d'un studio contient les films de ses directeurs : les studios sont invalidés aussi
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {CacheConfig.DIRECTORS, CacheConfig.DIRECTORS_WITH_MOVIES}, key = "#directorId"),
+            @CacheEvict(cacheNames = CacheConfig.STUDIOS, allEntries = true)
+    })
     public MovieRecord addFilmToDirector(Long directorId, MovieRecord movieRecord) throws Exception {
         Optional<Director> d = repositoryDirector.findById(directorId);
         if(d.isPresent()){
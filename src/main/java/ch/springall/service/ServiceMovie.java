@@ -1,23 +1,36 @@
 package ch.springall.service;
 
 import ch.springall.dtos.MovieRecord;
+import ch.springall.dtos.MovieSearchResult;
+import ch.springall.dtos.RatingRecord;
+import ch.springall.dtos.RatingsAcceptedRecord;
+import ch.springall.entity.Director;
+import ch.springall.entity.Genre;
 import ch.springall.entity.Movie;
 import ch.springall.mapper.MapperMovie;
 import ch.springall.repository.jpa.RepositoryMovie;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed(value = "springall.service", description = "Execution time of the service methods")
 public class ServiceMovie {
 
     //repo
     private final RepositoryMovie repositoryMovie;
     private final MapperMovie mapperMovie;
+    private final MovieSearchIndex movieSearchIndex;
+    private final RatingAggregator ratingAggregator;
 
-    public ServiceMovie(RepositoryMovie repositoryMovie, MapperMovie mapperMovie) {
+    public ServiceMovie(RepositoryMovie repositoryMovie, MapperMovie mapperMovie, MovieSearchIndex movieSearchIndex,
+                        RatingAggregator ratingAggregator) {
         this.repositoryMovie = repositoryMovie;
         this.mapperMovie = mapperMovie;
+        this.movieSearchIndex = movieSearchIndex;
+        this.ratingAggregator = ratingAggregator;
     }
 
     //add a movie
@@ -35,4 +48,35 @@ public class ServiceMovie {
         }
         return Optional.empty();
     }
+
+    //Reassign all movies of a director to another one: ids read (and locked) first, then a single UPDATE (no movie loaded)
+    // Doit être appelé dans la transaction de l'appelant (ServiceDirector.reassignMovies, qui gère les caches et les classements)
+    // Les titres ne changent pas : l'index de recherche n'est pas concerné
+    // Retourne les ids des films déplacés (flux des modifications)
+    public List<Long> reassignDirector(Director from, Director to){
+        List<Long> movieIds = repositoryMovie.lockIdsByDirector(from);
+        if (!movieIds.isEmpty()) {
+            repositoryMovie.reassignDirector(movieIds, to);
+        }
+        return movieIds;
+    }
+
+    //Add users' rating votes (in-memory aggregation, written in batch by RatingAggregator, no SQL query here)
+    // Les notes ont déjà été validées (0 à 10) par le contrôleur
+    public RatingsAcceptedRecord addRatings(List<RatingRecord> ratings){
+        int accepted = 0;
+        for (RatingRecord rating : ratings) {
+            if (ratingAggregator.add(rating.movieId(), rating.rating())) {
+                accepted++;
+            }
+        }
+        return new RatingsAcceptedRecord(ratings.size(), accepted);
+    }
+
+    //Search movies by title (in-memory index, no SQL query)
+    // limit : null -> DEFAULT_LIMIT, plafonné à MAX_LIMIT
+    public List<MovieSearchResult> searchMovies(String query, Genre genre, Integer limit){
+        int size = limit == null ? MovieSearchIndex.DEFAULT_LIMIT : Math.clamp(limit, 1, MovieSearchIndex.MAX_LIMIT);
+        return movieSearchIndex.search(query, genre, size);
+    }
 }
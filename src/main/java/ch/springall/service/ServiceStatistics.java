@@ -0,0 +1,80 @@
+package ch.springall.service;
+
+import ch.springall.config.CacheConfig;
+import ch.springall.dtos.DirectorStatsRecord;
+import ch.springall.dtos.GenreStatsRecord;
+import ch.springall.dtos.ReleaseYearRecord;
+import ch.springall.dtos.StudioStatsRecord;
+import ch.springall.dtos.TopDirectorRecord;
+import ch.springall.dtos.TopMovieRecord;
+import ch.springall.entity.Genre;
+import ch.springall.repository.jpa.RepositoryMovie;
+import ch.springall.repository.jpa.RepositoryStudio;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+//Statistiques des films (nombre, note moyenne / min / max, sorties par année) par genre, directeur et studio
+// Les agrégats sont calculés par la base (GROUP BY) et renvoyés directement sous forme de Records :
+// seules quelques lignes transitent, au lieu de charger tous les directeurs avec leurs films pour agréger en Java
+// Les résultats sont gardés dans le cache "statistics" avec un TTL court (springall.cache.spec.statistics) :
+// ils ne sont pas invalidés à chaque modification d'un film, on accepte quelques secondes de retard
+// Clé de cache : nom de la méthode (+ limite déjà plafonnée), les méthodes partagent le même cache
+// -> null, 20 et 500 ne créent pas trois entrées pour le même résultat, un client ne peut pas remplir le cache avec des limites différentes
+// Les classements (films les mieux notés par genre, meilleurs directeurs) sont servis par Leaderboards, tenus à jour en mémoire :
+// ni requête SQL ni cache
+@Service
+@Timed(value = "springall.service", description = "Execution time of the service methods")
+public class ServiceStatistics {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private final RepositoryMovie repositoryMovie;
+    private final RepositoryStudio repositoryStudio;
+    private final Leaderboards leaderboards;
+
+    public ServiceStatistics(RepositoryMovie repositoryMovie, RepositoryStudio repositoryStudio, Leaderboards leaderboards) {
+        this.repositoryMovie = repositoryMovie;
+        this.repositoryStudio = repositoryStudio;
+        this.leaderboards = leaderboards;
+    }
+
+    @Cacheable(cacheNames = CacheConfig.STATISTICS, key = "#root.methodName", sync = true)
+    public List<GenreStatsRecord> findGenreStats(){
+        return repositoryMovie.findGenreStats();
+    }
+
+    // limit : null -> DEFAULT_LIMIT, plafonné à MAX_LIMIT (les directeurs qui ont le plus de films)
+    @Cacheable(cacheNames = CacheConfig.STATISTICS, key = "#root.methodName + ':' + T(ch.springall.service.ServiceStatistics).clamp(#limit)", sync = true)
+    public List<DirectorStatsRecord> findDirectorStats(Integer limit){
+        return repositoryMovie.findDirectorStats(Limit.of(clamp(limit)));
+    }
+
+    @Cacheable(cacheNames = CacheConfig.STATISTICS, key = "#root.methodName + ':' + T(ch.springall.service.ServiceStatistics).clamp(#limit)", sync = true)
+    public List<StudioStatsRecord> findStudioStats(Integer limit){
+        return repositoryStudio.findStudioStats(Limit.of(clamp(limit)));
+    }
+
+    @Cacheable(cacheNames = CacheConfig.STATISTICS, key = "#root.methodName", sync = true)
+    public List<ReleaseYearRecord> findReleasesPerYear(){
+        return repositoryMovie.findReleasesPerYear();
+    }
+
+    // limit : null -> Leaderboards.DEFAULT_LIMIT, plafonné à Leaderboards.MAX_LIMIT
+    public List<TopMovieRecord> findTopMovies(Genre genre, Integer limit){
+        return leaderboards.topMovies(genre, limit == null ? Leaderboards.DEFAULT_LIMIT : Math.clamp(limit, 1, Leaderboards.MAX_LIMIT));
+    }
+
+    public List<TopDirectorRecord> findTopDirectors(Integer limit){
+        return leaderboards.topDirectors(limit == null ? Leaderboards.DEFAULT_LIMIT : Math.clamp(limit, 1, Leaderboards.MAX_LIMIT));
+    }
+
+    // Public : appelée aussi par les clés de cache (SpEL)
+    public static int clamp(Integer limit) {
+        return limit == null ? DEFAULT_LIMIT : Math.clamp(limit, 1, MAX_LIMIT);
+    }
+}
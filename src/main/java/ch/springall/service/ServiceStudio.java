@@ -1,32 +1,49 @@
 package ch.springall.service;
 
+import ch.springall.config.CacheConfig;
 import ch.springall.dtos.DirectorRecord;
 import ch.springall.dtos.StudioRecord;
+import ch.springall.dtos.VersionedRecord;
 import ch.springall.entity.Director;
+import ch.springall.entity.Movie;
 import ch.springall.entity.Studio;
 import ch.springall.exceptions.ResourceNotFoundException;
 import ch.springall.mapper.MapperStudio;
 import ch.springall.repository.jpa.RepositoryDirector;
 import ch.springall.repository.jpa.RepositoryStudio;
+import ch.springall.repository.jpa.VersionView;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityExistsException;
-import jakarta.transaction.Transactional;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.context.request.NativeWebRequest;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed(value = "springall.service", description = "Execution time of the service methods")
 public class ServiceStudio {
 
     private final NativeWebRequest nativeWebRequest;
     private RepositoryStudio repositoryStudio;
     private MapperStudio mapperStudio;
     private RepositoryDirector repositoryDirector;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
 
-    public ServiceStudio(RepositoryStudio repositoryStudio, MapperStudio mapperStudio, NativeWebRequest nativeWebRequest) {
+    public ServiceStudio(RepositoryStudio repositoryStudio, MapperStudio mapperStudio, RepositoryDirector repositoryDirector, NativeWebRequest nativeWebRequest,
+                         CacheManager cacheManager, TransactionTemplate transactionTemplate) {
         this.repositoryStudio = repositoryStudio;
+        this.repositoryDirector = repositoryDirector;
         this.mapperStudio = mapperStudio;
         this.nativeWebRequest = nativeWebRequest;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = transactionTemplate;
     }
 
 
@@ -42,16 +59,77 @@ public class ServiceStudio {
     }
 
     //Find a studio
-    @Transactional
     public StudioRecord findStudio(Long studioId){
-        Optional<Studio> studio = repositoryStudio.findById(studioId);
-        if(studio.isEmpty()){
-            throw new ResourceNotFoundException("Studio with id " + studioId + " not found");
+        return findVersionedStudio(studioId).content();
+    }
+
+    //Find a studio with its ETag (GET /studios/{id}/studio, voir ServiceDirector.findVersionedDirector)
+    // Record mis en cache avec son ETag (cache "studios", clé = id), une seule lecture en base par id même sous forte concurrence
+    // un studio inexistant lève une exception : rien n'est mis en cache
+    // Chargé dans une transaction en écriture, donc sur le primaire : un réplica en retard servirait le studio d'avant
+    // la dernière écriture, gardé ensuite en cache jusqu'à son expiration (voir DataSourceRoutingConfig)
+    public VersionedRecord<StudioRecord> findVersionedStudio(Long studioId){
+        try {
+            return cacheManager.getCache(CacheConfig.STUDIOS).get(studioId,
+                    () -> transactionTemplate.execute(status -> loadVersionedStudio(studioId)));
+        } catch (Cache.ValueRetrievalException e) {
+            // le cache enveloppe l'exception levée pendant le chargement
+            if (e.getCause() instanceof ResourceNotFoundException notFound) {
+                throw notFound;
+            }
+            throw e;
         }
-        return mapperStudio.toRecord(studio.get());
+    }
+
+    // Le Record du studio est-il déjà en cache ? Lecture du cache seul (voir ServiceDirector.isDirectorCached)
+    public boolean isStudioCached(Long studioId){
+        return cacheManager.getCache(CacheConfig.STUDIOS).get(studioId) != null;
+    }
+
+    // Le Record contient les directeurs et leurs films : au plus trois requêtes quel que soit le nombre de directeurs
+    // - le studio puis sa liste de directeurs (servis par le cache de second niveau s'ils y sont)
+    // - les films de tous ces directeurs en une requête (entity graph de Director, les directeurs déjà chargés reçoivent
+    //   leur collection) : sans elle, une requête par directeur
+    private VersionedRecord<StudioRecord> loadVersionedStudio(Long studioId){
+        Studio studio = repositoryStudio.findById(studioId)
+                .orElseThrow(() -> new ResourceNotFoundException("Studio with id " + studioId + " not found"));
+        List<Director> directors = studio.getDirectorList();
+        if (!directors.isEmpty()) {
+            repositoryDirector.findByIdInOrderByIdAsc(directors.stream().map(Director::getId).toList());
+        }
+        return new VersionedRecord<>(eTagOf(studio), mapperStudio.toRecord(studio));
+    }
+
+    // Même valeur que findStudioETag (RepositoryStudio.findVersionById), calculée à partir des entités chargées :
+    // un directeur compte pour autant de lignes que de films (au moins une)
+    private static String eTagOf(Studio studio){
+        long count = 0;
+        long idSum = 0;
+        long versionSum = 0;
+        for (Director director : studio.getDirectorList()) {
+            List<Movie> movies = director.getMoviesDirected();
+            int rows = Math.max(1, movies.size());
+            count += 1 + movies.size();
+            idSum += rows * director.getId() + movies.stream().mapToLong(Movie::getId).sum();
+            versionSum += rows * director.getVersion() + movies.stream().mapToLong(Movie::getVersion).sum();
+        }
+        return VersionView.toETag(studio.getVersion(), count, idSum, versionSum);
+    }
+
+    //ETag of a studio : versions du studio, de ses directeurs et de leurs films, sans charger le graphe (voir ServiceDirector.findDirectorETag)
+    // Transaction en écriture : la version est lue sur le primaire, un réplica en retard renverrait un ancien ETag
+    @Transactional
+    public String findStudioETag(Long studioId){
+        return repositoryStudio.findVersionById(studioId)
+                .map(VersionView::toETag)
+                .orElseThrow(() -> new ResourceNotFoundException("Studio with id " + studioId + " not found"));
     }
 
     //Update a studio
+    // Les écritures et les lectures qui les préparent sont dans une transaction en écriture : sinon chaque appel
+    // au repository ouvre sa propre transaction, en lecture seule pour findById/existsById, servie par un réplica
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.STUDIOS, key = "#studioRecord.id")
     public StudioRecord updateStudio(StudioRecord studioRecord){
         Optional<Studio> existingStudioOpt = repositoryStudio.findById(studioRecord.id());
         if(existingStudioOpt.isEmpty()){
@@ -62,12 +140,17 @@ public class ServiceStudio {
     }
 
     //delete a studio
+    // Existence vérifiée par une projection (select count) : le studio n'est chargé qu'une fois, par deleteById
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.STUDIOS, key = "#studioId")
     public void deleteStudio(Long studioId){
-        if(repositoryStudio.findById(studioId).isPresent()){
+        if(repositoryStudio.existsById(studioId)){
             repositoryStudio.deleteById(studioId);
         }
     }
 
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.STUDIOS, key = "#studioId")
     public StudioRecord addDirector(Long studioId, Long directorId){
         Optional<Director> existingDirectorOpt = repositoryDirector.findById(directorId);
         Optional<Studio> existingStudioOpt = repositoryStudio.findById(studioId);
@@ -0,0 +1,63 @@
+package ch.springall.support;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Actions différées au commit de la transaction en cours : index de recherche, classements et flux des modifications
+// ne voient jamais une écriture annulée par un rollback
+// Utilisé par les entity listeners JPA (appelés au flush, avant le commit) et par les services qui écrivent
+// sans passer par Hibernate (requêtes en masse, lot JDBC de RatingAggregator)
+public final class TransactionCallbacks {
+
+    // Clé de la liste des actions de la transaction en cours (ressource liée au thread)
+    private static final Object ACTIONS_KEY = new Object();
+
+    private TransactionCallbacks() {
+    }
+
+    // Exécute l'action après le commit ; immédiatement s'il n'y a pas de transaction en cours
+    // Une seule synchronisation par transaction : un lot de 1 000 directeurs en déclenche plusieurs milliers, et Spring
+    // trie toutes les synchronisations enregistrées au commit
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<Runnable> actions = (List<Runnable>) TransactionSynchronizationManager.getResource(ACTIONS_KEY);
+        if (actions == null) {
+            List<Runnable> pending = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(ACTIONS_KEY, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                // Transaction suspendue (REQUIRES_NEW) : la transaction interne doit avoir sa propre liste
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ACTIONS_KEY);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(ACTIONS_KEY, pending);
+                }
+
+                @Override
+                public void afterCommit() {
+                    // Parcours par index : une action peut en ajouter d'autres, exécutées à la suite
+                    for (int i = 0; i < pending.size(); i++) {
+                        pending.get(i).run();
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ACTIONS_KEY);
+                }
+            });
+            actions = pending;
+        }
+        actions.add(action);
+    }
+}
@@ -0,0 +1,55 @@
+-- Schéma initial (Flyway) : tables des entités JPA, séquences des ids et table des pays (R2DBC)
+-- Hibernate ne crée plus le schéma (spring.jpa.hibernate.ddl-auto=validate) : il vérifie seulement qu'il correspond aux entités
+-- Toute modification du schéma se fait dans un nouveau fichier V<n>__description.sql, jamais en modifiant un fichier déjà appliqué
+-- Le SQL reste portable (PostgreSQL en production, H2 dans les tests)
+
+-- Séquences des ids "pooled-lo" (PooledLoSequenceGenerator) : INCREMENT BY = springall.id.allocation_size
+CREATE SEQUENCE person_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE movie_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE studio_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE studio (
+    id                  BIGINT       NOT NULL PRIMARY KEY,
+    studio_name         VARCHAR(255) NOT NULL,
+    studio_founded_year INTEGER      NOT NULL,
+    CONSTRAINT uk_studio_name UNIQUE (studio_name)
+);
+
+-- studio_id accepte null : un directeur peut être créé avant d'être rattaché à un studio
+CREATE TABLE director (
+    id          BIGINT       NOT NULL PRIMARY KEY,
+    first_name  VARCHAR(255) NOT NULL,
+    last_name   VARCHAR(255) NOT NULL,
+    birth_date  DATE         NOT NULL,
+    oscar_count INTEGER,
+    studio_id   BIGINT,
+    CONSTRAINT fk_director_studio FOREIGN KEY (studio_id) REFERENCES studio (id)
+);
+
+CREATE TABLE movie (
+    id           BIGINT           NOT NULL PRIMARY KEY,
+    title        VARCHAR(255)     NOT NULL,
+    release_date TIMESTAMP(6)     NOT NULL,
+    genre        VARCHAR(255)     NOT NULL,
+    rating       DOUBLE PRECISION NOT NULL,
+    director_id  BIGINT,
+    CONSTRAINT fk_movie_director FOREIGN KEY (director_id) REFERENCES director (id)
+);
+
+CREATE TABLE country (
+    country_id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    country_name      VARCHAR(50) NOT NULL UNIQUE,
+    country_continent VARCHAR(20) NOT NULL
+);
+
+-- Index des chemins d'accès réels (les clés étrangères ne sont pas indexées automatiquement par PostgreSQL)
+-- RepositoryDirector.findByFirstNameAndLastName
+CREATE INDEX idx_director_names ON director (first_name, last_name);
+-- Studio.directorList (chargement des directeurs d'un studio), RepositoryStudio.findByDirectorListId
+CREATE INDEX idx_director_studio ON director (studio_id);
+-- RepositoryMovie.findByTitle, findByMovieQuery, findByMovieNativeQuery
+CREATE INDEX idx_movie_title ON movie (title);
+-- Director.moviesDirected (graphe GRAPH_MOVIES, export) et suppression d'un directeur
+CREATE INDEX idx_movie_director ON movie (director_id);
+-- RepositoryCountryR2dbc.findAllByContinent
+CREATE INDEX idx_country_continent ON country (country_continent);
@@ -0,0 +1,8 @@
+-- Verrouillage optimiste (@Version) de Director, Studio et Movie
+-- Hibernate incrémente la colonne à chaque UPDATE et vérifie l'ancienne valeur dans le WHERE :
+-- une modification concurrente fait échouer la transaction au lieu d'écraser silencieusement l'autre
+-- La colonne sert aussi à calculer les ETag des GET /directors/{id} et /studios/{id}/studio (requêtes conditionnelles)
+-- Les lignes existantes partent de la version 0
+ALTER TABLE studio ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE director ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE movie ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,4 @@
+-- Notes des utilisateurs (RatingAggregator) : nombre de votes déjà intégrés dans movie.rating
+-- La note devient la moyenne des votes, mise à jour par lots : rating = (rating * vote_count + somme) / (vote_count + n)
+-- Tant qu'un film n'a aucun vote (0), sa note initiale est remplacée par la moyenne des premiers votes
+ALTER TABLE movie ADD COLUMN vote_count BIGINT DEFAULT 0 NOT NULL;
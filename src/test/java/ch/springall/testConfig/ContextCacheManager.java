@@ -0,0 +1,100 @@
+package ch.springall.testConfig;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.Configuration;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Properties;
+import java.util.UUID;
+
+//CacheManager JCache du cache de second niveau Hibernate, propre à chaque contexte de test
+// Le fournisseur Caffeine garde un seul CacheManager par URI pour toute la JVM : avec hibernate.javax.cache.uri, tous les
+// contextes Spring des tests (chacun avec sa propre base H2) partageraient les mêmes régions, et un Director#4 lu dans
+// une base serait servi depuis le cache dans une autre
+// La classe est déclarée dans application.properties des tests (hibernate.javax.cache.cache_manager) : Hibernate en crée
+// une instance par SessionFactory, donc par contexte, et la ferme avec lui
+// L'URI ne diffère que par son fragment : Caffeine lit toujours les régions de hibernate-cache.conf
+public class ContextCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+
+    public ContextCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        delegate = provider.getCacheManager(URI.create("hibernate-cache.conf#" + UUID.randomUUID()), getClass().getClassLoader());
+    }
+
+    @Override
+    public CachingProvider getCachingProvider() {
+        return delegate.getCachingProvider();
+    }
+
+    @Override
+    public URI getURI() {
+        return delegate.getURI();
+    }
+
+    @Override
+    public ClassLoader getClassLoader() {
+        return delegate.getClassLoader();
+    }
+
+    @Override
+    public Properties getProperties() {
+        return delegate.getProperties();
+    }
+
+    @Override
+    public <K, V, C extends Configuration<K, V>> Cache<K, V> createCache(String cacheName, C configuration) {
+        return delegate.createCache(cacheName, configuration);
+    }
+
+    @Override
+    public <K, V> Cache<K, V> getCache(String cacheName, Class<K> keyType, Class<V> valueType) {
+        return delegate.getCache(cacheName, keyType, valueType);
+    }
+
+    @Override
+    public <K, V> Cache<K, V> getCache(String cacheName) {
+        return delegate.getCache(cacheName);
+    }
+
+    @Override
+    public Iterable<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    @Override
+    public void destroyCache(String cacheName) {
+        delegate.destroyCache(cacheName);
+    }
+
+    @Override
+    public void enableManagement(String cacheName, boolean enabled) {
+        delegate.enableManagement(cacheName, enabled);
+    }
+
+    @Override
+    public void enableStatistics(String cacheName, boolean enabled) {
+        delegate.enableStatistics(cacheName, enabled);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return delegate.isClosed();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) {
+        return type.isInstance(this) ? type.cast(this) : delegate.unwrap(type);
+    }
+}
@@ -0,0 +1,190 @@
+package ch.springall.testConfig;
+
+import ch.springall.config.ReplicaDataSource;
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.dtos.StudioRecord;
+import ch.springall.entity.Studio;
+import ch.springall.repository.jpa.RepositoryStudio;
+import ch.springall.service.ServiceDirector;
+import ch.springall.service.ServiceStudio;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Routage primaire / réplica avec deux bases H2 en mémoire : la base habituelle des tests (primaire) et une base "réplica"
+// Il n'y a pas de réplication entre les deux : une ligne écrite dans une seule base montre laquelle a servi la lecture
+// Le schéma du réplica est créé par les migrations Flyway avant le démarrage du contexte (les index en mémoire
+// sont chargés au démarrage par des transactions en lecture, donc sur le réplica)
+@SpringBootTest(properties = {
+        "springall.datasource.routing.replicas[0].url=" + TestDataSourceRouting.REPLICA_URL,
+        "springall.datasource.routing.replicas[0].username=sa",
+        "springall.datasource.routing.replicas[0].password=",
+        "springall.datasource.routing.lag-query=SELECT lag_seconds FROM replica_status",
+        "springall.datasource.routing.max-lag=5s",
+        // Contrôles lancés par les tests uniquement
+        "springall.datasource.routing.health-check-interval=1h"
+})
+public class TestDataSourceRouting {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    static {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").locations("classpath:db/migration").load().migrate();
+        // Retard de réplication simulé, lu par lag-query
+        replica.execute("CREATE TABLE IF NOT EXISTS replica_status (lag_seconds DOUBLE NOT NULL)");
+        replica.update("DELETE FROM replica_status");
+        replica.update("INSERT INTO replica_status VALUES (0)");
+    }
+
+    @Autowired
+    private ServiceStudio serviceStudio;
+
+    @Autowired
+    private ServiceDirector serviceDirector;
+
+    @Autowired
+    private RepositoryStudio repositoryStudio;
+
+    @Autowired
+    private ReplicaDataSource replicaDataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    public void restoreReplica() {
+        replica.update("UPDATE replica_status SET lag_seconds = 0");
+        replicaDataSource.checkReplicas();
+    }
+
+    // Nombre de studios de ce nom vus par une transaction en lecture (readOnly) ou en écriture
+    private int countStudios(String name, boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status ->
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM studio WHERE studio_name = ?", Integer.class, name));
+    }
+
+    @Test
+    @DisplayName("Test routage : les transactions readOnly lisent le réplica, les autres le primaire")
+    public void testReadOnlyGoesToReplica() {
+        //Arrange : un studio seulement dans le réplica, un autre seulement dans le primaire (écrit par le service)
+        replica.update("INSERT INTO studio (id, studio_name, studio_founded_year, version) VALUES (990001, 'Replica Studio', 1912, 0)");
+        serviceStudio.addStudio(new StudioRecord(null, "Primary Studio", 1919, null));
+        double replicaConnections = meterRegistry.get("springall.datasource.read.connections").tag("pool", "replica-1")
+                .functionCounter().count();
+
+        //Act : lecture du repository hors transaction (transaction en lecture de Spring Data)
+        Optional<Studio> studio = repositoryStudio.findById(990001L);
+
+        //Assert
+        assertEquals("Replica Studio", studio.orElseThrow().getStudioName());
+        assertEquals(0, countStudios("Primary Studio", true));
+        assertEquals(1, countStudios("Primary Studio", false));
+        assertEquals(0, countStudios("Replica Studio", false));
+        assertTrue(meterRegistry.get("springall.datasource.read.connections").tag("pool", "replica-1")
+                .functionCounter().count() >= replicaConnections + 2);
+        assertNotNull(meterRegistry.find("hikaricp.connections.active").tag("pool", "replica-1").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections.active").tag("pool", "primary").gauge());
+    }
+
+    @Test
+    @DisplayName("Test repli : un réplica en retard est écarté (lectures sur le primaire) puis remis en service")
+    public void testFallbackWhenLagging() {
+        //Arrange
+        serviceStudio.addStudio(new StudioRecord(null, "Primary Studio Lag", 1920, null));
+        assertEquals(0, countStudios("Primary Studio Lag", true));
+
+        //Act : 60 s de retard, au-delà de max-lag
+        replica.update("UPDATE replica_status SET lag_seconds = 60");
+        replicaDataSource.checkReplicas();
+
+        //Assert
+        assertEquals(List.of(), replicaDataSource.getHealthyPools());
+        assertEquals(1, countStudios("Primary Studio Lag", true));
+        assertEquals(60.0, meterRegistry.get("springall.datasource.replica.lag").tag("pool", "replica-1").gauge().value());
+        assertEquals(0.0, meterRegistry.get("springall.datasource.replica.healthy").tag("pool", "replica-1").gauge().value());
+
+        //Act : le réplica a rattrapé son retard
+        replica.update("UPDATE replica_status SET lag_seconds = 0");
+        replicaDataSource.checkReplicas();
+
+        //Assert
+        assertEquals(List.of("replica-1"), replicaDataSource.getHealthyPools());
+        assertEquals(0, countStudios("Primary Studio Lag", true));
+    }
+
+    @Test
+    @DisplayName("Test écriture puis ETag : un réplica en retard (mais sain) ne sert ni les lectures des écritures, ni les ETags")
+    public void testWriteThenETagWithLaggingReplica() {
+        //Arrange : 2 s de retard, sous max-lag, le réplica reste utilisé ; les lignes écrites n'y arrivent jamais
+        replica.update("UPDATE replica_status SET lag_seconds = 2");
+        replicaDataSource.checkReplicas();
+        StudioRecord studio = serviceStudio.addStudio(new StudioRecord(null, "Primary Studio ETag", 1921, null));
+        Long directorId = serviceDirector.addDirectorRecord(new DirectorRecord(null, "Fritz", "Lang", LocalDate.of(1890, 12, 5), 0, null)).id();
+        String eTagBefore = serviceStudio.findStudioETag(studio.id());
+
+        //Act : findById du studio et du directeur puis save, dans la même transaction
+        serviceStudio.addDirector(studio.id(), directorId);
+        String eTagAfter = serviceStudio.findStudioETag(studio.id());
+
+        //Assert
+        assertEquals(List.of("replica-1"), replicaDataSource.getHealthyPools());
+        assertEquals(0, countStudios("Primary Studio ETag", true));
+        assertNotEquals(eTagBefore, eTagAfter);
+        assertTrue(eTagAfter.matches("\"\\d+-1-" + directorId + "-\\d+\""), eTagAfter);
+        assertEquals(Optional.of("\"0\""), serviceDirector.findDirectorETag(directorId, false));
+
+        //Act : suppression, l'existence est vérifiée sur le primaire
+        serviceStudio.deleteStudio(studio.id());
+
+        //Assert
+        assertEquals(0, countStudios("Primary Studio ETag", false));
+    }
+
+    @Test
+    @DisplayName("Test écriture puis lecture : les Records mis en cache sont chargés sur le primaire, même avec un réplica en retard")
+    public void testWriteThenCachedReadWithLaggingReplica() {
+        //Arrange : 2 s de retard, sous max-lag, le réplica reste utilisé ; les lignes écrites n'y arrivent jamais
+        replica.update("UPDATE replica_status SET lag_seconds = 2");
+        replicaDataSource.checkReplicas();
+        StudioRecord studio = serviceStudio.addStudio(new StudioRecord(null, "Primary Studio Cache", 1922, null));
+        DirectorRecord director = serviceDirector.addDirectorRecord(new DirectorRecord(null, "Jean", "Renoir", LocalDate.of(1894, 9, 15), 0, null));
+        assertEquals(List.of(), serviceStudio.findStudio(studio.id()).directorList());
+        assertEquals("Renoir", serviceDirector.findDirectorByIdOptional(director.id()).orElseThrow().lastName());
+
+        //Act : chaque écriture invalide l'entrée du cache après le commit, la lecture suivante la recharge
+        serviceStudio.addDirector(studio.id(), director.id());
+        serviceDirector.updateDirector(new DirectorRecord(director.id(), "Jean", "Renoir Jr", director.birthDate(), 0, null));
+        StudioRecord studioAfter = serviceStudio.findStudio(studio.id());
+        Optional<DirectorRecord> directorAfter = serviceDirector.findDirectorByIdOptional(director.id());
+
+        //Assert : le réplica est toujours sain, mais ni le studio ni le directeur n'y existent
+        assertEquals(List.of("replica-1"), replicaDataSource.getHealthyPools());
+        assertEquals(List.of(director.id()), studioAfter.directorList().stream().map(DirectorRecord::id).toList());
+        assertEquals("Renoir Jr", directorAfter.orElseThrow().lastName());
+        assertEquals(serviceStudio.findStudioETag(studio.id()), serviceStudio.findVersionedStudio(studio.id()).eTag());
+    }
+}
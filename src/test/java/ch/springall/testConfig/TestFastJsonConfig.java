@@ -0,0 +1,70 @@
+package ch.springall.testConfig;
+
+import ch.springall.config.FastJavaTimeModule;
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.dtos.MovieRecord;
+import ch.springall.dtos.StudioRecord;
+import ch.springall.entity.Genre;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// La configuration JSON rapide (FastJsonConfig) doit produire exactement le même JSON que la configuration par défaut
+// Test sans contexte Spring : les deux ObjectMapper sont construits comme le fait Spring Boot (Jackson2ObjectMapperBuilder)
+public class TestFastJsonConfig {
+
+    private final ObjectMapper defaultMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper fastMapper = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new BlackbirdModule(), new FastJavaTimeModule())
+            .build();
+
+    // Dates avec un pattern non pris en charge par le chemin rapide : elles doivent passer par JavaTimeModule
+    record OtherFormats(@JsonFormat(pattern = "yyyy-MM-dd'T'HH") LocalDateTime quoted,
+                        @JsonFormat(pattern = "d/M/yy") LocalDate shortDate,
+                        LocalDate isoDate,
+                        @JsonFormat(pattern = "dd/MM/yyyy HH:mm:ss") LocalDateTime withSeconds) {
+    }
+
+    @Test
+    @DisplayName("Test JSON identique pour un studio, ses directeurs et leurs films")
+    public void testSameJsonForRecords() throws Exception {
+        //Arrange
+        MovieRecord m1 = new MovieRecord(1L, "Pulp Fiction", LocalDateTime.of(1994, 10, 14, 20, 5), Genre.values()[0], 8.9, 1L);
+        MovieRecord m2 = new MovieRecord(2L, "Kill \"Bill\"", LocalDateTime.of(2003, 1, 9, 9, 30), null, 8.2, 1L);
+        MovieRecord m3 = new MovieRecord(3L, "Sans date", null, null, 0, null);
+        DirectorRecord d1 = new DirectorRecord(1L, "Quentin", "Tarantino", LocalDate.of(1963, 3, 27), 2, List.of(m1, m2, m3));
+        DirectorRecord d2 = new DirectorRecord(2L, "Agnès", "Varda", null, 0, null);
+        StudioRecord studio = new StudioRecord(1L, "Miramax", 1979, List.of(d1, d2));
+
+        //Act
+        String expected = defaultMapper.writeValueAsString(studio);
+        String actual = fastMapper.writeValueAsString(studio);
+
+        //Assert
+        assertEquals(expected, actual);
+        assertTrue(actual.contains("\"birthDate\":\"27/03/1963\""));
+        assertTrue(actual.contains("\"releaseDate\":\"09/01/2003:09:30\""));
+    }
+
+    @Test
+    @DisplayName("Test repli sur JavaTimeModule pour les autres patterns et les années hors de 1..9999")
+    public void testFallbackFormats() throws Exception {
+        //Arrange
+        OtherFormats dates = new OtherFormats(LocalDateTime.of(2024, 2, 29, 23, 59), LocalDate.of(2024, 2, 3),
+                LocalDate.of(2024, 2, 3), LocalDateTime.of(2024, 2, 3, 4, 5, 6));
+        DirectorRecord farFuture = new DirectorRecord(1L, "A", "B", LocalDate.of(12345, 1, 1), 0, null);
+
+        //Act + Assert
+        assertEquals(defaultMapper.writeValueAsString(dates), fastMapper.writeValueAsString(dates));
+        assertEquals(defaultMapper.writeValueAsString(farFuture), fastMapper.writeValueAsString(farFuture));
+    }
+}
@@ -0,0 +1,50 @@
+package ch.springall.testConfig;
+
+import ch.springall.config.NativeHintsConfig;
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.entity.PooledLoSequenceGenerator;
+import ch.springall.monitoring.SqlStatementCounter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.ReflectiveRuntimeHintsRegistrar;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Test des hints AOT / image native sans construire l'image : on vérifie que les types et ressources sont bien déclarés
+public class TestNativeHintsConfig {
+
+    @Test
+    @DisplayName("Test hints : générateur d'ids, inspecteur SQL et ressources lues par Hibernate")
+    public void testRuntimeHints() {
+        //Arrange
+        RuntimeHints hints = new RuntimeHints();
+        RuntimeHintsRegistrar registrar = new NativeHintsConfig.SpringAllRuntimeHints();
+
+        //Act
+        registrar.registerHints(hints, getClass().getClassLoader());
+
+        //Assert
+        assertTrue(RuntimeHintsPredicates.reflection().onType(PooledLoSequenceGenerator.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(SqlStatementCounter.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("hibernate-cache.conf").test(hints));
+    }
+
+    @Test
+    @DisplayName("Test hints : les Records sérialisés par Jackson sont déclarés pour la réflexion")
+    public void testBindingHints() {
+        //Arrange
+        RuntimeHints hints = new RuntimeHints();
+
+        //Act
+        new ReflectiveRuntimeHintsRegistrar().registerRuntimeHints(hints, NativeHintsConfig.class);
+
+        //Assert
+        assertTrue(RuntimeHintsPredicates.reflection().onType(DirectorRecord.class).test(hints));
+    }
+}
@@ -0,0 +1,160 @@
+package ch.springall.testControllers;
+
+import ch.springall.config.BinaryFormatsConfig;
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.dtos.StudioRecord;
+import ch.springall.service.ServiceDirector;
+import ch.springall.service.ServiceStudio;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Tests de la négociation de contenu : mêmes endpoints en JSON, CBOR et Smile (Accept / Content-Type)
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+public class TestBinaryFormats {
+
+    private static final MediaType SMILE = MediaType.parseMediaType(BinaryFormatsConfig.APPLICATION_SMILE_VALUE);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ServiceDirector serviceDirector;
+
+    @Autowired
+    private ServiceStudio serviceStudio;
+
+    // ObjectMapper des convertisseurs : mêmes réglages que ceux de l'application
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @Test
+    @DisplayName("Test GET /directors/{id} : JSON par défaut, CBOR et Smile avec Accept")
+    public void testGetDirector() throws Exception {
+        //Arrange
+        DirectorRecord director = serviceDirector.addDirectorRecord(
+                new DirectorRecord(null, "Agnès", "Varda", LocalDate.of(1928, 5, 30), 0, null));
+        String url = "/directors/" + director.id();
+
+        //Act
+        MvcResult json = mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn();
+        MvcResult cbor = mockMvc.perform(get(url).accept(MediaType.APPLICATION_CBOR)).andExpect(status().isOk()).andReturn();
+        MvcResult smile = mockMvc.perform(get(url).accept(SMILE)).andExpect(status().isOk()).andReturn();
+
+        //Assert
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, json.getResponse().getContentType());
+        assertEquals(MediaType.APPLICATION_CBOR_VALUE, cbor.getResponse().getContentType());
+        assertEquals(BinaryFormatsConfig.APPLICATION_SMILE_VALUE, smile.getResponse().getContentType());
+        for (DirectorRecord read : List.of(read(cborConverter.getObjectMapper(), cbor, DirectorRecord.class),
+                read(smileConverter.getObjectMapper(), smile, DirectorRecord.class))) {
+            assertEquals(director.id(), read.id());
+            assertEquals("Varda", read.lastName());
+            assertEquals(LocalDate.of(1928, 5, 30), read.birthDate());
+        }
+        assertTrue(cbor.getResponse().getContentAsByteArray().length < json.getResponse().getContentAsByteArray().length);
+    }
+
+    @Test
+    @DisplayName("Test ETag : une représentation par format, 304 seulement pour le même format")
+    public void testETagPerFormat() throws Exception {
+        //Arrange
+        DirectorRecord director = serviceDirector.addDirectorRecord(
+                new DirectorRecord(null, "Éric", "Rohmer", LocalDate.of(1920, 3, 21), 0, null));
+        String url = "/directors/" + director.id();
+        String jsonETag = mockMvc.perform(get(url)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        //Act
+        String cborETag = mockMvc.perform(get(url).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        //Assert
+        assertNotNull(cborETag);
+        assertNotEquals(jsonETag, cborETag);
+        mockMvc.perform(get(url).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, cborETag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get(url).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, jsonETag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, cborETag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Test POST /directors/add et PUT /directors/update : corps en CBOR et en Smile")
+    public void testBinaryRequestBodies() throws Exception {
+        //Arrange
+        ObjectMapper cborMapper = cborConverter.getObjectMapper();
+        ObjectMapper smileMapper = smileConverter.getObjectMapper();
+        DirectorRecord director = new DirectorRecord(null, "Jacques", "Demy", LocalDate.of(1931, 6, 5), 0, null);
+
+        //Act : ajout en CBOR, réponse en CBOR
+        MvcResult added = mockMvc.perform(post("/directors/add").with(csrf())
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(cborMapper.writeValueAsBytes(director)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        DirectorRecord created = read(cborMapper, added, DirectorRecord.class);
+        String cborETag = mockMvc.perform(get("/directors/" + created.id()).accept(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        //Act : mise à jour en Smile, conditionnée par l'ETag de la représentation CBOR (même version)
+        mockMvc.perform(put("/directors/update").with(csrf())
+                        .contentType(SMILE)
+                        .accept(SMILE)
+                        .header(HttpHeaders.IF_MATCH, cborETag)
+                        .content(smileMapper.writeValueAsBytes(new DirectorRecord(created.id(), "Jacques", "Demy",
+                                LocalDate.of(1931, 6, 5), 1, null))))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE));
+
+        //Assert
+        assertEquals("Demy", created.lastName());
+        assertEquals(LocalDate.of(1931, 6, 5), created.birthDate());
+        assertEquals(1, serviceDirector.findDirectorByIdOptional(created.id()).orElseThrow().oscarCount());
+    }
+
+    @Test
+    @DisplayName("Test GET /studios/{id}/studio en Smile")
+    public void testGetStudioSmile() throws Exception {
+        //Arrange
+        StudioRecord studio = serviceStudio.addStudio(new StudioRecord(null, "Pathé", 1896, null));
+
+        //Act
+        MvcResult smile = mockMvc.perform(get("/studios/" + studio.id() + "/studio").accept(SMILE))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        //Assert
+        StudioRecord read = read(smileConverter.getObjectMapper(), smile, StudioRecord.class);
+        assertEquals("Pathé", read.studioName());
+        assertEquals(1896, read.studioFoundedYear());
+    }
+
+    private static <T> T read(ObjectMapper mapper, MvcResult result, Class<T> type) throws Exception {
+        return mapper.readValue(result.getResponse().getContentAsByteArray(), type);
+    }
+}
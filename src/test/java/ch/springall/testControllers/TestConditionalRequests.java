@@ -0,0 +1,254 @@
+package ch.springall.testControllers;
+
+import ch.springall.config.CacheConfig;
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.dtos.MovieRecord;
+import ch.springall.dtos.StudioRecord;
+import ch.springall.entity.Genre;
+import ch.springall.entity.Movie;
+import ch.springall.repository.jpa.RepositoryMovie;
+import ch.springall.service.ServiceDirector;
+import ch.springall.service.ServiceStudio;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Tests des requêtes conditionnelles : ETag calculé à partir des colonnes @Version, 304 avec If-None-Match, 412 avec If-Match
+// L'ETag de GET est gardé en cache avec le Record servi : une écriture faite sans passer par un service n'est vue qu'après invalidation
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+public class TestConditionalRequests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ServiceDirector serviceDirector;
+
+    @Autowired
+    private ServiceStudio serviceStudio;
+
+    @Autowired
+    private RepositoryMovie repositoryMovie;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private String eTagOf(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    // Requêtes SQL émises jusqu'ici par les requêtes HTTP de la route (métrique de SqlStatementBudgetInterceptor) :
+    // le compteur par thread est remis à zéro à chaque requête HTTP, SqlAssertions ne peut pas le lire après MockMvc
+    private double sqlStatements(String route) {
+        DistributionSummary summary = meterRegistry.find("springall.sql.statements").tag("uri", route).summary();
+        return summary == null ? 0 : summary.totalAmount();
+    }
+
+    @Test
+    @DisplayName("Test GET /directors/{id} : 304 sans corps tant que le directeur n'a pas changé, 200 après une mise à jour")
+    public void testDirectorNotModified() throws Exception {
+        //Arrange
+        DirectorRecord director = serviceDirector.addDirectorRecord(
+                new DirectorRecord(null, "Chantal", "Akerman", LocalDate.of(1950, 6, 6), 0, null));
+        String url = "/directors/" + director.id();
+        String eTag = eTagOf(url);
+
+        //Act + Assert : même version -> 304 sans corps
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+
+        //Act + Assert : après une mise à jour, l'ancien ETag ne correspond plus
+        serviceDirector.updateDirector(new DirectorRecord(director.id(), "Chantal", "Akerman", LocalDate.of(1950, 6, 6), 1, null));
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.oscarCount").value(1));
+        assertNotEquals(eTag, eTagOf(url));
+    }
+
+    @Test
+    @DisplayName("Test GET /directors/{id}?expand=movies : l'ETag change quand un film du directeur change")
+    public void testDirectorWithMoviesETag() throws Exception {
+        //Arrange
+        Long id = serviceDirector.addDirectorRecords(List.of(new DirectorRecord(null, "Jacques", "Tati", LocalDate.of(1907, 10, 9), 1,
+                List.of(new MovieRecord(null, "Playtime", LocalDateTime.of(1967, 12, 16, 20, 0), Genre.COMEDY, 7.9, null))))).getFirst();
+        String url = "/directors/" + id;
+        String eTag = eTagOf(url);
+        String eTagWithMovies = eTagOf(url + "?expand=movies");
+
+        //Act : le film est modifié directement par le repository, puis le Record en cache est invalidé
+        // comme le font les services qui modifient un film (voir RatingAggregator)
+        Movie movie = repositoryMovie.findByTitle("Playtime");
+        movie.setRating(8.0);
+        repositoryMovie.save(movie);
+        String eTagBeforeEviction = eTagOf(url + "?expand=movies");
+        cacheManager.getCache(CacheConfig.DIRECTORS_WITH_MOVIES).evict(id);
+
+        //Assert
+        assertEquals(eTag, eTagOf(url));
+        assertEquals(eTagWithMovies, eTagBeforeEviction);
+        assertNotEquals(eTagWithMovies, eTagOf(url + "?expand=movies"));
+    }
+
+    @Test
+    @DisplayName("Test GET /directors/{id} : l'ETag est celui du Record servi, même si la base a changé depuis sa mise en cache")
+    public void testETagMatchesServedRecord() throws Exception {
+        //Arrange : le Record est en cache
+        DirectorRecord director = serviceDirector.addDirectorRecord(
+                new DirectorRecord(null, "Alice", "Guy", LocalDate.of(1873, 7, 1), 0, null));
+        String url = "/directors/" + director.id();
+        String eTag = eTagOf(url);
+
+        //Act : nouvelle version écrite en base sans invalider le cache (fenêtre entre le commit et l'invalidation)
+        jdbcTemplate.update("UPDATE director SET oscar_count = 3, version = version + 1 WHERE id = ?", director.id());
+
+        //Assert : le Record en cache part avec son propre ETag, pas avec celui de la nouvelle version
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(jsonPath("$.oscarCount").value(0));
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        //Act : une écriture par le service invalide le cache (après le commit)
+        serviceDirector.incrementOscarCount(List.of(director.id()), 1);
+
+        //Assert : Record et ETag de la dernière version
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andExpect(jsonPath("$.oscarCount").value(4));
+    }
+
+    @Test
+    @DisplayName("Test PUT /directors/update avec If-Match : 200 et nouvel ETag, puis 412 avec l'ETag périmé")
+    public void testUpdateWithIfMatch() throws Exception {
+        //Arrange
+        DirectorRecord director = serviceDirector.addDirectorRecord(
+                new DirectorRecord(null, "Claire", "Denis", LocalDate.of(1946, 4, 21), 0, null));
+        String eTag = eTagOf("/directors/" + director.id());
+        String body = """
+                {"id": %d, "firstName": "Claire", "lastName": "Denis", "birthDate": "21/04/1946", "oscarCount": %d}
+                """;
+
+        //Act + Assert : l'ETag lu est à jour -> la modification passe
+        String newETag = mockMvc.perform(put("/directors/update").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .content(body.formatted(director.id(), 1)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(eTag, newETag);
+
+        //Act + Assert : un second client avec l'ancien ETag ne peut pas écraser cette modification
+        mockMvc.perform(put("/directors/update").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .content(body.formatted(director.id(), 5)))
+                .andExpect(status().isPreconditionFailed());
+        assertEquals(1, serviceDirector.findDirectorByIdOptional(director.id()).orElseThrow().oscarCount());
+    }
+
+    @Test
+    @DisplayName("Test GET /studios/{id}/studio : 304 tant que le studio n'a pas changé")
+    public void testStudioNotModified() throws Exception {
+        //Arrange
+        StudioRecord studio = serviceStudio.addStudio(new StudioRecord(null, "Ghibli", 1985, null));
+        String url = "/studios/" + studio.id() + "/studio";
+        String eTag = eTagOf(url);
+
+        //Act + Assert
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/studios/-1/studio"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Test GET /directors/{id} hors cache avec If-None-Match : 304 sur la seule requête des versions, sans charger le directeur")
+    public void testDirectorNotModifiedWithoutLoading() throws Exception {
+        //Arrange
+        DirectorRecord director = serviceDirector.addDirectorRecord(new DirectorRecord(null, "Jacques", "Demy",
+                LocalDate.of(1931, 6, 5), 0, List.of(new MovieRecord(null, "Lola", LocalDateTime.of(1961, 3, 3, 0, 0),
+                Genre.ROMANCE, 7.5, null))));
+        String url = "/directors/" + director.id() + "?expand=movies";
+        String eTag = eTagOf(url);
+        String cborETag = mockMvc.perform(get(url).accept(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        cacheManager.getCache(CacheConfig.DIRECTORS_WITH_MOVIES).evict(director.id());
+
+        //Act + Assert : version inchangée -> 304 après une requête, le Record n'est ni chargé ni mis en cache
+        double statementsBefore = sqlStatements("/directors/{id}");
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+        assertEquals(1.0, sqlStatements("/directors/{id}") - statementsBefore);
+        mockMvc.perform(get(url).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, cborETag))
+                .andExpect(status().isNotModified());
+        assertFalse(serviceDirector.isDirectorCached(director.id(), true));
+
+        //Act + Assert : version changée -> 200 avec le Record, chargé et mis en cache
+        serviceDirector.updateDirector(new DirectorRecord(director.id(), "Jacques", "Demy", LocalDate.of(1931, 6, 5), 1, null));
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.oscarCount").value(1));
+        assertTrue(serviceDirector.isDirectorCached(director.id(), true));
+        mockMvc.perform(get("/directors/-1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Test GET /studios/{id}/studio hors cache avec If-None-Match : 304 sans charger le studio, ses directeurs et leurs films")
+    public void testStudioNotModifiedWithoutLoading() throws Exception {
+        //Arrange
+        StudioRecord studio = serviceStudio.addStudio(new StudioRecord(null, "Argos", 1949, null));
+        DirectorRecord director = serviceDirector.addDirectorRecord(
+                new DirectorRecord(null, "Alain", "Resnais", LocalDate.of(1922, 6, 3), 0, null));
+        serviceStudio.addDirector(studio.id(), director.id());
+        String url = "/studios/" + studio.id() + "/studio";
+        String eTag = eTagOf(url);
+        cacheManager.getCache(CacheConfig.STUDIOS).evict(studio.id());
+
+        //Act + Assert
+        double statementsBefore = sqlStatements("/studios/{id}/studio");
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+        assertEquals(1.0, sqlStatements("/studios/{id}/studio") - statementsBefore);
+        assertFalse(serviceStudio.isStudioCached(studio.id()));
+        mockMvc.perform(get("/studios/-1/studio").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,205 @@
+package ch.springall.testControllers;
+
+import ch.springall.config.ThreadingConfig;
+import ch.springall.controller.ChangeStream;
+import ch.springall.dtos.ChangeEventRecord.ChangeType;
+import ch.springall.dtos.ChangeEventRecord.EntityType;
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.service.ChangeFeed;
+import ch.springall.service.ServiceDirector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+// Tests de GET /changes : les écritures des services arrivent dans le flux SSE après le commit, reprise avec since / Last-Event-ID
+// Les événements sont envoyés sur un autre thread : la réponse (jamais terminée) est relue jusqu'à ce qu'ils arrivent
+// print = NONE : l'affichage de la réponse par MockMvc lirait ses en-têtes pendant que l'envoi les écrit
+@SpringBootTest
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+@WithMockUser
+public class TestControllerChanges {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private ServiceDirector serviceDirector;
+
+    @Autowired
+    @Qualifier(ThreadingConfig.CHANGES_TASK_EXECUTOR)
+    private AsyncTaskExecutor changesTaskExecutor;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor applicationTaskExecutor;
+
+    // Client qui ne lit plus : chaque écriture bloque jusqu'à ce que le thread de l'envoi soit interrompu
+    private static final class StalledEmitter extends SseEmitter {
+        private final CountDownLatch sendStarted = new CountDownLatch(1);
+        private final CountDownLatch failed = new CountDownLatch(1);
+        private volatile boolean virtualThread;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            virtualThread = Thread.currentThread().isVirtual();
+            sendStarted.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                throw new IOException("write interrupted", e);
+            }
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            failed.countDown();
+        }
+    }
+
+    // Client rapide : garde les événements reçus
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<SseEventBuilder> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            events.add(builder);
+        }
+    }
+
+    private MvcResult open(String url, Object... headers) throws Exception {
+        var builder = get(url).accept(MediaType.TEXT_EVENT_STREAM);
+        for (int i = 0; i < headers.length; i += 2) {
+            builder.header((String) headers[i], headers[i + 1]);
+        }
+        return mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = result.getResponse().getContentAsString();
+        }
+        return content;
+    }
+
+    @Test
+    @DisplayName("Test GET /changes : un directeur ajouté puis supprimé est publié dans le flux")
+    public void testStreamServiceChanges() throws Exception {
+        //Arrange
+        MvcResult stream = open("/changes");
+
+        //Act
+        DirectorRecord director = serviceDirector.addDirectorRecord(
+                new DirectorRecord(null, "Claire", "Denis", LocalDate.of(1946, 4, 21), 0, null));
+        serviceDirector.deleteDirectorById(director.id());
+
+        //Assert
+        String content = awaitContent(stream, "\"type\":\"DELETED\"");
+        assertTrue(content.contains("event:change"));
+        assertTrue(content.contains("\"entity\":\"DIRECTOR\",\"id\":" + director.id() + ",\"type\":\"CREATED\""));
+        assertTrue(content.contains("\"entity\":\"DIRECTOR\",\"id\":" + director.id() + ",\"type\":\"DELETED\""));
+    }
+
+    @Test
+    @DisplayName("Test GET /changes : reprise après un numéro (since, Last-Event-ID prioritaire)")
+    public void testResume() throws Exception {
+        //Arrange
+        long first = changeFeed.publish(EntityType.STUDIO, 901L, ChangeType.UPDATED);
+        long second = changeFeed.publish(EntityType.STUDIO, 902L, ChangeType.UPDATED);
+
+        //Act
+        MvcResult fromSince = open("/changes?since=" + (first - 1));
+        MvcResult fromHeader = open("/changes?since=" + (first - 1), "Last-Event-ID", first);
+
+        //Assert
+        String since = awaitContent(fromSince, "id:" + second);
+        assertTrue(since.contains("id:" + first + "\n"));
+        String header = awaitContent(fromHeader, "id:" + second);
+        assertTrue(header.contains("\"id\":902"));
+        assertFalse(header.contains("\"id\":901"));
+    }
+
+    @Test
+    @DisplayName("Test GET /changes : événement reset si le numéro demandé n'est plus dans le tampon")
+    public void testReset() throws Exception {
+        //Arrange
+        changeFeed.publish(EntityType.MOVIE, 903L, ChangeType.UPDATED);
+        long unknown = changeFeed.getLastSequence() + 1000;
+
+        //Act
+        MvcResult stream = open("/changes?since=" + unknown);
+
+        //Assert
+        String content = awaitContent(stream, "event:reset");
+        assertTrue(content.contains("event:reset"));
+        assertTrue(content.contains("\"sequence\":"));
+    }
+
+    @Test
+    @DisplayName("Test client lent : son envoi bloqué ne retarde ni les écrivains ni les autres clients, puis expire")
+    public void testSlowConsumer() throws Exception {
+        //Arrange : un client bloqué et un client rapide sur un flux dédié, envois sur changesTaskExecutor
+        ChangeFeed feed = new ChangeFeed(16);
+        StalledEmitter stalled = new StalledEmitter();
+        RecordingEmitter recording = new RecordingEmitter();
+        ChangeStream slow = new ChangeStream(feed, stalled, changesTaskExecutor, 0, Duration.ofMillis(200));
+        ChangeStream fast = new ChangeStream(feed, recording, changesTaskExecutor, 0, Duration.ofMillis(200));
+        feed.subscribe(slow::wake);
+        feed.subscribe(fast::wake);
+
+        //Act : les publications ne bloquent pas, même si le client lent n'a pas fini son premier envoi
+        long start = System.nanoTime();
+        for (long id = 1; id <= 5; id++) {
+            feed.publish(EntityType.DIRECTOR, id, ChangeType.UPDATED);
+        }
+        long publishMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(stalled.sendStarted.await(5, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (recording.events.size() < 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        boolean expiredTooEarly = slow.expireSlowSend();
+        Thread.sleep(300);
+        boolean expired = slow.expireSlowSend();
+
+        //Assert
+        assertTrue(publishMillis < 1000);
+        assertEquals(5, recording.events.size());
+        assertTrue(stalled.virtualThread);
+        assertNotSame(applicationTaskExecutor, changesTaskExecutor);
+        assertFalse(expiredTooEarly);
+        assertTrue(expired);
+        assertTrue(slow.isClosed());
+        assertTrue(stalled.failed.await(5, TimeUnit.SECONDS));
+        assertFalse(fast.expireSlowSend());
+        assertFalse(fast.isClosed());
+    }
+}
@@ -0,0 +1,105 @@
+package ch.springall.testControllers;
+
+import ch.springall.dtos.CountryRecord;
+import ch.springall.entity.Continent;
+import ch.springall.service.ServiceCountry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Flux;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Tests de l'API réactive des pays avec MockMvc
+// Chaque requête doit démarrer en mode asynchrone (request().asyncStarted()) : le thread du conteneur est rendu
+// immédiatement, la réponse est écrite plus tard lorsque R2DBC émet les résultats (asyncDispatch)
+// print = NONE : l'affichage de la réponse par MockMvc lirait ses en-têtes pendant que le flux les écrit
+@SpringBootTest
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+@WithMockUser
+public class TestControllerCountry {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ServiceCountry serviceCountry;
+
+    @BeforeEach
+    public void setUp() {
+        // Données communes aux tests (le nom d'un pays est unique : on ne les ajoute qu'une fois)
+        serviceCountry.findCountryByName("Japon")
+                .onErrorResume(e -> Flux.just(new CountryRecord(null, "Japon", Continent.ASIA),
+                                new CountryRecord(null, "Vietnam", Continent.ASIA))
+                        .concatMap(serviceCountry::addCountry)
+                        .last())
+                .block();
+    }
+
+    @Test
+    @DisplayName("Test GET /countries/continent/ASIA en JSON : tableau JSON")
+    public void testCountriesByContinentJson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/countries/continent/ASIA").accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[*].countryName", hasItems("Japon", "Vietnam")));
+    }
+
+    @Test
+    @DisplayName("Test GET /countries/continent/ASIA en NDJSON : un pays par ligne")
+    public void testCountriesByContinentNdjson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/countries/continent/ASIA").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // En streaming, on attend la fin du Flux avant de lire le corps de la réponse
+        result.getAsyncResult();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("{\"id\"")))
+                .andExpect(content().string(containsString("\"countryName\":\"Japon\",\"continent\":\"ASIA\"}\n")));
+    }
+
+    @Test
+    @DisplayName("Test GET /countries/continent/ASIA en Server-Sent Events")
+    public void testCountriesByContinentSse() throws Exception {
+        MvcResult result = mockMvc.perform(get("/countries/continent/ASIA").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // En streaming, on attend la fin du Flux avant de lire le corps de la réponse
+        result.getAsyncResult();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(content().string(containsString("data:{\"id\"")))
+                .andExpect(content().string(containsString("\"countryName\":\"Vietnam\"")));
+    }
+
+    @Test
+    @DisplayName("Test GET /countries/{name} : 404 si le pays n'existe pas")
+    public void testCountryNotFound() throws Exception {
+        MvcResult result = mockMvc.perform(get("/countries/Atlantide").accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,83 @@
+package ch.springall.testControllers;
+
+import ch.springall.dtos.MovieRecord;
+import ch.springall.entity.Genre;
+import ch.springall.service.ServiceMovie;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Tests de GET /movies/search : le film est ajouté par le service (JPA), l'entity listener le reporte dans l'index
+// et de POST /movies/ratings : votes acceptés (202) puis écrits en lot par RatingAggregator
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+public class TestControllerMovie {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ServiceMovie serviceMovie;
+
+    @Test
+    @DisplayName("Test GET /movies/search : un film ajouté est trouvé malgré une faute de frappe")
+    public void testSearchAfterInsert() throws Exception {
+        //Arrange
+        MovieRecord movie = serviceMovie.addMovie(new MovieRecord(null, "Mulholland Drive",
+                LocalDateTime.of(2001, Month.NOVEMBER, 21, 20, 0), Genre.THRILLER, 8.0, null));
+
+        //Act + Assert
+        mockMvc.perform(get("/movies/search").param("q", "mulholand"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(movie.id()))
+                .andExpect(jsonPath("$[0].title").value("Mulholland Drive"))
+                .andExpect(jsonPath("$[0].score", greaterThan(0.0)));
+        mockMvc.perform(get("/movies/search").param("q", "mulholland").param("genre", "COMEDY"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", empty()));
+    }
+
+    @Test
+    @DisplayName("Test GET /movies/search sans requête : liste vide")
+    public void testBlankQuery() throws Exception {
+        mockMvc.perform(get("/movies/search"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", empty()));
+    }
+
+    @Test
+    @DisplayName("Test POST /movies/ratings : 202 avec le nombre de votes acceptés, 400 si une note est absente ou hors de [0, 10]")
+    public void testAddRatings() throws Exception {
+        //Arrange
+        MovieRecord movie = serviceMovie.addMovie(new MovieRecord(null, "Stalker",
+                LocalDateTime.of(1979, Month.MAY, 25, 20, 0), Genre.SCI_FI, 8.0, null));
+        String ratings = "[{\"movieId\": " + movie.id() + ", \"rating\": 8.5}, {\"movieId\": " + movie.id() + ", \"rating\": 9}]";
+
+        //Act + Assert
+        mockMvc.perform(post("/movies/ratings").with(csrf()).contentType(MediaType.APPLICATION_JSON).content(ratings))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.received").value(2))
+                .andExpect(jsonPath("$.accepted").value(2));
+        mockMvc.perform(post("/movies/ratings").with(csrf()).contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"movieId\": " + movie.id() + ", \"rating\": 11}]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/movies/ratings").with(csrf()).contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"movieId\": " + movie.id() + "}]"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,40 @@
+package ch.springall.testMonitoring;
+
+import ch.springall.monitoring.SqlStatementCounter;
+import ch.springall.monitoring.SqlStatementCounter.StatementType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Assertions sur le nombre de requêtes SQL émises par Hibernate sur le thread du test
+// Usage : SqlAssertions.reset() juste avant l'appel à mesurer (après la préparation des données), puis assertSelectCount(n)
+// Le service doit être appelé sur le thread du test (pas de @Async) pour que ses requêtes soient comptées
+public final class SqlAssertions {
+
+    private SqlAssertions() {
+    }
+
+    public static void reset() {
+        SqlStatementCounter.reset();
+    }
+
+    public static void assertSelectCount(long expected) {
+        assertCount(StatementType.SELECT, expected);
+    }
+
+    public static void assertInsertCount(long expected) {
+        assertCount(StatementType.INSERT, expected);
+    }
+
+    public static void assertUpdateCount(long expected) {
+        assertCount(StatementType.UPDATE, expected);
+    }
+
+    public static void assertDeleteCount(long expected) {
+        assertCount(StatementType.DELETE, expected);
+    }
+
+    private static void assertCount(StatementType type, long expected) {
+        assertEquals(expected, SqlStatementCounter.count(type),
+                () -> "Unexpected number of " + type + " statements (" + SqlStatementCounter.summary() + ")");
+    }
+}
@@ -0,0 +1,66 @@
+package ch.springall.testMonitoring;
+
+import ch.springall.service.ServiceMovie;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Tests de l'endpoint /actuator/prometheus, appelé sans utilisateur connecté (comme le scraper Prometheus)
+// @AutoConfigureObservability : par défaut, Spring Boot n'active pas l'export des métriques dans les tests
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+public class TestMetrics {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ServiceMovie serviceMovie;
+
+    @Test
+    @DisplayName("Test scrape Prometheus : métriques JVM, Hikari, Hibernate, index des pays et des titres")
+    public void testPrometheusScrape() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(allOf(
+                        containsString("jvm_memory_used_bytes"),
+                        containsString("jvm_gc_"),
+                        containsString("hikaricp_connections_active"),
+                        containsString("hikaricp_connections_idle"),
+                        containsString("hikaricp_connections_pending"),
+                        containsString("hikaricp_connections_acquire_seconds"),
+                        containsString("hibernate_query_executions"),
+                        containsString("hibernate_entities_loads"),
+                        containsString("hibernate_second_level_cache_requests"),
+                        containsString("hibernate_flushes"),
+                        containsString("springall_countries_index_size"),
+                        containsString("springall_movies_search_size"),
+                        containsString("springall_ratings_pending_movies"),
+                        containsString("springall_ratings_dropped_total{"),
+                        containsString("springall_changes_subscribers"))));
+    }
+
+    @Test
+    @DisplayName("Test timer des services : percentiles par classe et par méthode")
+    public void testServiceTimer() throws Exception {
+        //Arrange
+        serviceMovie.findMovie(-1L);
+
+        //Act + Assert
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(allOf(
+                        containsString("springall_service_seconds_count{"),
+                        containsString("method=\"findMovie\""),
+                        containsString("quantile=\"0.99\""))));
+    }
+}
@@ -0,0 +1,79 @@
+package ch.springall.testMonitoring;
+
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.monitoring.SqlStatementCounter;
+import ch.springall.monitoring.SqlStatementCounter.StatementType;
+import ch.springall.service.ServiceDirector;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Tests du comptage des requêtes SQL et du budget par route
+// Le budget de GET /directors est mis à 0 : la moindre requête SQL le dépasse
+@SpringBootTest(properties = "springall.sql.budget.endpoints[/directors]=0")
+@AutoConfigureMockMvc
+@WithMockUser
+public class TestSqlStatementBudget {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ServiceDirector serviceDirector;
+
+    @Test
+    @DisplayName("Test classification des requêtes SQL")
+    public void testStatementTypes() {
+        //Arrange
+        SqlStatementCounter counter = new SqlStatementCounter();
+        SqlStatementCounter.reset();
+
+        //Act
+        counter.inspect("select d1_0.id from director d1_0");
+        counter.inspect("/* load Director */ select d1_0.id from director d1_0 where d1_0.id=?");
+        counter.inspect("select next value for movie_seq");
+        counter.inspect("insert into movie (title,id) values (?,?)");
+        counter.inspect("update director set oscar_count=? where id=?");
+        counter.inspect("delete from studio where id=?");
+
+        //Assert
+        assertEquals(2, SqlStatementCounter.count(StatementType.SELECT));
+        assertEquals(1, SqlStatementCounter.count(StatementType.INSERT));
+        assertEquals(1, SqlStatementCounter.count(StatementType.UPDATE));
+        assertEquals(1, SqlStatementCounter.count(StatementType.DELETE));
+        assertEquals(1, SqlStatementCounter.count(StatementType.OTHER));
+        assertEquals(6, SqlStatementCounter.total());
+        SqlStatementCounter.reset();
+        assertEquals(0, SqlStatementCounter.total());
+    }
+
+    @Test
+    @DisplayName("Test budget dépassé : métriques springall.sql.statements et springall.sql.budget.exceeded")
+    public void testBudgetExceeded() throws Exception {
+        //Arrange : une page non vide (sans directeur, la route répond 204)
+        serviceDirector.addDirectorRecord(new DirectorRecord(null, "Agnès", "Varda", LocalDate.of(1928, 5, 30), 0, null));
+
+        //Act
+        mockMvc.perform(get("/directors")).andExpect(status().isOk());
+
+        //Assert
+        assertTrue(meterRegistry.get("springall.sql.statements").tag("uri", "/directors").summary().totalAmount() >= 1);
+        assertEquals(1.0, meterRegistry.get("springall.sql.budget.exceeded").tag("uri", "/directors").counter().count());
+        // Le compteur du thread est remis à zéro à la fin de la requête
+        assertEquals(0, SqlStatementCounter.total());
+    }
+}
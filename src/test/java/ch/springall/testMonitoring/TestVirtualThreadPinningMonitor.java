@@ -0,0 +1,65 @@
+package ch.springall.testMonitoring;
+
+import ch.springall.monitoring.VirtualThreadPinningMonitor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Test du moniteur JFR sans contexte Spring : on provoque volontairement un pinning dans notre propre code
+public class TestVirtualThreadPinningMonitor {
+
+    private final Object lock = new Object();
+
+    private VirtualThreadPinningMonitor monitor;
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void setUp() {
+        monitor = new VirtualThreadPinningMonitor(Duration.ofMillis(10));
+        monitor.bindTo(registry);
+        monitor.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        monitor.stop();
+    }
+
+    @Test
+    @DisplayName("Test détection d'un thread virtuel épinglé dans un bloc synchronized")
+    public void testPinnedInApplicationCode() throws Exception {
+        //Act : un thread virtuel qui dort dans un bloc synchronized reste épinglé à son porteur (Java 21)
+        Thread.ofVirtual().start(this::sleepWhileHoldingLock).join();
+
+        //Assert : JFR transmet les événements par paquets (environ une fois par seconde), on attend donc un peu
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (monitor.getApplicationPinnedCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        assertTrue(monitor.getApplicationPinnedCount() > 0);
+        assertTrue(monitor.getPinnedLocations().keySet().stream()
+                .anyMatch(location -> location.startsWith(TestVirtualThreadPinningMonitor.class.getName() + ".sleepWhileHoldingLock")));
+        assertEquals((double) monitor.getApplicationPinnedCount(),
+                registry.get("springall.virtual-threads.pinned").tag("origin", "app").functionCounter().count());
+        assertEquals((double) (monitor.getPinnedCount() - monitor.getApplicationPinnedCount()),
+                registry.get("springall.virtual-threads.pinned").tag("origin", "non-app").functionCounter().count());
+    }
+
+    private void sleepWhileHoldingLock() {
+        synchronized (lock) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package ch.springall.testRepositories;
+
+import ch.springall.entity.Continent;
+import ch.springall.entity.Director;
+import ch.springall.entity.Studio;
+import ch.springall.repository.jpa.RepositoryDirector;
+import ch.springall.repository.jpa.RepositoryMovie;
+import ch.springall.repository.jpa.RepositoryStudio;
+import ch.springall.repository.r2dbc.RepositoryCountryR2dbc;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Vérifie que les requêtes générées par les repositories utilisent un index des migrations Flyway (db/migration)
+// Chaque repository est appelé pour de vrai ; le SQL qu'il a envoyé est relu dans les statistiques de requêtes de H2
+// (INFORMATION_SCHEMA.QUERY_STATISTICS), puis son plan d'exécution (EXPLAIN) est demandé sur la base migrée par Flyway :
+// un accès par index y apparaît sous la forme "/* PUBLIC.IDX_... */", un parcours complet sous la forme "/* PUBLIC.<TABLE>.tableScan */"
+// Le démarrage du contexte vérifie aussi que les migrations correspondent aux entités (ddl-auto=validate)
+@SpringBootTest
+public class TestQueryIndexes {
+
+    private static final String QUERY_STATISTICS = "SELECT SQL_STATEMENT FROM INFORMATION_SCHEMA.QUERY_STATISTICS";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RepositoryDirector repositoryDirector;
+
+    @Autowired
+    private RepositoryMovie repositoryMovie;
+
+    @Autowired
+    private RepositoryStudio repositoryStudio;
+
+    @Autowired
+    private RepositoryCountryR2dbc repositoryCountryR2dbc;
+
+    @BeforeEach
+    public void setUp() {
+        // Statistiques remises à zéro à chaque activation ; le cache de second niveau est vidé pour que les collections
+        // soient réellement lues en base
+        jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+        jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("Test index : RepositoryDirector.findByFirstNameAndLastName")
+    public void testDirectorNamesIndex() {
+        //Act
+        repositoryDirector.findByFirstNameAndLastName("Quentin", "Tarantino");
+
+        //Assert
+        assertUsesIndex(explain(capturedSql(jdbcTemplate.queryForList(QUERY_STATISTICS, String.class), "from director", "first_name"),
+                "Quentin", "Tarantino"), "idx_director_names");
+    }
+
+    @Test
+    @DisplayName("Test index : directeurs d'un studio (Studio.directorList)")
+    public void testDirectorStudioIndex() {
+        //Arrange
+        Long studioId = transactionTemplate.execute(status -> repositoryStudio.save(new Studio("Index Studio", 1994, List.of())).getId());
+        entityManagerFactory.getCache().evictAll();
+
+        //Act
+        transactionTemplate.executeWithoutResult(status ->
+                Hibernate.initialize(repositoryStudio.findById(studioId).orElseThrow().getDirectorList()));
+
+        //Assert
+        assertUsesIndex(explain(capturedSql(jdbcTemplate.queryForList(QUERY_STATISTICS, String.class), "from director", "studio_id="),
+                studioId), "idx_director_studio");
+    }
+
+    @Test
+    @DisplayName("Test index : RepositoryMovie.findByTitle")
+    public void testMovieTitleIndex() {
+        //Act
+        repositoryMovie.findByTitle("Pulp Fiction");
+
+        //Assert
+        assertUsesIndex(explain(capturedSql(jdbcTemplate.queryForList(QUERY_STATISTICS, String.class), "from movie", "title="),
+                "Pulp Fiction"), "idx_movie_title");
+    }
+
+    @Test
+    @DisplayName("Test index : films d'un directeur (Director.moviesDirected)")
+    public void testMovieDirectorIndex() {
+        //Arrange
+        Long directorId = transactionTemplate.execute(status ->
+                repositoryDirector.save(new Director("Index", "Director", LocalDate.of(1960, 1, 1), 0)).getId());
+        entityManagerFactory.getCache().evictAll();
+
+        //Act
+        transactionTemplate.executeWithoutResult(status ->
+                Hibernate.initialize(repositoryDirector.findById(directorId).orElseThrow().getMoviesDirected()));
+
+        //Assert
+        assertUsesIndex(explain(capturedSql(jdbcTemplate.queryForList(QUERY_STATISTICS, String.class), "from movie", "director_id="),
+                directorId), "idx_movie_director");
+    }
+
+    @Test
+    @DisplayName("Test index : RepositoryCountryR2dbc.findAllByContinent, plan demandé sur la table country de la migration Flyway")
+    public void testCountryContinentIndex() {
+        //Arrange : la base R2DBC des tests est séparée (schema-countries.sql), seul le SQL généré y est relu
+        databaseClient.sql("SET QUERY_STATISTICS FALSE").then().block();
+        databaseClient.sql("SET QUERY_STATISTICS TRUE").then().block();
+
+        //Act
+        repositoryCountryR2dbc.findAllByContinent(Continent.EUROPE).collectList().block();
+
+        //Assert
+        List<String> statements = databaseClient.sql(QUERY_STATISTICS)
+                .map(row -> row.get(0, String.class))
+                .all()
+                .collectList()
+                .block();
+        // Marqueurs R2DBC ($1) remplacés par des paramètres JDBC
+        String sql = capturedSql(statements, "from country", "country_continent").replaceAll("\\$\\d+", "?");
+        assertUsesIndex(explain(sql, Continent.EUROPE.name()), "idx_country_continent");
+    }
+
+    // Requête du repository parmi celles exécutées depuis setUp (sans les EXPLAIN et la lecture des statistiques)
+    private static String capturedSql(List<String> statements, String... fragments) {
+        assertNotNull(statements);
+        return statements.stream()
+                .filter(sql -> {
+                    String normalized = sql.toLowerCase(Locale.ROOT).replace(" = ", "=");
+                    return normalized.startsWith("select") && List.of(fragments).stream().allMatch(normalized::contains);
+                })
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No statement with " + List.of(fragments) + " in " + statements));
+    }
+
+    private String explain(String sql, Object... parameters) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parameters);
+    }
+
+    private static void assertUsesIndex(String plan, String index) {
+        assertNotNull(plan);
+        assertTrue(plan.toLowerCase(Locale.ROOT).contains(index), () -> "Index " + index + " not used: " + plan);
+        assertFalse(plan.toLowerCase(Locale.ROOT).contains("tablescan"), () -> "Table scan: " + plan);
+    }
+}
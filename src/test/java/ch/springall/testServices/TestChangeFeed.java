@@ -0,0 +1,86 @@
+package ch.springall.testServices;
+
+import ch.springall.dtos.ChangeEventRecord;
+import ch.springall.dtos.ChangeEventRecord.ChangeType;
+import ch.springall.dtos.ChangeEventRecord.EntityType;
+import ch.springall.service.ChangeFeed;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Tests unitaires du tampon circulaire des modifications (pas de base, pas de listener JPA)
+public class TestChangeFeed {
+
+    private static List<Long> sequences(Optional<List<ChangeEventRecord>> events) {
+        return events.orElseThrow().stream().map(ChangeEventRecord::sequence).toList();
+    }
+
+    @Test
+    @DisplayName("Test readAfter : événements dans l'ordre, à partir d'un numéro, limités à max")
+    public void testReadAfter() {
+        //Arrange
+        ChangeFeed feed = new ChangeFeed(8);
+        feed.publish(EntityType.DIRECTOR, 1L, ChangeType.CREATED);
+        feed.publish(EntityType.MOVIE, 10L, ChangeType.UPDATED);
+        feed.publish(EntityType.STUDIO, 100L, ChangeType.DELETED);
+
+        //Act
+        List<ChangeEventRecord> all = feed.readAfter(0, 10).orElseThrow();
+
+        //Assert
+        assertEquals(3, feed.getLastSequence());
+        assertEquals(List.of(1L, 2L, 3L), all.stream().map(ChangeEventRecord::sequence).toList());
+        assertEquals(EntityType.MOVIE, all.get(1).entity());
+        assertEquals(10L, all.get(1).id());
+        assertEquals(ChangeType.UPDATED, all.get(1).type());
+        assertEquals(List.of(2L, 3L), sequences(feed.readAfter(1, 10)));
+        assertEquals(List.of(2L), sequences(feed.readAfter(1, 1)));
+        assertTrue(feed.readAfter(3, 10).orElseThrow().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test readAfter : un lecteur qui a plus de capacity événements de retard est signalé")
+    public void testOverrun() {
+        //Arrange : 12 événements dans un tampon de 8, les 4 premiers sont écrasés
+        ChangeFeed feed = new ChangeFeed(8);
+        for (long id = 1; id <= 12; id++) {
+            feed.publish(EntityType.DIRECTOR, id, ChangeType.UPDATED);
+        }
+
+        //Act + Assert
+        assertTrue(feed.readAfter(3, 20).isEmpty());
+        assertEquals(List.of(5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L), sequences(feed.readAfter(4, 20)));
+        // Numéro inconnu (après un redémarrage, les numéros repartent de 1)
+        assertTrue(feed.readAfter(50, 20).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test subscribe : les abonnés sont prévenus après chaque publication, jusqu'au désabonnement")
+    public void testSubscribe() {
+        //Arrange
+        ChangeFeed feed = new ChangeFeed(8);
+        AtomicInteger calls = new AtomicInteger();
+        Runnable unsubscribe = feed.subscribe(calls::incrementAndGet);
+
+        //Act
+        feed.publish(EntityType.MOVIE, 1L, ChangeType.CREATED);
+        unsubscribe.run();
+        feed.publish(EntityType.MOVIE, 2L, ChangeType.CREATED);
+
+        //Assert
+        assertEquals(1, calls.get());
+        assertEquals(0, feed.getSubscriberCount());
+    }
+
+    @Test
+    @DisplayName("Test capacité : doit être une puissance de 2")
+    public void testCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new ChangeFeed(1000));
+        assertEquals(1024, new ChangeFeed(1024).getCapacity());
+    }
+}
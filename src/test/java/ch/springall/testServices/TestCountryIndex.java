@@ -0,0 +1,117 @@
+package ch.springall.testServices;
+
+import ch.springall.entity.Continent;
+import ch.springall.entity.CountryR2DBC;
+import ch.springall.mapper.MapperCountry;
+import ch.springall.mapper.MapperCountryImpl;
+import ch.springall.repository.r2dbc.RepositoryCountryR2dbc;
+import ch.springall.service.CountryIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+// Tests unitaires de l'index en mémoire des pays : le repository R2DBC est simulé avec Mockito
+public class TestCountryIndex {
+
+    private RepositoryCountryR2dbc repositoryCountry;
+    private CountryIndex countryIndex;
+
+    @BeforeEach
+    public void setUp() {
+        repositoryCountry = Mockito.mock(RepositoryCountryR2dbc.class);
+        MapperCountry mapperCountry = new MapperCountryImpl();
+        countryIndex = new CountryIndex(repositoryCountry, mapperCountry);
+    }
+
+    @Test
+    @DisplayName("Test chargement de l'instantané : recherche par continent et par nom")
+    public void testLookups() {
+        //Arrange
+        when(repositoryCountry.findAll()).thenReturn(Flux.just(
+                new CountryR2DBC(1L, "France", Continent.EUROPE),
+                new CountryR2DBC(2L, "Italie", Continent.EUROPE),
+                new CountryR2DBC(3L, "Japon", Continent.ASIA)));
+        assertFalse(countryIndex.current().isLoaded());
+
+        //Act
+        StepVerifier.create(countryIndex.refresh()).expectNextCount(1).verifyComplete();
+
+        //Assert
+        CountryIndex.Snapshot snapshot = countryIndex.current();
+        assertTrue(snapshot.isLoaded());
+        assertEquals(3, snapshot.size());
+        assertEquals(2, snapshot.findAllByContinent(Continent.EUROPE).size());
+        assertTrue(snapshot.findAllByContinent(Continent.ANTARCTICA).isEmpty());
+        assertEquals(Continent.ASIA, snapshot.findByCountryName("Japon").orElseThrow().continent());
+        assertTrue(snapshot.findByCountryName("Atlantide").isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.findAllByContinent(Continent.EUROPE).clear());
+    }
+
+    @Test
+    @DisplayName("Test un rafraîchissement démarré avant un autre ne remplace pas son instantané")
+    public void testOlderRefreshDoesNotWin() throws Exception {
+        //Arrange : le premier rafraîchissement reste bloqué sur la base, le second voit un pays de plus
+        Sinks.Many<CountryR2DBC> slow = Sinks.many().unicast().onBackpressureBuffer();
+        when(repositoryCountry.findAll()).thenReturn(slow.asFlux(), Flux.just(
+                new CountryR2DBC(1L, "France", Continent.EUROPE),
+                new CountryR2DBC(2L, "Chili", Continent.SOUTH_AMERICA)));
+        // toFuture() s'abonne tout de suite : le premier rafraîchissement reçoit bien le flux lent
+        CompletableFuture<CountryIndex.Snapshot> first = countryIndex.refresh().toFuture();
+
+        //Act
+        StepVerifier.create(countryIndex.refresh()).expectNextCount(1).expectComplete().verify(Duration.ofSeconds(5));
+        assertFalse(first.isDone());
+        slow.tryEmitNext(new CountryR2DBC(1L, "France", Continent.EUROPE));
+        slow.tryEmitComplete();
+        CountryIndex.Snapshot firstResult = first.get(5, TimeUnit.SECONDS);
+
+        //Assert : le premier rafraîchissement termine après le second mais garde son instantané (2 pays)
+        assertEquals(2, firstResult.size());
+        assertEquals(2, countryIndex.current().size());
+        assertTrue(countryIndex.current().findByCountryName("Chili").isPresent());
+    }
+
+    @Test
+    @DisplayName("Test erreur pendant le rafraîchissement : l'ancien instantané est conservé")
+    public void testRefreshErrorKeepsSnapshot() {
+        //Arrange
+        when(repositoryCountry.findAll()).thenReturn(Flux.just(new CountryR2DBC(1L, "France", Continent.EUROPE)),
+                Flux.error(new IllegalStateException("database down")));
+        StepVerifier.create(countryIndex.refresh()).expectNextCount(1).verifyComplete();
+
+        //Act
+        StepVerifier.create(countryIndex.refresh()).expectError(IllegalStateException.class).verify();
+
+        //Assert
+        assertEquals(1, countryIndex.current().size());
+    }
+
+    @Test
+    @DisplayName("Test métriques : taille et âge de l'instantané")
+    public void testMetrics() {
+        //Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        countryIndex.bindTo(registry);
+        assertTrue(Double.isNaN(registry.get("springall.countries.index.age").timeGauge().value(TimeUnit.SECONDS)));
+        when(repositoryCountry.findAll()).thenReturn(Flux.just(new CountryR2DBC(1L, "France", Continent.EUROPE)));
+
+        //Act
+        countryIndex.refresh().block();
+
+        //Assert
+        assertEquals(1.0, registry.get("springall.countries.index.size").gauge().value());
+        assertTrue(registry.get("springall.countries.index.age").timeGauge().value(TimeUnit.SECONDS) >= 0);
+    }
+}
@@ -0,0 +1,114 @@
+package ch.springall.testServices;
+
+import ch.springall.dtos.TopDirectorRecord;
+import ch.springall.dtos.TopMovieRecord;
+import ch.springall.entity.Genre;
+import ch.springall.repository.jpa.RepositoryDirector;
+import ch.springall.repository.jpa.RepositoryMovie;
+import ch.springall.service.Leaderboards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// Tests unitaires des classements : les modifications sont appliquées directement (pas de base, pas de listener JPA)
+// Les repositories sont des mocks : aucun classement de ces tests ne descend sous MAX_LIMIT avec d'autres films en base
+// (rechargement testé contre H2 dans TestLeaderboardsRefill)
+public class TestLeaderboards {
+
+    private Leaderboards leaderboards;
+
+    @BeforeEach
+    public void setUp() {
+        leaderboards = new Leaderboards(mock(RepositoryMovie.class), mock(RepositoryDirector.class),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        leaderboards.directorSaved(1L, "Sofia", "Coppola");
+        leaderboards.directorSaved(2L, "Wong", "Kar-wai");
+        leaderboards.movieSaved(10L, "Lost in Translation", Genre.ROMANCE, 7.7, 1L);
+        leaderboards.movieSaved(11L, "Marie Antoinette", Genre.ROMANCE, 6.4, 1L);
+        leaderboards.movieSaved(20L, "In the Mood for Love", Genre.ROMANCE, 8.1, 2L);
+        leaderboards.movieSaved(21L, "Chungking Express", Genre.ROMANCE, 8.0, 2L);
+        leaderboards.movieSaved(22L, "Fallen Angels", Genre.THRILLER, 7.6, 2L);
+    }
+
+    private static List<Long> ids(List<TopMovieRecord> movies) {
+        return movies.stream().map(TopMovieRecord::id).toList();
+    }
+
+    @Test
+    @DisplayName("Test classement des films : par genre, note décroissante, limité à K")
+    public void testTopMovies() {
+        assertEquals(List.of(20L, 21L, 10L, 11L), ids(leaderboards.topMovies(Genre.ROMANCE, 10)));
+        assertEquals(List.of(20L, 21L), ids(leaderboards.topMovies(Genre.ROMANCE, 2)));
+        assertEquals(List.of(22L), ids(leaderboards.topMovies(Genre.THRILLER, 10)));
+        assertTrue(leaderboards.topMovies(Genre.HORROR, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test classement des directeurs : moyenne courante des notes de leurs films")
+    public void testTopDirectors() {
+        //Act
+        List<TopDirectorRecord> top = leaderboards.topDirectors(10);
+
+        //Assert
+        assertEquals(2, top.size());
+        assertEquals(2L, top.get(0).id());
+        assertEquals(3, top.get(0).movieCount());
+        assertEquals((8.1 + 8.0 + 7.6) / 3, top.get(0).averageRating(), 1e-9);
+        assertEquals(new TopDirectorRecord(1L, "Sofia", "Coppola", 2, (7.7 + 6.4) / 2), top.get(1));
+    }
+
+    @Test
+    @DisplayName("Test mise à jour incrémentale : note et genre modifiés, film supprimé, directeur renommé")
+    public void testIncrementalUpdates() {
+        //Act
+        leaderboards.movieSaved(11L, "Marie Antoinette", Genre.ROMANCE, 9.5, 1L);
+        leaderboards.movieSaved(22L, "Fallen Angels", Genre.ROMANCE, 7.6, 2L);
+        leaderboards.movieRemoved(20L);
+        leaderboards.directorSaved(1L, "Sofia", "Coppola (renamed)");
+
+        //Assert
+        assertEquals(List.of(11L, 21L, 10L, 22L), ids(leaderboards.topMovies(Genre.ROMANCE, 10)));
+        assertTrue(leaderboards.topMovies(Genre.THRILLER, 10).isEmpty());
+        List<TopDirectorRecord> top = leaderboards.topDirectors(10);
+        assertEquals("Coppola (renamed)", top.get(0).lastName());
+        assertEquals(2, top.get(0).movieCount());
+        assertEquals((7.7 + 9.5) / 2, top.get(0).averageRating(), 1e-9);
+        assertEquals(2, top.get(1).movieCount());
+        assertEquals((8.0 + 7.6) / 2, top.get(1).averageRating(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Test classement borné : seuls les meilleurs films sont gardés, un directeur sans film n'est pas classé")
+    public void testBoundedBoard() {
+        //Arrange : beaucoup plus de films que le plus grand K servi ; notes (id % 100) / 10, chaque note sur 5 films
+        for (long id = 1000; id < 1000 + 5L * Leaderboards.MAX_LIMIT; id++) {
+            leaderboards.movieSaved(id, "Horror " + id, Genre.HORROR, (id % 100) / 10.0, null);
+        }
+        // Les MAX_LIMIT meilleurs : notes 9.9 à 8.0, à note égale par id croissant
+        List<Long> expected = LongStream.range(1000, 1000 + 5L * Leaderboards.MAX_LIMIT).boxed()
+                .sorted(Comparator.comparingDouble((Long id) -> (id % 100) / 10.0).reversed().thenComparing(id -> id))
+                .limit(Leaderboards.MAX_LIMIT)
+                .toList();
+
+        //Act
+        List<TopMovieRecord> top = leaderboards.topMovies(Genre.HORROR, Leaderboards.MAX_LIMIT);
+        leaderboards.directorRemoved(1L);
+        leaderboards.movieRemoved(10L);
+        leaderboards.movieRemoved(11L);
+
+        //Assert
+        assertEquals(expected, ids(top));
+        assertEquals(9.9, top.getFirst().rating());
+        assertEquals(8.0, top.getLast().rating());
+        assertEquals(List.of(2L), leaderboards.topDirectors(10).stream().map(TopDirectorRecord::id).toList());
+    }
+}
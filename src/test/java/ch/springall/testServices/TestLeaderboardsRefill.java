@@ -0,0 +1,75 @@
+package ch.springall.testServices;
+
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.dtos.MovieRecord;
+import ch.springall.dtos.TopMovieRecord;
+import ch.springall.entity.Genre;
+import ch.springall.repository.jpa.RepositoryMovie;
+import ch.springall.service.Leaderboards;
+import ch.springall.service.ServiceDirector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Rechargement d'un classement depuis la vraie base H2 : assez de films supprimés pour que le classement en mémoire
+// (borné à 2 x MAX_LIMIT films) passe sous MAX_LIMIT alors que le genre compte d'autres films
+// Le genre HORROR n'est utilisé par aucun autre test qui écrit en base
+@SpringBootTest
+public class TestLeaderboardsRefill {
+
+    private static final Genre GENRE = Genre.HORROR;
+    private static final String TOP_RATED = "SELECT id FROM movie WHERE genre = ? ORDER BY rating DESC, id LIMIT ?";
+
+    @Autowired
+    private Leaderboards leaderboards;
+
+    @Autowired
+    private ServiceDirector serviceDirector;
+
+    @Autowired
+    private RepositoryMovie repositoryMovie;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static List<Long> ids(List<TopMovieRecord> movies) {
+        return movies.stream().map(TopMovieRecord::id).toList();
+    }
+
+    @Test
+    @DisplayName("Test refillIfNeeded : après la suppression des meilleurs films, le classement est rechargé depuis la base")
+    public void testRefillAfterDeletes() {
+        //Arrange : 250 films, notes (i % 100) / 10 ; le classement en mémoire garde les 200 meilleurs
+        List<MovieRecord> movies = new ArrayList<>();
+        for (int i = 0; i < 5 * Leaderboards.MAX_LIMIT / 2; i++) {
+            movies.add(new MovieRecord(null, "Refill " + i, LocalDateTime.of(1980, 1, 1, 20, 0), GENRE, (i % 100) / 10.0, null));
+        }
+        serviceDirector.addDirectorRecords(List.of(new DirectorRecord(null, "Refill", "Director", LocalDate.of(1950, 1, 1), 0, movies)));
+        assertEquals(jdbcTemplate.queryForList(TOP_RATED, Long.class, GENRE.name(), Leaderboards.MAX_LIMIT),
+                ids(leaderboards.topMovies(GENRE, Leaderboards.MAX_LIMIT)));
+        // Les 120 meilleurs : il n'en resterait que 80 dans le classement en mémoire, pour 130 films en base
+        List<Long> deleted = jdbcTemplate.queryForList(TOP_RATED, Long.class, GENRE.name(), 6 * Leaderboards.MAX_LIMIT / 5);
+
+        //Act
+        transactionTemplate.executeWithoutResult(status -> repositoryMovie.deleteAllById(deleted));
+
+        //Assert
+        List<Long> expected = jdbcTemplate.queryForList(TOP_RATED, Long.class, GENRE.name(), Leaderboards.MAX_LIMIT);
+        assertEquals(Leaderboards.MAX_LIMIT, expected.size());
+        assertEquals(expected, ids(leaderboards.topMovies(GENRE, Leaderboards.MAX_LIMIT)));
+        assertTrue(leaderboards.topMovies(GENRE, Leaderboards.MAX_LIMIT).stream().noneMatch(m -> deleted.contains(m.id())));
+    }
+}
@@ -0,0 +1,131 @@
+package ch.springall.testServices;
+
+import ch.springall.dtos.MovieSearchResult;
+import ch.springall.entity.Genre;
+import ch.springall.service.MovieSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Tests unitaires de l'index de recherche des titres : les films sont ajoutés directement avec put (pas de base)
+public class TestMovieSearchIndex {
+
+    private MovieSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new MovieSearchIndex(null, null);
+        index.put(1L, "Le Fabuleux Destin d'Amélie Poulain", Genre.COMEDY);
+        index.put(2L, "Pulp Fiction", Genre.THRILLER);
+        index.put(3L, "The Dark Knight", Genre.ACTION);
+        index.put(4L, "The Dark Knight Rises", Genre.ACTION);
+        index.put(5L, "Knight and Day", Genre.COMEDY);
+    }
+
+    private static List<Long> ids(List<MovieSearchResult> results) {
+        return results.stream().map(MovieSearchResult::id).toList();
+    }
+
+    @Test
+    @DisplayName("Test recherche : sans accents ni majuscules, tous les mots doivent correspondre")
+    public void testExactTerms() {
+        assertEquals(List.of(1L), ids(index.search("amelie POULAIN", null, 10)));
+        assertEquals(List.of(3L, 4L), ids(index.search("dark knight", null, 10)));
+        assertTrue(index.search("dark day", null, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test recherche : un mot incomplet correspond aux titres dont un mot commence par lui")
+    public void testPrefix() {
+        assertEquals(List.of(2L), ids(index.search("fict", null, 10)));
+    }
+
+    @Test
+    @DisplayName("Test recherche : fautes de frappe tolérées")
+    public void testTypos() {
+        assertEquals(List.of(2L), ids(index.search("pulp fictin", null, 10)));
+        assertEquals(List.of(1L), ids(index.search("amellie", null, 10)));
+    }
+
+    @Test
+    @DisplayName("Test classement : un titre court passe avant un titre plus long, filtre par genre et limite")
+    public void testRankingGenreAndLimit() {
+        //Act
+        List<MovieSearchResult> all = index.search("knight", null, 10);
+        List<MovieSearchResult> comedies = index.search("knight", Genre.COMEDY, 10);
+        List<MovieSearchResult> first = index.search("knight", null, 1);
+
+        //Assert
+        assertEquals(List.of(3L, 5L, 4L), ids(all));
+        assertTrue(all.get(0).score() > all.get(2).score());
+        assertEquals(List.of(5L), ids(comedies));
+        assertEquals(List.of(3L), ids(first));
+    }
+
+    @Test
+    @DisplayName("Test mise à jour incrémentale : modification et suppression d'un film")
+    public void testUpdateAndRemove() {
+        //Act
+        index.put(2L, "Jackie Brown", Genre.THRILLER);
+        index.remove(3L);
+
+        //Assert
+        assertTrue(index.search("pulp", null, 10).isEmpty());
+        assertEquals(List.of(2L), ids(index.search("jackie", null, 10)));
+        assertEquals(List.of(4L), ids(index.search("dark", null, 10)));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    @DisplayName("Test mot très fréquent ou préfixe court : au plus MAX_CANDIDATES films examinés, correspondances exactes d'abord")
+    public void testCandidateLimit() {
+        //Arrange : "the" est dans plus de MAX_CANDIDATES titres, "th" dans un seul
+        for (long id = 100; id < 100 + MovieSearchIndex.MAX_CANDIDATES + 100; id++) {
+            index.put(id, "The Movie " + id, Genre.DOCUMENTARY);
+        }
+        index.put(6L, "Th", Genre.DOCUMENTARY);
+        long truncated = index.getTruncatedCount();
+        long selectiveId = 100 + MovieSearchIndex.MAX_CANDIDATES;
+
+        //Act
+        List<MovieSearchResult> common = index.search("the", null, 10);
+        List<MovieSearchResult> shortPrefix = index.search("th", null, 1);
+        List<MovieSearchResult> selective = index.search("the movie " + selectiveId, null, 10);
+
+        //Assert : le mot sélectif fournit les candidats, la recherche n'est pas tronquée
+        assertEquals(10, common.size());
+        assertEquals(List.of(6L), ids(shortPrefix));
+        assertEquals(selectiveId, selective.getFirst().id());
+        assertEquals(truncated + 2, index.getTruncatedCount());
+    }
+
+    @Test
+    @DisplayName("Test préfixe d'une ou deux lettres : au plus SHORT_PREFIX_MAX_CANDIDATES films examinés")
+    public void testShortPrefixCandidateLimit() {
+        //Arrange : "the" est dans plus de SHORT_PREFIX_MAX_CANDIDATES titres, mais moins de MAX_CANDIDATES
+        for (long id = 100; id < 100 + MovieSearchIndex.SHORT_PREFIX_MAX_CANDIDATES + 50; id++) {
+            index.put(id, "The Movie " + id, Genre.DOCUMENTARY);
+        }
+        long truncated = index.getTruncatedCount();
+
+        //Act
+        List<MovieSearchResult> word = index.search("the", null, 10);
+        List<MovieSearchResult> shortPrefix = index.search("th", null, 10);
+
+        //Assert : seul le préfixe court est tronqué, il trouve quand même des titres
+        assertEquals(10, word.size());
+        assertEquals(10, shortPrefix.size());
+        assertEquals(truncated + 1, index.getTruncatedCount());
+    }
+
+    @Test
+    @DisplayName("Test recherche vide : aucune requête, aucun résultat")
+    public void testBlankQuery() {
+        assertTrue(index.search("  ", null, 10).isEmpty());
+        assertTrue(index.search("--", null, 10).isEmpty());
+    }
+}
@@ -0,0 +1,180 @@
+package ch.springall.testServices;
+
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.dtos.MovieRecord;
+import ch.springall.dtos.StudioRecord;
+import ch.springall.dtos.TopMovieRecord;
+import ch.springall.entity.Genre;
+import ch.springall.service.Leaderboards;
+import ch.springall.service.RatingAggregator;
+import ch.springall.service.ServiceDirector;
+import ch.springall.service.ServiceMovie;
+import ch.springall.service.ServiceStudio;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Agrégation des votes contre la vraie base H2 : aucun vote perdu malgré les flush concurrents,
+// note moyenne correcte, caches et classements à jour après l'écriture
+@SpringBootTest
+public class TestRatingAggregator {
+
+    @Autowired
+    private RatingAggregator ratingAggregator;
+
+    @Autowired
+    private ServiceMovie serviceMovie;
+
+    @Autowired
+    private ServiceDirector serviceDirector;
+
+    @Autowired
+    private ServiceStudio serviceStudio;
+
+    @Autowired
+    private Leaderboards leaderboards;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long addMovie(String title) {
+        return serviceMovie.addMovie(new MovieRecord(null, title, LocalDateTime.of(1995, 1, 1, 20, 0), Genre.SCI_FI, 5.0, null)).id();
+    }
+
+    private long voteCount(Long movieId) {
+        return jdbcTemplate.queryForObject("SELECT vote_count FROM movie WHERE id = ?", Long.class, movieId);
+    }
+
+    @Test
+    @DisplayName("Test add + flush concurrents : tous les votes sont écrits, la note est leur moyenne")
+    public void testConcurrentVotes() throws Exception {
+        //Arrange : 8 threads votent pour 3 films pendant qu'un autre thread écrit les lots en boucle
+        List<Long> movies = List.of(addMovie("Ratings A"), addMovie("Ratings B"), addMovie("Ratings C"));
+        int threads = 8;
+        int votesPerThread = 3000;
+        AtomicBoolean voting = new AtomicBoolean(true);
+
+        //Act
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads + 1)) {
+            Future<?> flusher = executor.submit(() -> {
+                while (voting.get()) {
+                    ratingAggregator.flush();
+                }
+            });
+            List<Future<?>> voters = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                voters.add(executor.submit(() -> {
+                    for (int i = 0; i < votesPerThread; i++) {
+                        assertTrue(ratingAggregator.add(movies.get(i % movies.size()), i % 11));
+                    }
+                }));
+            }
+            for (Future<?> voter : voters) {
+                voter.get();
+            }
+            voting.set(false);
+            flusher.get();
+        }
+        ratingAggregator.flush();
+
+        //Assert : chaque film a reçu threads * 1000 votes ; notes 0..10 réparties selon i % 11
+        for (int m = 0; m < movies.size(); m++) {
+            double sum = 0;
+            long count = 0;
+            for (int i = m; i < votesPerThread; i += movies.size()) {
+                sum += i % 11;
+                count++;
+            }
+            assertEquals(threads * count, voteCount(movies.get(m)));
+            assertEquals(sum / count, serviceMovie.findMovie(movies.get(m)).orElseThrow().rating(), 1e-6);
+        }
+    }
+
+    @Test
+    @DisplayName("Test flush : la note en cache (L2, Records des directeurs et des studios) et le classement suivent les votes")
+    public void testCachesAfterFlush() {
+        //Arrange : le film, son directeur et son studio sont lus une première fois (mis en cache)
+        Long directorId = serviceDirector.addDirectorRecords(List.of(new DirectorRecord(null, "Ratings", "Director",
+                LocalDate.of(1960, 1, 1), 0, List.of(new MovieRecord(null, "Ratings Cached", LocalDateTime.of(1999, 1, 1, 20, 0),
+                        Genre.SCI_FI, 2.0, null))))).getFirst();
+        Long studioId = serviceStudio.addStudio(new StudioRecord(null, "Ratings Studio", 1950, null)).id();
+        serviceStudio.addDirector(studioId, directorId);
+        Long movieId = serviceDirector.findDirectorWithMoviesByIdOptional(directorId).orElseThrow().moviesRecord().getFirst().id();
+        assertEquals(2.0, serviceMovie.findMovie(movieId).orElseThrow().rating());
+        String studioETag = serviceStudio.findVersionedStudio(studioId).eTag();
+
+        //Act
+        ratingAggregator.add(movieId, 9.0);
+        ratingAggregator.add(movieId, 10.0);
+        ratingAggregator.add(movieId, 9.54);
+        ratingAggregator.flush();
+
+        //Assert : 9.54 est arrondi à 9.5
+        double expected = (9.0 + 10.0 + 9.5) / 3;
+        assertEquals(expected, serviceMovie.findMovie(movieId).orElseThrow().rating(), 1e-9);
+        assertEquals(expected, serviceDirector.findDirectorWithMoviesByIdOptional(directorId).orElseThrow()
+                .moviesRecord().getFirst().rating(), 1e-9);
+        assertEquals(expected, serviceStudio.findStudio(studioId).directorList().getFirst()
+                .moviesRecord().getFirst().rating(), 1e-9);
+        assertNotEquals(studioETag, serviceStudio.findVersionedStudio(studioId).eTag());
+        assertEquals(serviceStudio.findStudioETag(studioId), serviceStudio.findVersionedStudio(studioId).eTag());
+        TopMovieRecord top = leaderboards.topMovies(Genre.SCI_FI, Leaderboards.MAX_LIMIT).stream()
+                .filter(m -> m.id().equals(movieId)).findFirst().orElseThrow();
+        assertEquals(expected, top.rating(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Test flush : un vote pour un film inconnu est abandonné, les autres sont écrits")
+    public void testUnknownMovie() {
+        //Arrange
+        Long movieId = addMovie("Ratings Known");
+        long dropped = ratingAggregator.getDroppedCount("unknown-movie");
+
+        //Act
+        assertTrue(ratingAggregator.add(-1L, 7.0));
+        assertTrue(ratingAggregator.add(movieId, 7.0));
+        ratingAggregator.flush();
+
+        //Assert
+        assertEquals(dropped + 1, ratingAggregator.getDroppedCount("unknown-movie"));
+        assertEquals(1, voteCount(movieId));
+        assertEquals(7.0, serviceMovie.findMovie(movieId).orElseThrow().rating(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Test stop : les votes en attente sont écrits par le dernier flush, les nouveaux votes sont refusés")
+    public void testStopFlushesPendingVotes() {
+        //Arrange
+        Long movieId = addMovie("Ratings Shutdown");
+        long droppedAtShutdown = ratingAggregator.getDroppedCount("shutdown");
+        assertTrue(ratingAggregator.add(movieId, 6.0));
+        assertTrue(ratingAggregator.add(movieId, 8.0));
+
+        //Act
+        ratingAggregator.stop();
+        try {
+            //Assert
+            assertFalse(ratingAggregator.isRunning());
+            assertEquals(2, voteCount(movieId));
+            assertEquals(7.0, serviceMovie.findMovie(movieId).orElseThrow().rating(), 1e-9);
+            assertFalse(ratingAggregator.add(movieId, 10.0));
+            assertEquals(droppedAtShutdown + 1, ratingAggregator.getDroppedCount("shutdown"));
+        } finally {
+            // Le contexte est partagé avec les autres tests
+            ratingAggregator.start();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ch.springall.testServices;
+
+import ch.springall.dtos.CountryRecord;
+import ch.springall.entity.Continent;
+import ch.springall.exceptions.ResourceNotFoundException;
+import ch.springall.service.ServiceCountry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Tests du service réactif des pays contre une base H2 en mémoire (r2dbc-h2, voir application.properties des tests)
+// StepVerifier s'abonne au Flux/Mono et vérifie les éléments émis, sans jamais appeler block()
+@SpringBootTest
+public class TestServiceCountry {
+
+    @Autowired
+    private ServiceCountry serviceCountry;
+
+    @Test
+    @DisplayName("Test ajout puis recherche d'un pays par son nom")
+    public void testAddAndFindCountryByName() {
+        //Arrange
+        StepVerifier.create(serviceCountry.addCountry(new CountryRecord(null, "Suisse", Continent.EUROPE)))
+                .assertNext(added -> assertNotNull(added.id()))
+                .verifyComplete();
+
+        //Act + Assert
+        StepVerifier.create(serviceCountry.findCountryByName("Suisse"))
+                .assertNext(found -> assertEquals(Continent.EUROPE, found.continent()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Test pays inexistant : erreur ResourceNotFoundException")
+    public void testFindCountryByNameNotFound() {
+        StepVerifier.create(serviceCountry.findCountryByName("Atlantide"))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Test des pays d'un continent : seuls ceux du continent demandé sont émis")
+    public void testFindCountriesByContinent() {
+        //Arrange
+        Flux.just(new CountryRecord(null, "Kenya", Continent.AFRICA),
+                        new CountryRecord(null, "Maroc", Continent.AFRICA),
+                        new CountryRecord(null, "Chili", Continent.SOUTH_AMERICA))
+                .concatMap(serviceCountry::addCountry)
+                .as(StepVerifier::create)
+                .expectNextCount(3)
+                .verifyComplete();
+
+        //Act + Assert
+        List<String> names = new ArrayList<>();
+        StepVerifier.create(serviceCountry.findCountriesByContinent(Continent.AFRICA))
+                .recordWith(ArrayList::new)
+                .thenConsumeWhile(country -> names.add(country.countryName()))
+                .verifyComplete();
+        assertTrue(names.containsAll(List.of("Kenya", "Maroc")));
+        assertFalse(names.contains("Chili"));
+    }
+
+    @Test
+    @DisplayName("Test annulation (client déconnecté) : la connexion est rendue au pool R2DBC")
+    public void testCancelReleasesConnection() {
+        //Arrange : plus de pays que FETCH_SIZE
+        int count = ServiceCountry.FETCH_SIZE + 10;
+        Flux.range(0, count)
+                .concatMap(i -> serviceCountry.addCountry(new CountryRecord(null, "Oceania " + i, Continent.OCEANIA)))
+                .as(StepVerifier::create)
+                .expectNextCount(count)
+                .verifyComplete();
+
+        //Act : plus d'annulations que de connexions dans le pool (10 par défaut), chacune après 5 pays demandés
+        for (int i = 0; i < 20; i++) {
+            StepVerifier.create(serviceCountry.findCountriesByContinent(Continent.OCEANIA), 5)
+                    .expectNextCount(5)
+                    .thenCancel()
+                    .verify();
+        }
+
+        //Assert : une connexion est encore disponible
+        StepVerifier.create(serviceCountry.findCountryByName("Oceania 0"))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+}
@@ -4,11 +4,14 @@ package ch.springall.testServices;
 // On va utiliser Junit5 et Mockito pour les tests unitaires
 // Le but est de tester les méthodes du service DirectorService
 
+import ch.springall.config.CacheConfig;
+import ch.springall.dtos.CursorPage;
 import ch.springall.dtos.DirectorRecord;
 import ch.springall.dtos.MovieRecord;
 import ch.springall.entity.Director;
 import ch.springall.entity.Genre;
 import ch.springall.entity.Movie;
+import ch.springall.exceptions.InvalidCursorException;
 import ch.springall.mapper.MapperDirector;
 import ch.springall.repository.jpa.RepositoryDirector;
 import ch.springall.service.ServiceDirector;
@@ -20,16 +23,26 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -59,6 +72,10 @@ public class TestServiceDirector {
     @Autowired
     private MapperDirector mapperDirector;
 
+    //Les caches de Records sont partagés par tous les tests du contexte : on les vide dans les tests qui en dépendent
+    @Autowired
+    private CacheManager cacheManager;
+
     //Pour définir un test : annotation @Test et une méthode publique sans paramètre
     // Mise en place de AAA (Arrange, Act, Assert) pour structurer les tests
     @Test
@@ -141,6 +158,7 @@ public class TestServiceDirector {
         dEntity.setId(1L);
         when(repositoryDirector.save(any(Director.class))).thenReturn(dEntity);
         when(repositoryDirector.findById(1L)).thenReturn(Optional.of(dEntity));
+        when(repositoryDirector.existsById(1L)).thenReturn(true);
         Mockito.doNothing().when(repositoryDirector).deleteById(1L);
 
         //Act : save then delete
@@ -185,4 +203,144 @@ public class TestServiceDirector {
         verify(repositoryDirector).findById(any(Long.class));
     }
 
+    //test de la pagination par curseur : on demande une ligne de plus que la page pour détecter la page suivante
+    @Test
+    @DisplayName("Test pagination par curseur des directeurs")
+    public void testFindDirectorsPage(){
+        //Arrange : 3 directeurs renvoyés pour une page de 2 -> il existe une page suivante
+        List<Director> directors = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            Director d = new Director("Quentin", "Tarantino", LocalDate.of(1963, 3, 27), 2);
+            d.setId(id);
+            directors.add(d);
+        }
+        when(repositoryDirector.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3))).thenReturn(directors);
+        when(repositoryDirector.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(3))).thenReturn(directors.subList(2, 3));
+
+        //Act : première page, puis page suivante avec le curseur renvoyé
+        CursorPage<DirectorRecord> first = serviceDirector.findDirectorsPage(null, 2);
+        CursorPage<DirectorRecord> second = serviceDirector.findDirectorsPage(first.nextCursor(), 2);
+
+        //Assert
+        assertEquals(2, first.content().size());
+        assertNotNull(first.nextCursor());
+        assertEquals(2L, CursorPage.decodeCursor(first.nextCursor()));
+        assertEquals(1, second.content().size());
+        assertEquals(3L, second.content().getFirst().id());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    public void testFindDirectorsPageInvalidCursor(){
+        assertThrows(InvalidCursorException.class, () -> serviceDirector.findDirectorsPage("not-a-cursor", 10));
+    }
+
+    //test de l'export en flux : chaque directeur est transmis au consumer un par un
+    @Test
+    public void testExportDirectors(){
+        Director d1 = new Director("Quentin", "Tarantino", LocalDate.of(1963, 3, 27), 2);
+        d1.setId(1L);
+        Director d2 = new Director("Sofia", "Coppola", LocalDate.of(1971, 5, 14), 1);
+        d2.setId(2L);
+        when(repositoryDirector.streamAllOrderById()).thenReturn(Stream.of(d1, d2));
+
+        List<DirectorRecord> exported = new ArrayList<>();
+        long count = serviceDirector.exportDirectors(exported::add);
+
+        assertEquals(2, count);
+        assertEquals(List.of(1L, 2L), exported.stream().map(DirectorRecord::id).toList());
+    }
+
+    //test de l'insertion en lot : les ids sont retournés dans l'ordre de la liste reçue, un flush par paquet
+    @Test
+    @DisplayName("Test ajout en lot de directeurs")
+    public void testAddDirectorRecords(){
+        //Arrange : le repository simule la génération des ids à la sauvegarde
+        List<DirectorRecord> records = new ArrayList<>();
+        for (int i = 0; i < ServiceDirector.BATCH_CHUNK_SIZE + 1; i++) {
+            MovieRecord m = new MovieRecord(99L, "Movie " + i, LocalDateTime.of(2000, Month.JANUARY, 1, 20, 0), Genre.ACTION, 7.0, null);
+            records.add(new DirectorRecord(42L, "First" + i, "Last" + i, LocalDate.of(1970, 1, 1), 0, List.of(m)));
+        }
+        long[] sequence = {0};
+        when(repositoryDirector.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Director> directors = invocation.getArgument(0);
+            directors.forEach(d -> {
+                //les ids envoyés par le client ont été ignorés et les films sont liés à leur directeur
+                assertNull(d.getId());
+                assertNull(d.getMoviesDirected().getFirst().getId());
+                assertSame(d, d.getMoviesDirected().getFirst().getDirector());
+                d.setId(++sequence[0]);
+            });
+            return directors;
+        });
+
+        //Act
+        List<Long> ids = serviceDirector.addDirectorRecords(records);
+
+        //Assert : 2 paquets (BATCH_CHUNK_SIZE + 1 directeurs), ids dans l'ordre
+        assertEquals(records.size(), ids.size());
+        assertEquals(1L, ids.getFirst());
+        assertEquals((long) records.size(), ids.getLast());
+        verify(repositoryDirector, Mockito.times(2)).saveAll(anyList());
+        verify(repositoryDirector, Mockito.times(2)).flush();
+    }
+
+    //test du cache des Records : le deuxième appel ne passe plus par le repository, une mise à jour invalide l'entrée
+    @Test
+    @DisplayName("Test cache des directeurs")
+    public void testFindDirectorCached(){
+        //Arrange
+        Director dEntity = new Director("Sofia", "Coppola", LocalDate.of(1971, 5, 14), 1);
+        dEntity.setId(7L);
+        when(repositoryDirector.findById(7L)).thenReturn(Optional.of(dEntity));
+        when(repositoryDirector.save(any(Director.class))).thenReturn(dEntity);
+        cacheManager.getCache(CacheConfig.DIRECTORS).clear();
+
+        //Act : deux lectures, une mise à jour, puis une nouvelle lecture
+        serviceDirector.findDirectorByIdOptional(7L);
+        Optional<DirectorRecord> cached = serviceDirector.findDirectorByIdOptional(7L);
+        verify(repositoryDirector, Mockito.times(1)).findById(7L);
+        serviceDirector.updateDirector(new DirectorRecord(7L, "Sofia", "Coppola", LocalDate.of(1971, 5, 14), 2, null));
+        Optional<DirectorRecord> reloaded = serviceDirector.findDirectorByIdOptional(7L);
+
+        //Assert : findById appelé 3 fois (premier miss, update, relecture après invalidation)
+        assertEquals(1, cached.get().oscarCount());
+        assertEquals(2, reloaded.get().oscarCount());
+        verify(repositoryDirector, Mockito.times(3)).findById(7L);
+    }
+
+    //test du chargement unique : des requêtes concurrentes sur le même id ne déclenchent qu'une lecture en base
+    @Test
+    @DisplayName("Test chargement unique en cas de miss concurrent")
+    public void testFindDirectorSingleFlight() throws Exception {
+        //Arrange : la lecture en base est bloquée tant que toutes les requêtes ne sont pas lancées
+        Director dEntity = new Director("Agnès", "Varda", LocalDate.of(1928, 5, 30), 0);
+        dEntity.setId(8L);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repositoryDirector.findById(8L)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(dEntity);
+        });
+        cacheManager.getCache(CacheConfig.DIRECTORS).clear();
+
+        //Act
+        List<Future<Optional<DirectorRecord>>> results = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> serviceDirector.findDirectorByIdOptional(8L)));
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            //Assert : toutes les requêtes reçoivent le directeur, une seule lecture a eu lieu
+            for (Future<Optional<DirectorRecord>> result : results) {
+                assertEquals(8L, result.get(5, TimeUnit.SECONDS).orElseThrow().id());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(repositoryDirector, Mockito.times(1)).findById(8L);
+    }
+
 }
@@ -0,0 +1,180 @@
+package ch.springall.testServices;
+
+import ch.springall.dtos.BulkResultRecord;
+import ch.springall.dtos.ChangeEventRecord.ChangeType;
+import ch.springall.dtos.ChangeEventRecord.EntityType;
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.dtos.MovieRecord;
+import ch.springall.dtos.TopDirectorRecord;
+import ch.springall.entity.Genre;
+import ch.springall.exceptions.ResourceNotFoundException;
+import ch.springall.service.ChangeFeed;
+import ch.springall.service.Leaderboards;
+import ch.springall.service.ServiceDirector;
+import ch.springall.testMonitoring.SqlAssertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Opérations en masse sur les directeurs, contre la vraie base H2 : une requête SQL par opération,
+// caches de Records et classements à jour après le commit
+@SpringBootTest
+public class TestServiceDirectorBulk {
+
+    @Autowired
+    private ServiceDirector serviceDirector;
+
+    @Autowired
+    private Leaderboards leaderboards;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    private Long addDirector(String lastName, MovieRecord... movies) {
+        return serviceDirector.addDirectorRecords(List.of(
+                new DirectorRecord(null, "Bulk", lastName, LocalDate.of(1950, 1, 1), 0, List.of(movies)))).getFirst();
+    }
+
+    // Événements publiés depuis la séquence after (type de l'entité, id, type de modification)
+    private List<String> changesAfter(long after) {
+        return changeFeed.readAfter(after, changeFeed.getCapacity()).orElseThrow().stream()
+                .map(e -> e.entity() + " " + e.id() + " " + e.type())
+                .toList();
+    }
+
+    private static MovieRecord movie(String title) {
+        return new MovieRecord(null, title, LocalDateTime.of(1980, 1, 1, 20, 0), Genre.DOCUMENTARY, 10.0, null);
+    }
+
+    @Test
+    @DisplayName("Test deleteDirectorsByIds : un seul DELETE, les ids inconnus sont ignorés (ni comptés ni publiés), le cache est invalidé")
+    public void testDeleteDirectorsByIds() {
+        //Arrange
+        List<Long> ids = List.of(addDirector("Delete A"), addDirector("Delete B"), addDirector("Delete C"));
+        assertTrue(serviceDirector.findDirectorByIdOptional(ids.getFirst()).isPresent());
+        long lastSequence = changeFeed.getLastSequence();
+        SqlAssertions.reset();
+
+        //Act
+        BulkResultRecord result = serviceDirector.deleteDirectorsByIds(List.of(ids.get(0), ids.get(1), ids.get(2), ids.get(0), -1L));
+
+        //Assert
+        SqlAssertions.assertDeleteCount(1);
+        // Le select ... for update des ids existants
+        SqlAssertions.assertSelectCount(1);
+        assertEquals(new BulkResultRecord(4, 3), result);
+        assertEquals(Optional.empty(), serviceDirector.findDirectorByIdOptional(ids.getFirst()));
+        assertEquals(ids.stream().map(id -> EntityType.DIRECTOR + " " + id + " " + ChangeType.DELETED).toList(),
+                changesAfter(lastSequence));
+    }
+
+    @Test
+    @DisplayName("Test deleteDirectorsByIds : uniquement des ids inconnus, rien n'est supprimé ni publié")
+    public void testDeleteUnknownDirectors() {
+        //Arrange
+        long lastSequence = changeFeed.getLastSequence();
+
+        //Act
+        BulkResultRecord result = serviceDirector.deleteDirectorsByIds(List.of(-1L, -2L));
+
+        //Assert
+        assertEquals(new BulkResultRecord(2, 0), result);
+        assertEquals(List.of(), changesAfter(lastSequence));
+    }
+
+    @Test
+    @DisplayName("Test deleteDirectorsByIds : un directeur qui a encore des films bloque toute la suppression")
+    public void testDeleteDirectorsWithMovies() {
+        //Arrange
+        Long withoutMovies = addDirector("Delete D");
+        Long withMovies = addDirector("Delete E", movie("Bulk Delete Movie"));
+
+        //Act + Assert
+        assertThrows(DataIntegrityViolationException.class,
+                () -> serviceDirector.deleteDirectorsByIds(List.of(withoutMovies, withMovies)));
+        assertTrue(serviceDirector.findDirectorByIdOptional(withoutMovies).isPresent());
+        assertTrue(serviceDirector.findDirectorByIdOptional(withMovies).isPresent());
+    }
+
+    @Test
+    @DisplayName("Test incrementOscarCount : un seul UPDATE, la version (ETag) change et le cache est invalidé")
+    public void testIncrementOscarCount() {
+        //Arrange
+        Long first = addDirector("Oscar A");
+        Long second = addDirector("Oscar B");
+        assertEquals(0, serviceDirector.findDirectorByIdOptional(first).orElseThrow().oscarCount());
+        String eTag = serviceDirector.findDirectorETag(first, false).orElseThrow();
+        SqlAssertions.reset();
+
+        //Act
+        BulkResultRecord result = serviceDirector.incrementOscarCount(List.of(first, second), 2);
+
+        //Assert
+        SqlAssertions.assertUpdateCount(1);
+        assertEquals(new BulkResultRecord(2, 2), result);
+        assertEquals(2, serviceDirector.findDirectorByIdOptional(first).orElseThrow().oscarCount());
+        assertEquals(2, serviceDirector.findDirectorByIdOptional(second).orElseThrow().oscarCount());
+        assertNotEquals(eTag, serviceDirector.findDirectorETag(first, false).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Test reassignMovies : un seul UPDATE des films, caches et classement des directeurs à jour")
+    public void testReassignMovies() {
+        //Arrange
+        Long from = addDirector("Reassign A", movie("Bulk Reassign 1"), movie("Bulk Reassign 2"));
+        Long to = addDirector("Reassign B", movie("Bulk Reassign 3"));
+        assertEquals(2, serviceDirector.findDirectorWithMoviesByIdOptional(from).orElseThrow().moviesRecord().size());
+        assertEquals(1, serviceDirector.findDirectorWithMoviesByIdOptional(to).orElseThrow().moviesRecord().size());
+        List<Long> movedIds = serviceDirector.findDirectorWithMoviesByIdOptional(from).orElseThrow().moviesRecord().stream()
+                .map(MovieRecord::id)
+                .sorted()
+                .toList();
+        long lastSequence = changeFeed.getLastSequence();
+        SqlAssertions.reset();
+
+        //Act
+        BulkResultRecord result = serviceDirector.reassignMovies(from, to);
+
+        //Assert
+        SqlAssertions.assertUpdateCount(1);
+        // count des deux directeurs + select ... for update des films déplacés
+        SqlAssertions.assertSelectCount(2);
+        assertEquals(new BulkResultRecord(1, 2), result);
+        // Un événement par film déplacé, puis les deux directeurs
+        List<String> expectedChanges = new ArrayList<>();
+        movedIds.forEach(id -> expectedChanges.add(EntityType.MOVIE + " " + id + " " + ChangeType.UPDATED));
+        expectedChanges.add(EntityType.DIRECTOR + " " + from + " " + ChangeType.UPDATED);
+        expectedChanges.add(EntityType.DIRECTOR + " " + to + " " + ChangeType.UPDATED);
+        List<String> changes = changesAfter(lastSequence);
+        assertEquals(expectedChanges.size(), changes.size());
+        assertTrue(changes.containsAll(expectedChanges), changes.toString());
+        assertTrue(serviceDirector.findDirectorWithMoviesByIdOptional(from).orElseThrow().moviesRecord().isEmpty());
+        assertEquals(3, serviceDirector.findDirectorWithMoviesByIdOptional(to).orElseThrow().moviesRecord().size());
+        List<TopDirectorRecord> top = leaderboards.topDirectors(Leaderboards.MAX_LIMIT);
+        assertTrue(top.stream().noneMatch(d -> d.id().equals(from)));
+        assertTrue(top.stream().anyMatch(d -> d.id().equals(to) && d.movieCount() == 3));
+        // Le directeur source n'a plus de films : il peut être supprimé
+        assertEquals(new BulkResultRecord(1, 1), serviceDirector.deleteDirectorsByIds(List.of(from)));
+    }
+
+    @Test
+    @DisplayName("Test reassignMovies : 404 si l'un des deux directeurs n'existe pas")
+    public void testReassignMoviesUnknownDirector() {
+        //Arrange
+        Long from = addDirector("Reassign C", movie("Bulk Reassign 4"));
+
+        //Act + Assert
+        assertThrows(ResourceNotFoundException.class, () -> serviceDirector.reassignMovies(from, -1L));
+        assertEquals(1, serviceDirector.findDirectorWithMoviesByIdOptional(from).orElseThrow().moviesRecord().size());
+    }
+}
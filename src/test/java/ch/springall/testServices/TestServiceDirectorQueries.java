@@ -0,0 +1,194 @@
+package ch.springall.testServices;
+
+import ch.springall.config.CacheConfig;
+import ch.springall.dtos.CursorPage;
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.dtos.MovieRecord;
+import ch.springall.dtos.VersionedRecord;
+import ch.springall.entity.Genre;
+import ch.springall.service.ServiceDirector;
+import ch.springall.testMonitoring.SqlAssertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Nombre de requêtes SQL des lectures de directeurs, contre la vraie base H2 (repository non simulé, contrairement à TestServiceDirector)
+// Ces tests échouent si un changement de mapping ou de fetch plan réintroduit une requête par directeur (N+1)
+@SpringBootTest
+public class TestServiceDirectorQueries {
+
+    @Autowired
+    private ServiceDirector serviceDirector;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    @DisplayName("Test findAllDirectors : une seule requête SQL quel que soit le nombre de directeurs et de films")
+    public void testFindAllDirectorsSelectCount() {
+        //Arrange : plusieurs directeurs avec chacun deux films
+        List<DirectorRecord> records = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            List<MovieRecord> movies = List.of(
+                    new MovieRecord(null, "Movie A" + i, LocalDateTime.of(2001, Month.MARCH, 1, 20, 0), Genre.ACTION, 7.0, null),
+                    new MovieRecord(null, "Movie B" + i, LocalDateTime.of(2004, Month.MAY, 1, 20, 0), Genre.THRILLER, 8.0, null));
+            records.add(new DirectorRecord(null, "First" + i, "Last" + i, LocalDate.of(1970, 1, 1), 0, movies));
+        }
+        serviceDirector.addDirectorRecords(records);
+        SqlAssertions.reset();
+
+        //Act
+        List<DirectorRecord> directors = serviceDirector.findAllDirectors();
+
+        //Assert
+        assertTrue(directors.size() >= records.size());
+        assertTrue(directors.stream().allMatch(d -> d.moviesRecord() != null));
+        SqlAssertions.assertSelectCount(1);
+    }
+
+    @Test
+    @DisplayName("Test plans de chargement : page simple, page avec les films, directeur avec ses films, export")
+    public void testFetchPlansSelectCount() {
+        //Arrange
+        List<DirectorRecord> records = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            records.add(new DirectorRecord(null, "Plan" + i, "Fetch", LocalDate.of(1970, 1, 1), 0, List.of(
+                    new MovieRecord(null, "Plan Movie A" + i, LocalDateTime.of(2001, Month.MARCH, 1, 20, 0), Genre.ACTION, 7.0, null),
+                    new MovieRecord(null, "Plan Movie B" + i, LocalDateTime.of(2004, Month.MAY, 1, 20, 0), Genre.THRILLER, 8.0, null))));
+        }
+        Long id = serviceDirector.addDirectorRecords(records).getFirst();
+
+        //Act + Assert : page simple, une requête (seek) ; films non chargés
+        SqlAssertions.reset();
+        CursorPage<DirectorRecord> page = serviceDirector.findDirectorsPage(null, 10, false);
+        SqlAssertions.assertSelectCount(1);
+        assertTrue(page.content().stream().allMatch(d -> d.moviesRecord() == null));
+
+        // page avec les films : ids de la page, puis un fetch join sur ces ids
+        SqlAssertions.reset();
+        CursorPage<DirectorRecord> expanded = serviceDirector.findDirectorsPage(null, 10, true);
+        SqlAssertions.assertSelectCount(2);
+        assertTrue(expanded.content().stream().allMatch(d -> d.moviesRecord() != null));
+
+        // un directeur avec ses films (GET /directors/{id}?expand=movies) après un miss du cache : une requête (entity graph)
+        cacheManager.getCache(CacheConfig.DIRECTORS_WITH_MOVIES).evict(id);
+        SqlAssertions.reset();
+        VersionedRecord<DirectorRecord> withMovies = serviceDirector.findVersionedDirector(id, true).orElseThrow();
+        SqlAssertions.assertSelectCount(1);
+        assertEquals(2, withMovies.content().moviesRecord().size());
+
+        // export : une seule requête (fetch join lu en flux), quel que soit le nombre de directeurs
+        SqlAssertions.reset();
+        long exported = serviceDirector.exportDirectors(d -> { });
+        SqlAssertions.assertSelectCount(1);
+        assertTrue(exported >= records.size());
+    }
+
+    //export au-delà de EXPORT_CLEAR_INTERVAL : le contexte de persistance est vidé pendant la lecture du curseur
+    // le directeur qui suit un vidage ne doit pas perdre les films déjà lus (collection à moitié chargée puis détachée)
+    @Test
+    @DisplayName("Test export : films complets pour chaque directeur, y compris après un vidage du contexte de persistance")
+    public void testExportAcrossClearInterval() {
+        //Arrange : EXPORT_CLEAR_INTERVAL + 1 directeurs consécutifs, chacun avec plusieurs films : au moins un suit un vidage
+        List<DirectorRecord> records = new ArrayList<>();
+        for (int i = 0; i <= ServiceDirector.EXPORT_CLEAR_INTERVAL; i++) {
+            List<MovieRecord> movies = new ArrayList<>();
+            for (int m = 0; m < 4; m++) {
+                movies.add(new MovieRecord(null, "Export " + i + "-" + m, LocalDateTime.of(1990 + m, 1, 1, 20, 0), Genre.COMEDY, 5.0, null));
+            }
+            records.add(new DirectorRecord(null, "Export" + i, "Director", LocalDate.of(1960, 1, 1), 0, movies));
+        }
+        serviceDirector.addDirectorRecords(records);
+        Map<Long, Integer> movieCounts = new HashMap<>();
+        jdbcTemplate.query("SELECT director_id, COUNT(*) FROM movie WHERE director_id IS NOT NULL GROUP BY director_id",
+                (RowCallbackHandler) rs -> movieCounts.put(rs.getLong(1), rs.getInt(2)));
+
+        //Act
+        Map<Long, Integer> exported = new HashMap<>();
+        long count = serviceDirector.exportDirectors(d -> exported.merge(d.id(), d.moviesRecord().size(), Integer::sum));
+
+        //Assert : chaque directeur exporté une seule fois, avec tous ses films
+        assertEquals(count, exported.size());
+        assertTrue(count > ServiceDirector.EXPORT_CLEAR_INTERVAL);
+        exported.forEach((directorId, movies) -> assertEquals(movieCounts.getOrDefault(directorId, 0), movies,
+                () -> "Director " + directorId));
+    }
+
+    //POST /directors/batch : une erreur dans le dernier paquet annule aussi les paquets déjà écrits (une seule transaction)
+    @Test
+    @DisplayName("Test ajout en lot : un paquet en erreur n'insère aucun directeur")
+    public void testAddDirectorRecordsIsAtomic() {
+        //Arrange : BATCH_CHUNK_SIZE directeurs valides, puis un directeur sans prénom (first_name NOT NULL)
+        List<DirectorRecord> records = new ArrayList<>();
+        for (int i = 0; i < ServiceDirector.BATCH_CHUNK_SIZE; i++) {
+            records.add(new DirectorRecord(null, "Atomic" + i, "Batch", LocalDate.of(1970, 1, 1), 0,
+                    List.of(new MovieRecord(null, "Atomic Movie " + i, LocalDateTime.of(2000, 1, 1, 20, 0), Genre.ACTION, 6.0, null))));
+        }
+        records.add(new DirectorRecord(null, null, "Batch", LocalDate.of(1970, 1, 1), 0, null));
+
+        //Act
+        assertThrows(RuntimeException.class, () -> serviceDirector.addDirectorRecords(records));
+
+        //Assert
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM director WHERE last_name = 'Batch'", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM movie WHERE title LIKE 'Atomic Movie %'", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Test findDirectorETag : une seule requête sur les colonnes version, avec ou sans les films")
+    public void testDirectorETagSelectCount() {
+        //Arrange
+        Long id = serviceDirector.addDirectorRecords(List.of(new DirectorRecord(null, "Agnès", "Varda", LocalDate.of(1928, 5, 30), 0,
+                List.of(new MovieRecord(null, "Cléo de 5 à 7", LocalDateTime.of(1962, 4, 11, 20, 0), Genre.ROMANCE, 7.8, null))))).getFirst();
+
+        //Act + Assert
+        SqlAssertions.reset();
+        Optional<String> eTag = serviceDirector.findDirectorETag(id, false);
+        SqlAssertions.assertSelectCount(1);
+        SqlAssertions.reset();
+        Optional<String> eTagWithMovies = serviceDirector.findDirectorETag(id, true);
+        SqlAssertions.assertSelectCount(1);
+        assertEquals(Optional.of("\"0\""), eTag);
+        assertTrue(eTagWithMovies.orElseThrow().startsWith("\"0-1-"));
+        assertTrue(serviceDirector.findDirectorETag(-1L, true).isEmpty());
+    }
+
+    //ajout d'un film : une requête pour lire le directeur (l'insertion en lot ne le met pas dans le cache de second niveau)
+    // et une seule insertion pour le film, sans relire la collection LAZY des films du directeur
+    @Test
+    @DisplayName("Test nombre de requêtes SQL de l'ajout d'un film à un directeur")
+    public void testAddFilmToDirectorStatementCount() throws Exception {
+        //Arrange
+        Long id = serviceDirector.addDirectorRecords(List.of(new DirectorRecord(null, "Quentin", "Tarantino", LocalDate.of(1963, 3, 27), 2,
+                List.of(new MovieRecord(null, "Pulp Fiction", LocalDateTime.of(1994, Month.OCTOBER, 14, 20, 0), Genre.THRILLER, 8.9, null))))).getFirst();
+        MovieRecord m = new MovieRecord(null, "Jackie Brown", LocalDateTime.of(1997, Month.DECEMBER, 25, 20, 0), Genre.THRILLER, 7.5, null);
+        SqlAssertions.reset();
+
+        //Act
+        MovieRecord added = serviceDirector.addFilmToDirector(id, m);
+
+        //Assert
+        assertNotNull(added.id());
+        SqlAssertions.assertSelectCount(1);
+        SqlAssertions.assertInsertCount(1);
+        SqlAssertions.assertUpdateCount(0);
+    }
+}
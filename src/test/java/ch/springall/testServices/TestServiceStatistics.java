@@ -0,0 +1,158 @@
+package ch.springall.testServices;
+
+import ch.springall.config.CacheConfig;
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.dtos.DirectorStatsRecord;
+import ch.springall.dtos.GenreStatsRecord;
+import ch.springall.dtos.MovieRecord;
+import ch.springall.dtos.ReleaseYearRecord;
+import ch.springall.dtos.StudioRecord;
+import ch.springall.dtos.StudioStatsRecord;
+import ch.springall.dtos.TopDirectorRecord;
+import ch.springall.dtos.TopMovieRecord;
+import ch.springall.entity.Genre;
+import ch.springall.service.ServiceDirector;
+import ch.springall.service.ServiceStatistics;
+import ch.springall.service.ServiceStudio;
+import ch.springall.testMonitoring.SqlAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Statistiques calculées par la base : valeurs, une seule requête SQL par statistique, puis lecture depuis le cache
+@SpringBootTest
+public class TestServiceStatistics {
+
+    // Année de sortie qu'aucun autre test n'utilise : le nombre de films de cette année est connu
+    private static final int YEAR = 1895;
+
+    @Autowired
+    private ServiceStatistics serviceStatistics;
+
+    @Autowired
+    private ServiceDirector serviceDirector;
+
+    @Autowired
+    private ServiceStudio serviceStudio;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager.getCache(CacheConfig.STATISTICS).clear();
+    }
+
+    // Un directeur avec "count" films notés 2, 4, 6... sortis l'année "year"
+    private Long addDirector(String lastName, int count, int year) {
+        List<MovieRecord> movies = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            movies.add(new MovieRecord(null, lastName + " " + i, LocalDateTime.of(year, 12, 28, 20, 0), Genre.DOCUMENTARY, 2.0 * i, null));
+        }
+        return serviceDirector.addDirectorRecords(List.of(
+                new DirectorRecord(null, "Stats", lastName, LocalDate.of(1862, 10, 19), 0, movies))).getFirst();
+    }
+
+    @Test
+    @DisplayName("Test statistiques par directeur, par studio et par année : une requête SQL agrégée chacune")
+    public void testDirectorStudioAndYearStats() {
+        //Arrange : deux directeurs (5 et 4 films) rattachés au même studio
+        Long lumiere = addDirector("Lumiere", 5, YEAR);
+        Long melies = addDirector("Melies", 4, YEAR);
+        StudioRecord studio = serviceStudio.addStudio(new StudioRecord(null, "Stats Studio", 1895, null));
+        jdbcTemplate.update("update director set studio_id = ? where id in (?, ?)", studio.id(), lumiere, melies);
+        SqlAssertions.reset();
+
+        //Act
+        List<DirectorStatsRecord> directors = serviceStatistics.findDirectorStats(ServiceStatistics.MAX_LIMIT);
+        SqlAssertions.assertSelectCount(1);
+        List<StudioStatsRecord> studios = serviceStatistics.findStudioStats(ServiceStatistics.MAX_LIMIT);
+        List<ReleaseYearRecord> years = serviceStatistics.findReleasesPerYear();
+
+        //Assert
+        DirectorStatsRecord lumiereStats = directors.stream().filter(d -> d.directorId().equals(lumiere)).findFirst().orElseThrow();
+        assertEquals(new DirectorStatsRecord(lumiere, "Stats", "Lumiere", 5L, 6.0, 2.0, 10.0), lumiereStats);
+        StudioStatsRecord studioStats = studios.stream().filter(s -> s.studioId().equals(studio.id())).findFirst().orElseThrow();
+        assertEquals(9L, studioStats.movieCount());
+        assertEquals(50.0 / 9, studioStats.averageRating(), 1e-9);
+        assertEquals(2.0, studioStats.minRating());
+        assertEquals(10.0, studioStats.maxRating());
+        assertTrue(years.contains(new ReleaseYearRecord(YEAR, 9L)));
+        SqlAssertions.assertSelectCount(3);
+    }
+
+    @Test
+    @DisplayName("Test statistiques par genre : résultat mis en cache, aucune requête au second appel")
+    public void testGenreStatsCached() {
+        //Arrange
+        addDirector("Guy", 3, 1906);
+        SqlAssertions.reset();
+
+        //Act
+        List<GenreStatsRecord> first = serviceStatistics.findGenreStats();
+        List<GenreStatsRecord> second = serviceStatistics.findGenreStats();
+
+        //Assert
+        GenreStatsRecord documentaries = first.stream().filter(g -> g.genre() == Genre.DOCUMENTARY).findFirst().orElseThrow();
+        assertTrue(documentaries.movieCount() >= 3);
+        assertTrue(documentaries.minRating() <= 2.0 && documentaries.maxRating() >= 6.0);
+        assertSame(first, second);
+        SqlAssertions.assertSelectCount(1);
+    }
+
+    @Test
+    @DisplayName("Test clé de cache : limite plafonnée avant d'être utilisée dans la clé, une entrée par limite effective")
+    public void testStatsCacheKeyUsesClampedLimit() {
+        //Arrange
+        addDirector("Key", 2, 1950);
+        SqlAssertions.reset();
+
+        //Act
+        List<DirectorStatsRecord> byDefault = serviceStatistics.findDirectorStats(null);
+        List<DirectorStatsRecord> explicitDefault = serviceStatistics.findDirectorStats(ServiceStatistics.DEFAULT_LIMIT);
+        List<DirectorStatsRecord> max = serviceStatistics.findDirectorStats(ServiceStatistics.MAX_LIMIT);
+        List<DirectorStatsRecord> aboveMax = serviceStatistics.findDirectorStats(5000);
+        List<StudioStatsRecord> studios = serviceStatistics.findStudioStats(ServiceStatistics.MAX_LIMIT);
+        List<StudioStatsRecord> studiosAboveMax = serviceStatistics.findStudioStats(Integer.MAX_VALUE);
+
+        //Assert : une requête par limite effective et par méthode
+        assertSame(byDefault, explicitDefault);
+        assertSame(max, aboveMax);
+        assertSame(studios, studiosAboveMax);
+        SqlAssertions.assertSelectCount(3);
+    }
+
+    @Test
+    @DisplayName("Test classements : à jour dès le commit, lus en mémoire sans requête SQL")
+    public void testLeaderboardsWithoutSql() {
+        //Arrange : films notés 10 (la note maximale)
+        Long director = serviceDirector.addDirectorRecords(List.of(new DirectorRecord(null, "Top", "Rated", LocalDate.of(1950, 1, 1), 0,
+                List.of(new MovieRecord(null, "Masterpiece I", LocalDateTime.of(1990, 1, 1, 20, 0), Genre.SCI_FI, 10.0, null),
+                        new MovieRecord(null, "Masterpiece II", LocalDateTime.of(1995, 1, 1, 20, 0), Genre.SCI_FI, 10.0, null)))))
+                .getFirst();
+        SqlAssertions.reset();
+
+        //Act
+        List<TopMovieRecord> movies = serviceStatistics.findTopMovies(Genre.SCI_FI, ServiceStatistics.MAX_LIMIT);
+        List<TopDirectorRecord> directors = serviceStatistics.findTopDirectors(ServiceStatistics.MAX_LIMIT);
+
+        //Assert
+        assertTrue(movies.stream().anyMatch(m -> m.title().equals("Masterpiece I") && director.equals(m.directorId())));
+        assertTrue(directors.stream().anyMatch(d -> d.id().equals(director) && d.movieCount() == 2 && d.averageRating() == 10.0));
+        SqlAssertions.assertSelectCount(0);
+    }
+}
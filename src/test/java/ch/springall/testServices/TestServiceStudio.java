@@ -1,19 +1,44 @@
 package ch.springall.testServices;
 
+import ch.springall.config.CacheConfig;
+import ch.springall.dtos.DirectorRecord;
+import ch.springall.dtos.MovieRecord;
 import ch.springall.dtos.StudioRecord;
+import ch.springall.dtos.VersionedRecord;
+import ch.springall.entity.Genre;
 import ch.springall.entity.Studio;
 import ch.springall.exceptions.ResourceNotFoundException;
 import ch.springall.mapper.MapperStudio;
+import ch.springall.service.ServiceDirector;
 import ch.springall.service.ServiceStudio;
+import ch.springall.testMonitoring.SqlAssertions;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 
+// La base est partagée par les tests de la classe : testAddStudio attend le premier id, il passe donc en premier
+// Le contexte (et sa base H2) est aussi partagé avec les autres classes @SpringBootTest qui ajoutent des studios :
+// la classe démarre sur un contexte neuf
 @SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class TestServiceStudio {
 
     @Autowired
@@ -22,8 +47,18 @@ public class TestServiceStudio {
     @Autowired
     private MapperStudio mapperStudio;
 
+    @Autowired
+    private ServiceDirector serviceDirector;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
     //test find the studio
     @Test
+    @Order(1)
     void testAddStudio(){
         Studio s = this.getStudioHelper();
         StudioRecord sRecord = mapperStudio.toRecord(s);
@@ -37,6 +72,8 @@ public class TestServiceStudio {
     @Test
     void testFindStudio(){
         Studio s = this.getStudioHelper();
+        //le nom d'un studio est unique : testAddStudio a déjà ajouté Warner Bros
+        s.setStudioName("Warner Bros Pictures");
         StudioRecord sRecord = mapperStudio.toRecord(s);
         StudioRecord recordAdded = serviceStudio.addStudio(sRecord);
 
@@ -54,6 +91,74 @@ public class TestServiceStudio {
         assertThrows(ResourceNotFoundException.class, () -> serviceStudio.findStudio(101L));
     }
 
+    //cache de second niveau : une fois le studio et sa collection en cache, findStudio ne va plus en base
+    @Test
+    void testFindStudioFromSecondLevelCache(){
+        StudioRecord recordAdded = serviceStudio.addStudio(new StudioRecord(null, "Pixar", 1986, null));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        serviceStudio.findStudio(recordAdded.id());
+        //on vide le cache des Records pour que la lecture passe par Hibernate
+        cacheManager.getCache(CacheConfig.STUDIOS).clear();
+        statistics.clear();
+
+        StudioRecord found = serviceStudio.findStudio(recordAdded.id());
+
+        assertEquals("Pixar", found.studioName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getDomainDataRegionStatistics(Studio.class.getName()).getHitCount() > 0);
+    }
+
+    //une suppression via le service invalide l'entrée en cache
+    @Test
+    void testDeleteStudioEvictsCache(){
+        StudioRecord recordAdded = serviceStudio.addStudio(new StudioRecord(null, "Gaumont", 1895, null));
+        serviceStudio.findStudio(recordAdded.id());
+
+        serviceStudio.deleteStudio(recordAdded.id());
+
+        assertThrows(ResourceNotFoundException.class, () -> serviceStudio.findStudio(recordAdded.id()));
+    }
+
+    //cache des Records : le même Record est renvoyé sans relire la base
+    @Test
+    void testFindStudioCached(){
+        StudioRecord recordAdded = serviceStudio.addStudio(new StudioRecord(null, "Pathé", 1896, null));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        StudioRecord first = serviceStudio.findStudio(recordAdded.id());
+        statistics.clear();
+
+        StudioRecord second = serviceStudio.findStudio(recordAdded.id());
+
+        assertSame(first, second);
+        assertEquals(0, statistics.getSessionOpenCount());
+    }
+
+    //nombre de requêtes SQL d'un findStudio sans aucun cache : le studio, sa liste de directeurs, puis les films
+    // de tous ses directeurs en une seule requête (le Record contient le graphe studio -> directeurs -> films)
+    @Test
+    void testFindStudioSelectCount(){
+        StudioRecord recordAdded = serviceStudio.addStudio(new StudioRecord(null, "Lucasfilm", 1971, null));
+        List<DirectorRecord> directors = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            directors.add(new DirectorRecord(null, "Lucas" + i, "Director", LocalDate.of(1944, 5, 14), 0, List.of(
+                    new MovieRecord(null, "Lucas Movie A" + i, LocalDateTime.of(1977, 5, 25, 20, 0), Genre.SCI_FI, 8.0, null),
+                    new MovieRecord(null, "Lucas Movie B" + i, LocalDateTime.of(1980, 5, 21, 20, 0), Genre.SCI_FI, 8.5, null))));
+        }
+        serviceDirector.addDirectorRecords(directors).forEach(id -> serviceStudio.addDirector(recordAdded.id(), id));
+        cacheManager.getCache(CacheConfig.STUDIOS).clear();
+        entityManagerFactory.getCache().evictAll();
+        SqlAssertions.reset();
+
+        VersionedRecord<StudioRecord> found = serviceStudio.findVersionedStudio(recordAdded.id());
+
+        SqlAssertions.assertSelectCount(3);
+        SqlAssertions.assertInsertCount(0);
+        SqlAssertions.assertUpdateCount(0);
+        assertEquals(3, found.content().directorList().size());
+        assertTrue(found.content().directorList().stream().allMatch(d -> d.moviesRecord().size() == 2));
+        assertEquals(serviceStudio.findStudioETag(recordAdded.id()), found.eTag());
+    }
+
     private Studio getStudioHelper(){
         Studio studio = new Studio();
         studio.setStudioName("Warner Bros");
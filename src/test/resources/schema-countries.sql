@@ -0,0 +1,12 @@
+-- Table des pays (entité R2DBC CountryR2DBC) pour les tests, créée au démarrage par spring.sql.init (via la ConnectionFactory R2DBC)
+-- Les tests utilisent une base H2 R2DBC séparée de la base JDBC : les migrations Flyway (db/migration) n'y sont pas appliquées
+-- En production, la table est créée par la migration V1__create_schema.sql (même base PostgreSQL pour JDBC et R2DBC)
+-- Le script est idempotent : la table et les données existantes sont conservées
+CREATE TABLE IF NOT EXISTS country (
+    country_id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    country_name      VARCHAR(50) NOT NULL UNIQUE,
+    country_continent VARCHAR(20) NOT NULL
+);
+
+-- findAllByContinent filtre sur le continent
+CREATE INDEX IF NOT EXISTS idx_country_continent ON country (country_continent);